@@ -0,0 +1,89 @@
+package ru.tms.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import ru.tms.api.advices.SubscriptionControllerAdvice;
+import ru.tms.api.advices.UserControllerAdvice;
+import ru.tms.api.controllers.UserController;
+import ru.tms.dto.User;
+import ru.tms.exceptions.InvalidElementDataException;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тела ошибок на HashMap из UserControllerAdvice и SubscriptionControllerAdvice вместе с их сериализацией.
+ * Исключения создаются заранее: замеряется работа самих советов, а не заполнение стека.
+ * Логгеры советов отключены в logback.xml модуля.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ErrorBodyBenchmark {
+
+    private final UserControllerAdvice userControllerAdvice = new UserControllerAdvice();
+    private final SubscriptionControllerAdvice subscriptionControllerAdvice = new SubscriptionControllerAdvice();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private NoSuchElementException notFound;
+    private InvalidElementDataException invalidData;
+    private MethodArgumentNotValidException notValid;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        this.notFound = new NoSuchElementException("User not found with id: 1");
+        this.invalidData = new InvalidElementDataException("Parameter limit must be between 1 and 100, got 0");
+        User user = User.builder().username(" ").build();
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(user, "user");
+        bindingResult.addError(new FieldError("user", "username", "Field User.username cannot by blank"));
+        MethodParameter parameter = new MethodParameter(UserController.class.getMethod("createUser", User.class), 0);
+        this.notValid = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> userNotFound() {
+        return this.userControllerAdvice.handleNoSuchElementException(this.notFound);
+    }
+
+    @Benchmark
+    public byte[] userNotFoundSerialized() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(
+                this.userControllerAdvice.handleNoSuchElementException(this.notFound).getBody());
+    }
+
+    @Benchmark
+    public byte[] userNotValidSerialized() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(
+                this.userControllerAdvice.handleMethodArgumentNotValidException(this.notValid).getBody());
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> subscriptionInvalidData() {
+        return this.subscriptionControllerAdvice.handleInvalidElementDataException(this.invalidData);
+    }
+
+    @Benchmark
+    public byte[] subscriptionInvalidDataSerialized() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(
+                this.subscriptionControllerAdvice.handleInvalidElementDataException(this.invalidData).getBody());
+    }
+}
@@ -0,0 +1,87 @@
+package ru.tms.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов и разбор тел запросов Jackson с настройками, которые использует Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JsonBenchmark {
+
+    private static final TypeReference<List<Subscription>> SUBSCRIPTION_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1", "10", "100"})
+    private int subscriptions;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private User user;
+    private List<Subscription> subscriptionList;
+    private byte[] userJson;
+    private byte[] subscriptionJson;
+    private byte[] subscriptionListJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        this.user = User.builder().id(1L).username("user-1").build();
+        this.subscriptionList = new ArrayList<>(this.subscriptions);
+        for (long id = 1; id <= this.subscriptions; id++) {
+            this.subscriptionList.add(Subscription.builder().id(id).name("subscription-" + id).user(1L).build());
+        }
+        this.userJson = this.objectMapper.writeValueAsBytes(this.user);
+        this.subscriptionJson = this.objectMapper.writeValueAsBytes(this.subscriptionList.get(0));
+        this.subscriptionListJson = this.objectMapper.writeValueAsBytes(this.subscriptionList);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.user);
+    }
+
+    @Benchmark
+    public byte[] serializeSubscriptions() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.subscriptionList);
+    }
+
+    @Benchmark
+    public User deserializeUser() throws IOException {
+        return this.objectMapper.readValue(this.userJson, User.class);
+    }
+
+    @Benchmark
+    public Subscription deserializeSubscription() throws IOException {
+        return this.objectMapper.readValue(this.subscriptionJson, Subscription.class);
+    }
+
+    @Benchmark
+    public List<Subscription> deserializeSubscriptions() throws IOException {
+        return this.objectMapper.readValue(this.subscriptionListJson, SUBSCRIPTION_LIST);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.tms.benchmarks;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+import ru.tms.entity.SubscriptionEntity;
+import ru.tms.entity.UserEntity;
+import ru.tms.mappers.SubscriptionMapper;
+import ru.tms.mappers.UserMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования MapStruct на каждом запросе: список подписок пользователя и пользователь в обе стороны.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MappingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int subscriptions;
+
+    private final SubscriptionMapper subscriptionMapper = Mappers.getMapper(SubscriptionMapper.class);
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private List<SubscriptionEntity> subscriptionEntities;
+    private UserEntity userEntity;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        this.userEntity = new UserEntity("user-1");
+        this.userEntity.setId(1L);
+        this.user = User.builder().id(1L).username("user-1").build();
+        this.subscriptionEntities = new ArrayList<>(this.subscriptions);
+        for (long id = 1; id <= this.subscriptions; id++) {
+            SubscriptionEntity subscriptionEntity = new SubscriptionEntity("subscription-" + id, this.userEntity);
+            subscriptionEntity.setId(id);
+            this.subscriptionEntities.add(subscriptionEntity);
+        }
+    }
+
+    @Benchmark
+    public List<Subscription> subscriptionsToDto() {
+        return this.subscriptionMapper.toDto(this.subscriptionEntities);
+    }
+
+    @Benchmark
+    public User userToDto() {
+        return this.userMapper.toDto(this.userEntity);
+    }
+
+    @Benchmark
+    public UserEntity userToEntity() {
+        return this.userMapper.toEntity(this.user);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.tms.benchmarks;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation тел запросов, как при @Valid в UserController и SubscriptionController:
+ * корректные записи и записи с нарушениями, для которых собираются сообщения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    private final User validUser = User.builder().username("user-1").build();
+    private final User invalidUser = User.builder().username(" ").build();
+    private final Subscription validSubscription = Subscription.builder().name("Netflix").user(1L).build();
+    private final Subscription invalidSubscription = Subscription.builder().name("").build();
+
+    @Setup
+    public void setUp() {
+        this.validatorFactory = Validation.buildDefaultValidatorFactory();
+        this.validator = this.validatorFactory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> validUser() {
+        return this.validator.validate(this.validUser);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> invalidUser() {
+        return this.validator.validate(this.invalidUser);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Subscription>> validSubscription() {
+        return this.validator.validate(this.validSubscription);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Subscription>> invalidSubscription() {
+        return this.validator.validate(this.invalidSubscription);
+    }
+}
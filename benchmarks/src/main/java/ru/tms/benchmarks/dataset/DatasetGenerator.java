@@ -0,0 +1,244 @@
+package ru.tms.benchmarks.dataset;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических данных для замеров на объемах, близких к боевым.
+ * Пишет пользователей и их подписки через COPY в схему, созданную Flyway; имена подписок выбираются
+ * из каталога по распределению Ципфа, поэтому несколько популярных сервисов встречаются у большинства пользователей,
+ * а длинный хвост редких имен - у единиц. Данные каждого пользователя зависят только от зерна и его номера,
+ * поэтому повторный запуск с теми же параметрами дает те же строки независимо от --chunk-size.
+ * Пользователи пишутся в users напрямую, подписки - в промежуточную временную таблицу, откуда переносятся
+ * одним INSERT ... SELECT с подстановкой id пользователя по имени; триггеры счетчиков срабатывают один раз на перенос.
+ * Запуск: mvn -f benchmarks package exec:exec@generate-dataset -Ddataset.args="--users=1000000 --truncate=true"
+ * или java -cp benchmarks/target/benchmarks.jar ru.tms.benchmarks.dataset.DatasetGenerator --users=1000000
+ */
+public class DatasetGenerator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ATTEMPTS_PER_SUBSCRIPTION = 32;
+
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMPORARY TABLE dataset_subscriptions (
+                username VARCHAR(255) NOT NULL,
+                name VARCHAR(255) NOT NULL,
+                created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+            ) ON COMMIT DELETE ROWS""";
+
+    private static final String COPY_USERS_SQL =
+            "COPY user_subscriptions.users (username, created_at, updated_at, version) FROM STDIN";
+
+    private static final String COPY_SUBSCRIPTIONS_SQL = "COPY dataset_subscriptions (username, name, created_at) FROM STDIN";
+
+    private static final String MERGE_CATALOG_SQL = """
+            INSERT INTO user_subscriptions.subscription_catalog (normalized_name, name)
+            SELECT DISTINCT user_subscriptions.subscription_catalog_normalize(name), name
+            FROM dataset_subscriptions
+            ON CONFLICT (normalized_name) DO NOTHING""";
+
+    private static final String MOVE_SUBSCRIPTIONS_SQL = """
+            INSERT INTO user_subscriptions.subscriptions (catalog_id, user_id, created_at, updated_at, version)
+            SELECT c.id, u.id, s.created_at, s.created_at, 0
+            FROM dataset_subscriptions s
+            JOIN user_subscriptions.users u ON u.username = s.username
+            JOIN user_subscriptions.subscription_catalog c
+              ON c.normalized_name = user_subscriptions.subscription_catalog_normalize(s.name)""";
+
+    private static final String TOP_SQL = """
+            SELECT name, subscription_count FROM user_subscriptions.subscription_name_counts
+            ORDER BY subscription_count DESC, name LIMIT 5""";
+
+    private final DatasetOptions options;
+    private final Connection connection;
+    private final SubscriptionCatalogue catalogue;
+    private final ZipfSampler sampler;
+    private final long anchorEpochSecond;
+    private final long historySeconds;
+    private final long[] takenBy;
+
+    DatasetGenerator(DatasetOptions options, Connection connection) {
+        this.options = options;
+        this.connection = connection;
+        this.catalogue = new SubscriptionCatalogue(options.catalogueSize());
+        this.sampler = new ZipfSampler(options.catalogueSize(), options.zipfExponent());
+        this.anchorEpochSecond = options.anchor().toEpochSecond(ZoneOffset.UTC);
+        this.historySeconds = Duration.ofDays(options.historyDays()).toSeconds();
+        this.takenBy = new long[options.catalogueSize()];
+    }
+
+    public static void main(String[] args) throws SQLException, IOException {
+        DatasetOptions options = DatasetOptions.parse(args);
+        try (Connection connection = DriverManager.getConnection(options.url(), options.username(), options.password())) {
+            new DatasetGenerator(options, connection).generate();
+        }
+    }
+
+    void generate() throws SQLException, IOException {
+        long startedAt = System.nanoTime();
+        this.connection.setAutoCommit(false);
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("SET synchronous_commit = off");
+            statement.execute(CREATE_STAGING_SQL);
+            if (this.options.truncate()) {
+                statement.execute("TRUNCATE TABLE user_subscriptions.subscriptions, user_subscriptions.users "
+                        + "RESTART IDENTITY");
+            }
+        }
+        this.connection.commit();
+
+        CopyManager copyManager = this.connection.unwrap(PGConnection.class).getCopyAPI();
+        long subscriptions = 0;
+        for (long from = 0; from < this.options.users(); from += this.options.chunkSize()) {
+            long to = Math.min(from + this.options.chunkSize(), this.options.users());
+            subscriptions += writeChunk(copyManager, from, to);
+            this.connection.commit();
+            printProgress(to, subscriptions, startedAt);
+        }
+
+        this.connection.setAutoCommit(true);
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("ANALYZE user_subscriptions.users, user_subscriptions.subscriptions");
+        }
+        printSummary(subscriptions, startedAt);
+    }
+
+    private long writeChunk(CopyManager copyManager, long from, long to) throws SQLException, IOException {
+        copy(copyManager, COPY_USERS_SQL, writer -> {
+            for (long ordinal = from; ordinal < to; ordinal++) {
+                SplittableRandom random = random(ordinal);
+                String createdAt = timestamp(userCreatedAt(random));
+                writer.write(username(ordinal));
+                writer.write('\t');
+                writer.write(createdAt);
+                writer.write('\t');
+                writer.write(createdAt);
+                writer.write("\t0\n");
+            }
+        });
+        copy(copyManager, COPY_SUBSCRIPTIONS_SQL, writer -> {
+            for (long ordinal = from; ordinal < to; ordinal++) {
+                writeSubscriptions(writer, ordinal);
+            }
+        });
+        try (Statement statement = this.connection.createStatement()) {
+            statement.executeUpdate(MERGE_CATALOG_SQL);
+            return statement.executeUpdate(MOVE_SUBSCRIPTIONS_SQL);
+        }
+    }
+
+    /**
+     * Повторяет выбор случайных значений пользователя в том же порядке, что и при записи users,
+     * поэтому дата создания пользователя совпадает и подписки создаются не раньше него.
+     */
+    private void writeSubscriptions(Writer writer, long ordinal) throws IOException {
+        SplittableRandom random = random(ordinal);
+        long userCreatedAt = userCreatedAt(random);
+        String username = username(ordinal);
+        int count = this.options.subscriptionsMin()
+                + random.nextInt(this.options.subscriptionsMax() - this.options.subscriptionsMin() + 1);
+        long mark = ordinal + 1;
+        int picked = 0;
+        for (int attempt = 0; picked < count && attempt < count * ATTEMPTS_PER_SUBSCRIPTION; attempt++) {
+            int rank = this.sampler.sample(random);
+            if (this.takenBy[rank] != mark) {
+                this.takenBy[rank] = mark;
+                writeSubscription(writer, username, rank, subscriptionCreatedAt(random, userCreatedAt));
+                picked++;
+            }
+        }
+        // При большом числе подписок на пользователя и сильном перекосе повторы становятся частыми:
+        // недостающие имена добираются самыми популярными из еще не выбранных
+        for (int rank = 0; picked < count; rank++) {
+            if (this.takenBy[rank] != mark) {
+                this.takenBy[rank] = mark;
+                writeSubscription(writer, username, rank, subscriptionCreatedAt(random, userCreatedAt));
+                picked++;
+            }
+        }
+    }
+
+    private void writeSubscription(Writer writer, String username, int rank, long createdAt) throws IOException {
+        writer.write(username);
+        writer.write('\t');
+        writer.write(this.catalogue.name(rank));
+        writer.write('\t');
+        writer.write(timestamp(createdAt));
+        writer.write('\n');
+    }
+
+    private SplittableRandom random(long ordinal) {
+        return new SplittableRandom(this.options.seed() * 0x9E3779B97F4A7C15L + ordinal);
+    }
+
+    private long userCreatedAt(SplittableRandom random) {
+        return this.anchorEpochSecond - random.nextLong(this.historySeconds);
+    }
+
+    private long subscriptionCreatedAt(SplittableRandom random, long userCreatedAt) {
+        return userCreatedAt + random.nextLong(this.anchorEpochSecond - userCreatedAt + 1);
+    }
+
+    private String username(long ordinal) {
+        return this.options.usernamePrefix() + (ordinal + 1);
+    }
+
+    private static String timestamp(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).toString();
+    }
+
+    private static void copy(CopyManager copyManager, String sql, RowsWriter rows) throws SQLException, IOException {
+        PGCopyOutputStream copyStream = new PGCopyOutputStream(copyManager.copyIn(sql), BUFFER_SIZE);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(copyStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            rows.write(writer);
+            writer.flush();
+            copyStream.endCopy();
+        } finally {
+            if (copyStream.isActive()) {
+                copyStream.cancelCopy();
+            }
+        }
+    }
+
+    private void printProgress(long users, long subscriptions, long startedAt) {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        System.out.printf("%,d / %,d users, %,d subscriptions, %,.0f rows/min%n",
+                users, this.options.users(), subscriptions, (users + subscriptions) / seconds * 60);
+    }
+
+    private void printSummary(long subscriptions, long startedAt) throws SQLException {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        System.out.printf("%nseed %d: %,d users, %,d subscriptions over %,d names in %.1f s (%,.0f rows/min)%n",
+                this.options.seed(), this.options.users(), subscriptions, this.catalogue.size(), seconds,
+                (this.options.users() + subscriptions) / seconds * 60);
+        System.out.println("Most popular subscriptions:");
+        try (Statement statement = this.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(TOP_SQL)) {
+            while (resultSet.next()) {
+                System.out.printf("  %-24s %,d%n", resultSet.getString("name"), resultSet.getLong("subscription_count"));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowsWriter {
+        void write(Writer writer) throws IOException;
+    }
+}
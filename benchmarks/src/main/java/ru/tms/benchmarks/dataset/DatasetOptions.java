@@ -0,0 +1,95 @@
+package ru.tms.benchmarks.dataset;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Параметры генератора из аргументов командной строки вида --name=value.
+ *
+ * @param url                 JDBC-адрес БД, в которой Flyway уже создал схему user_subscriptions.
+ * @param username            Пользователь БД.
+ * @param password            Пароль пользователя БД.
+ * @param seed                Зерно генератора: одинаковое зерно и параметры дают одинаковые данные.
+ * @param users               Сколько пользователей создать.
+ * @param usernamePrefix      Префикс имен пользователей; имя пользователя - префикс и порядковый номер.
+ * @param subscriptionsMin    Наименьшее число подписок у пользователя.
+ * @param subscriptionsMax    Наибольшее число подписок у пользователя; число выбирается равномерно.
+ * @param catalogueSize       Сколько различных имен подписок в каталоге.
+ * @param zipfExponent        Показатель распределения Ципфа по каталогу: чем больше, тем сильнее перекос к популярным.
+ * @param historyDays         На сколько суток назад от anchor распределяются даты создания.
+ * @param anchor              Самая поздняя дата создания; для побайтно одинаковых данных ее нужно задать явно.
+ * @param chunkSize           Сколько пользователей записывается одной транзакцией.
+ * @param truncate            Очистить users и subscriptions перед генерацией.
+ */
+record DatasetOptions(String url,
+                      String username,
+                      String password,
+                      long seed,
+                      long users,
+                      String usernamePrefix,
+                      int subscriptionsMin,
+                      int subscriptionsMax,
+                      int catalogueSize,
+                      double zipfExponent,
+                      int historyDays,
+                      LocalDateTime anchor,
+                      int chunkSize,
+                      boolean truncate) {
+
+    private static final Set<String> KEYS = Set.of("url", "username", "password", "seed", "users", "username-prefix",
+            "subscriptions-min", "subscriptions-max", "catalogue-size", "zipf-exponent", "history-days", "anchor",
+            "chunk-size", "truncate");
+
+    static DatasetOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String key = arg.substring(2, separator);
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown option --" + key + ", expected one of " + KEYS);
+            }
+            values.put(key, arg.substring(separator + 1));
+        }
+        DatasetOptions options = new DatasetOptions(
+                values.getOrDefault("url", "jdbc:postgresql://localhost:5432/user_subscriptions"),
+                values.getOrDefault("username", "user_subscriptions"),
+                values.getOrDefault("password", "user_subscriptions"),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Long.parseLong(values.getOrDefault("users", "1000000")),
+                values.getOrDefault("username-prefix", "user-"),
+                Integer.parseInt(values.getOrDefault("subscriptions-min", "1")),
+                Integer.parseInt(values.getOrDefault("subscriptions-max", "10")),
+                Integer.parseInt(values.getOrDefault("catalogue-size", "10000")),
+                Double.parseDouble(values.getOrDefault("zipf-exponent", "1.0")),
+                Integer.parseInt(values.getOrDefault("history-days", "30")),
+                values.containsKey("anchor")
+                        ? LocalDateTime.parse(values.get("anchor"))
+                        : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS),
+                Integer.parseInt(values.getOrDefault("chunk-size", "50000")),
+                Boolean.parseBoolean(values.getOrDefault("truncate", "false")));
+        options.validate();
+        return options;
+    }
+
+    private void validate() {
+        if (this.users < 1) {
+            throw new IllegalArgumentException("Option --users must be positive");
+        }
+        if (this.subscriptionsMin < 0 || this.subscriptionsMax < this.subscriptionsMin) {
+            throw new IllegalArgumentException("Options must satisfy 0 <= --subscriptions-min <= --subscriptions-max");
+        }
+        if (this.subscriptionsMax > this.catalogueSize) {
+            throw new IllegalArgumentException("Option --subscriptions-max must not exceed --catalogue-size, "
+                    + "a user cannot have the same subscription twice");
+        }
+        if (this.historyDays < 1 || this.chunkSize < 1) {
+            throw new IllegalArgumentException("Options --history-days and --chunk-size must be positive");
+        }
+    }
+}
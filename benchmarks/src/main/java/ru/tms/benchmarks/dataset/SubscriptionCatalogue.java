@@ -0,0 +1,37 @@
+package ru.tms.benchmarks.dataset;
+
+import java.util.List;
+
+/**
+ * Каталог имен подписок, упорядоченный по популярности: в начале известные сервисы,
+ * за ними длинный хвост редких имен. Имена не содержат символов, требующих экранирования в COPY.
+ */
+class SubscriptionCatalogue {
+
+    private static final List<String> POPULAR = List.of(
+            "Netflix", "YouTube Premium", "Spotify", "Amazon Prime Video", "Disney+",
+            "Apple Music", "Yandex Plus", "HBO Max", "Apple TV+", "Kinopoisk",
+            "Hulu", "VK Music", "Okko", "Paramount+", "Xbox Game Pass",
+            "PlayStation Plus", "ivi", "Deezer", "Peacock", "Crunchyroll",
+            "Wink", "Tidal", "Start", "Premier", "Zvuk",
+            "Audible", "Storytel", "Kindle Unlimited", "Nintendo Switch Online", "Twitch Turbo",
+            "SoundCloud Go", "Amazon Music Unlimited", "Discovery+", "Mubi", "Shahid",
+            "DAZN", "Litres", "Bookmate", "Boosty", "Patreon");
+
+    private final String[] names;
+
+    SubscriptionCatalogue(int size) {
+        this.names = new String[size];
+        for (int rank = 0; rank < size; rank++) {
+            this.names[rank] = rank < POPULAR.size() ? POPULAR.get(rank) : "Niche Service " + (rank + 1);
+        }
+    }
+
+    String name(int rank) {
+        return this.names[rank];
+    }
+
+    int size() {
+        return this.names.length;
+    }
+}
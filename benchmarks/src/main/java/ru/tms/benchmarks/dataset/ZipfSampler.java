@@ -0,0 +1,41 @@
+package ru.tms.benchmarks.dataset;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Выбор ранга 0..size-1 с вероятностью, пропорциональной 1 / (ранг + 1)^exponent.
+ * Функция распределения считается один раз, выбор идет двоичным поиском по ней.
+ */
+class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size, double exponent) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Zipf size must be positive, got " + size);
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent must not be negative, got " + exponent);
+        }
+        this.cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            this.cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            this.cumulative[rank] /= sum;
+        }
+        this.cumulative[size - 1] = 1;
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(this.cumulative, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+
+    int size() {
+        return this.cumulative.length;
+    }
+}
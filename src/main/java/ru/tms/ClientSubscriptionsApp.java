@@ -2,10 +2,15 @@ package ru.tms;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
-@SpringBootApplication
+// Бин ConnectionFactory из R2dbcAutoConfiguration отключил бы DataSource, на котором работают JPA и Flyway;
+// пул R2DBC для реактивного чтения создается в ReactiveReadConfig и бином не публикуется
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@ConfigurationPropertiesScan
 public class ClientSubscriptionsApp {
     public static void main(String[] args) {
         SpringApplication.run(ClientSubscriptionsApp.class, args);
     }
-}
\ No newline at end of file
+}
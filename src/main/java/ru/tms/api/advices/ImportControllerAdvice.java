@@ -0,0 +1,36 @@
+package ru.tms.api.advices;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import ru.tms.api.controllers.ImportController;
+import ru.tms.exceptions.InvalidElementDataException;
+import ru.tms.metrics.HandledExceptionMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Hidden
+@RequiredArgsConstructor
+@ControllerAdvice(assignableTypes = ImportController.class)
+public class ImportControllerAdvice {
+
+    private final HandledExceptionMetrics exceptionMetrics;
+
+    @ExceptionHandler(InvalidElementDataException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleInvalidElementDataException(InvalidElementDataException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.BAD_REQUEST);
+        log.warn(exception.getMessage());
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", exception.getMessage());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+}
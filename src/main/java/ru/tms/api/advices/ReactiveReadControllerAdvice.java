@@ -0,0 +1,62 @@
+package ru.tms.api.advices;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import ru.tms.api.controllers.ReactiveReadController;
+import ru.tms.exceptions.InvalidElementDataException;
+import ru.tms.metrics.HandledExceptionMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@Slf4j
+@Hidden
+@RequiredArgsConstructor
+@ControllerAdvice(assignableTypes = ReactiveReadController.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadControllerAdvice {
+
+    private final HandledExceptionMetrics exceptionMetrics;
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ResponseEntity<Object> handleNoSuchElementException(NoSuchElementException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.NOT_FOUND);
+        log.warn(exception.getMessage());
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", exception.getMessage());
+        body.put("status", HttpStatus.NOT_FOUND.value());
+        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(InvalidElementDataException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleInvalidElementDataException(InvalidElementDataException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.BAD_REQUEST);
+        log.warn(exception.getMessage());
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", exception.getMessage());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(Exception.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    public ResponseEntity<Object> handleException(Exception exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.INTERNAL_SERVER_ERROR);
+        log.error(exception.getMessage());
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", "An unexpected error occurred.");
+        body.put("error", exception.getMessage());
+        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
+        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.tms.api.advices;
 
 import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.dao.DuplicateKeyException;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import ru.tms.api.controllers.SubscriptionController;
 import ru.tms.exceptions.InvalidElementDataException;
+import ru.tms.metrics.HandledExceptionMetrics;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,12 +24,16 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @Hidden
+@RequiredArgsConstructor
 @ControllerAdvice(assignableTypes = SubscriptionController.class)
 public class SubscriptionControllerAdvice {
 
+    private final HandledExceptionMetrics exceptionMetrics;
+
     @ExceptionHandler(NoSuchElementException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<Object> handleNoSuchElementException(NoSuchElementException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.NOT_FOUND);
         log.warn(exception.getMessage());
         Map<String, Object> body = new HashMap<>();
         body.put("message", exception.getMessage());
@@ -38,6 +44,7 @@ public class SubscriptionControllerAdvice {
     @ExceptionHandler(InvalidElementDataException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Object> handleInvalidElementDataException(InvalidElementDataException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.BAD_REQUEST);
         log.warn(exception.getMessage());
         Map<String, Object> body = new HashMap<>();
         body.put("message", exception.getMessage());
@@ -48,6 +55,7 @@ public class SubscriptionControllerAdvice {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Object> handleMethodArgumentNotValidException(MethodArgumentNotValidException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.BAD_REQUEST);
         List<String> errors = exception.getBindingResult()
                 .getFieldErrors()
                 .stream()
@@ -63,6 +71,7 @@ public class SubscriptionControllerAdvice {
     @ExceptionHandler(OptimisticLockingFailureException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.CONFLICT);
         log.error(exception.getMessage());
         Map<String, Object> body = new HashMap<>();
         body.put("message", exception.getMessage());
@@ -73,6 +82,7 @@ public class SubscriptionControllerAdvice {
     @ExceptionHandler(DuplicateKeyException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ResponseEntity<Object> handleDuplicateKeyException(DuplicateKeyException exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.CONFLICT);
         log.error(exception.getMessage());
         Map<String, Object> body = new HashMap<>();
         body.put("message", exception.getMessage());
@@ -83,6 +93,7 @@ public class SubscriptionControllerAdvice {
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<Object> handleException(Exception exception) {
+        this.exceptionMetrics.record(getClass(), exception, HttpStatus.INTERNAL_SERVER_ERROR);
         log.error(exception.getMessage());
         Map<String, Object> body = new HashMap<>();
         body.put("message", "An unexpected error occurred.");
@@ -0,0 +1,43 @@
+package ru.tms.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.tms.dto.BatchRequest;
+import ru.tms.dto.BatchResult;
+import ru.tms.services.BatchService;
+import ru.tms.services.BatchServiceImpl;
+
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/user-subscriptions/v1")
+@Tag(name = "Batch", description = "the Batch of User and Subscription changes in service user-subscriptions")
+public class BatchController {
+
+    private final BatchService batchService;
+
+    public BatchController(BatchServiceImpl batchService) {
+        this.batchService = batchService;
+        log.info("BatchController initialized");
+    }
+
+    @Operation(summary = "Execute batch",
+            description = "Run an ordered list of operations (CREATE_USER, UPDATE_USERNAME, ADD_SUBSCRIPTION, "
+                    + "REMOVE_SUBSCRIPTION) in one transaction, ALL_OR_NOTHING (default) or BEST_EFFORT; "
+                    + "return a result per operation, 409 if the batch was rolled back", tags = {"Batch"})
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> executeBatch(@RequestBody @Valid BatchRequest request) {
+        log.debug("Received batch of {} operations", request.operations().size());
+        BatchResult result = this.batchService.execute(request);
+        return new ResponseEntity<>(result, result.committed() ? HttpStatus.OK : HttpStatus.CONFLICT);
+    }
+}
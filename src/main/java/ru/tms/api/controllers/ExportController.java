@@ -0,0 +1,67 @@
+package ru.tms.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.tms.services.ExportService;
+import ru.tms.services.ExportServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/user-subscriptions/v1")
+@Tag(name = "Export", description = "the bulk Export in service user-subscriptions")
+public class ExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final ExportService exportService;
+
+    public ExportController(ExportServiceImpl exportService) {
+        this.exportService = exportService;
+        log.info("ExportController initialized");
+    }
+
+    @Operation(summary = "Export Users with Subscriptions",
+            description = "Stream all Users with nested Subscriptions as NDJSON, one User per line; "
+                    + "since limits the export to Users changed since then; gzip is used when the client accepts it",
+            tags = {"Export"})
+    @GetMapping(value = "/exports", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(name = "since", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("Received request to export users changed since {}", since);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = gzip
+                ? output -> {
+                    // syncFlush, чтобы сброс буфера сервисом доходил до клиента, а не оставался в компрессоре
+                    GZIPOutputStream gzipOutput = new GZIPOutputStream(output, GZIP_BUFFER_SIZE, true);
+                    this.exportService.exportUsers(since, gzipOutput);
+                    gzipOutput.finish();
+                }
+                : output -> this.exportService.exportUsers(since, output);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.tms.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.tms.dto.ImportResult;
+import ru.tms.services.ImportFormat;
+import ru.tms.services.ImportService;
+import ru.tms.services.ImportServiceImpl;
+
+import java.io.InputStream;
+
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/user-subscriptions/v1")
+@Tag(name = "Import", description = "the bulk Import in service user-subscriptions")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportServiceImpl importService) {
+        this.importService = importService;
+        log.info("ImportController initialized");
+    }
+
+    @Operation(summary = "Import Users and Subscriptions",
+            description = "Stream NDJSON ({\"username\": ..., \"subscriptions\": [...]} per line) "
+                    + "or CSV (username[,subscription] per line) and create missing Users and Subscriptions; "
+                    + "return rejected lines and throughput", tags = {"Import"})
+    @PostMapping(value = "/imports", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportResult> importSubscriptions(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        log.debug("Received request to import {}", contentType);
+        ImportResult result = this.importService.importSubscriptions(body, ImportFormat.fromMediaType(contentType));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.tms.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+import ru.tms.exceptions.InvalidElementDataException;
+import ru.tms.repo.ReactiveReadRepo;
+import ru.tms.services.SubscriptionServiceImpl;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Эндпоинты чтения UserController и SubscriptionController на WebFlux и R2DBC.
+ * Включается вместо MVC-контроллеров при spring.main.web-application-type=reactive (профиль reactive).
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/user-subscriptions/v1")
+@Tag(name = "Reactive read", description = "the non-blocking reads in service user-subscriptions")
+public class ReactiveReadController {
+
+    private final ReactiveReadRepo reactiveReadRepo;
+
+    public ReactiveReadController(ReactiveReadRepo reactiveReadRepo) {
+        this.reactiveReadRepo = reactiveReadRepo;
+        log.info("ReactiveReadController initialized");
+    }
+
+    @Operation(summary = "Get user by id", description = "Return user by userId", tags = {"User"})
+    @GetMapping("/users/{id}")
+    public Mono<User> getUserById(@PathVariable("id") Long userId) {
+        log.debug("Received request to fetch user by id {}", userId);
+        return this.reactiveReadRepo.findUserById(userId)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("User not found with id: " + userId)));
+    }
+
+    @Operation(summary = "Get all Subscriptions by user",
+            description = "Return all Subscriptions by userId", tags = {"Subscription"})
+    @GetMapping("/users/{id}/subscriptions")
+    public Flux<Subscription> getSubscriptionByUserId(@PathVariable("id") Long userId) {
+        log.debug("Received request to fetch subscriptions by userId {}", userId);
+        return this.reactiveReadRepo.findSubscriptionsByUserId(userId);
+    }
+
+    @Operation(summary = "Get top Subscriptions",
+            description = "Return top N Subscriptions (three by default)", tags = {"Subscription"})
+    @GetMapping("/subscriptions/top")
+    public Mono<List<String>> findTopSubscriptions(@RequestParam(name = "limit", defaultValue = "3") int limit) {
+        log.debug("Received request to fetch top {} subscriptions", limit);
+        if (limit < 1 || limit > SubscriptionServiceImpl.MAX_TOP_LIMIT) {
+            return Mono.error(new InvalidElementDataException(String.format(
+                    "Parameter limit must be between 1 and %d, got %d", SubscriptionServiceImpl.MAX_TOP_LIMIT, limit)));
+        }
+        return this.reactiveReadRepo.findTopSubscriptions(limit).collectList();
+    }
+}
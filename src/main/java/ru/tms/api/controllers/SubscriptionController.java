@@ -4,10 +4,19 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.tms.dto.ApproximateTopSubscriptions;
 import ru.tms.dto.Subscription;
+import ru.tms.dto.SubscriptionPage;
+import ru.tms.dto.UserSubscriptionsBatch;
+import ru.tms.dto.UserSubscriptionsBatchRequest;
+import ru.tms.services.SubscriptionListETag;
 import ru.tms.services.SubscriptionService;
 import ru.tms.services.SubscriptionServiceImpl;
 
@@ -15,6 +24,7 @@ import java.util.List;
 
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/user-subscriptions/v1")
 @Tag(name = "Subscription", description = "the Subscription in service user-subscriptions")
 public class SubscriptionController {
@@ -27,20 +37,93 @@ public class SubscriptionController {
     }
 
     @Operation(summary = "Get all Subscriptions by user",
-            description = "Return all Subscriptions by userId", tags = {"Subscription"})
+            description = "Return all Subscriptions by userId; 304 if If-None-Match matches the list's ETag",
+            tags = {"Subscription"})
     @GetMapping("/users/{id}/subscriptions")
-    public ResponseEntity<List<Subscription>> getSubscriptionByUserId(@PathVariable("id") Long userId) {
+    public ResponseEntity<List<Subscription>> getSubscriptionByUserId(@PathVariable("id") Long userId,
+                                                                      WebRequest webRequest) {
         log.debug("Received request to fetch subscriptions by userId {}", userId);
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = this.subscriptionService.getSubscriptionsETagByUserId(userId);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
         List<Subscription> subscriptions = this.subscriptionService.getSubscriptionsByUserId(userId);
-        return new ResponseEntity<>(subscriptions, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(SubscriptionListETag.of(subscriptions).value()).body(subscriptions);
+    }
+
+    @Operation(summary = "Get Subscriptions of several users",
+            description = "Return Subscriptions grouped by user in request order; "
+                    + "ids of users not found are listed in missingIds", tags = {"Subscription"})
+    @PostMapping("/users/subscriptions:batchGet")
+    public ResponseEntity<UserSubscriptionsBatch> getSubscriptionsByUserIds(
+            @RequestBody @Valid UserSubscriptionsBatchRequest request) {
+        log.debug("Received request to fetch subscriptions of {} users", request.userIds().size());
+        return new ResponseEntity<>(this.subscriptionService.getSubscriptionsByUserIds(request.userIds()),
+                HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get page of Subscriptions by user",
+            description = "Return page of Subscriptions by userId sorted by name or created_at; "
+                    + "pass nextCursor from the previous page as cursor", tags = {"Subscription"})
+    @GetMapping(value = "/users/{id}/subscriptions", params = "limit")
+    public ResponseEntity<SubscriptionPage> getSubscriptionPageByUserId(
+            @PathVariable("id") Long userId,
+            @RequestParam(name = "limit") int limit,
+            @RequestParam(name = "sort", defaultValue = "name") String sort,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.debug("Received request to fetch page of {} subscriptions by userId {}", limit, userId);
+        SubscriptionPage page = this.subscriptionService.getSubscriptionsPageByUserId(userId, limit, sort, cursor);
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 
-    @Operation(summary = "Get top three Subscriptions",
-            description = "Return top three Subscriptions", tags = {"Subscription"})
+    @Operation(summary = "Get top Subscriptions",
+            description = "Return top N Subscriptions (three by default)", tags = {"Subscription"})
     @GetMapping("/subscriptions/top")
-    public ResponseEntity<List<String>> findTopThreeSubscriptions() {
-        log.debug("Received request to fetch top three subscriptions");
-        List<String> subscriptions = this.subscriptionService.findTopThreeSubscriptions();
+    public ResponseEntity<List<String>> findTopSubscriptions(
+            @RequestParam(name = "limit", defaultValue = "3") int limit) {
+        log.debug("Received request to fetch top {} subscriptions", limit);
+        List<String> subscriptions = this.subscriptionService.findTopSubscriptions(limit);
+        return new ResponseEntity<>(subscriptions, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get approximate top Subscriptions",
+            description = "Return estimated top N Subscriptions from the in-memory sketch with error bounds",
+            tags = {"Subscription"})
+    @GetMapping(value = "/subscriptions/top", params = "mode=approximate")
+    public ResponseEntity<ApproximateTopSubscriptions> findApproximateTopSubscriptions(
+            @RequestParam(name = "limit", defaultValue = "3") int limit) {
+        log.debug("Received request to estimate top {} subscriptions", limit);
+        return new ResponseEntity<>(this.subscriptionService.findApproximateTopSubscriptions(limit), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get top Subscriptions sketch",
+            description = "Return binary sketch of subscription changes seen by this instance", tags = {"Subscription"})
+    @GetMapping(value = "/subscriptions/top/sketch", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getTopSubscriptionsSketch() {
+        log.debug("Received request to export top subscriptions sketch");
+        return new ResponseEntity<>(this.subscriptionService.getTopSubscriptionsSketch(), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Merge top Subscriptions sketch",
+            description = "Merge binary sketch exported by another instance", tags = {"Subscription"})
+    @PostMapping(value = "/subscriptions/top/sketch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> mergeTopSubscriptionsSketch(@RequestBody byte[] sketch) {
+        log.debug("Received request to merge top subscriptions sketch of {} bytes", sketch.length);
+        this.subscriptionService.mergeTopSubscriptionsSketch(sketch);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @Operation(summary = "Get trending Subscriptions",
+            description = "Return top N Subscriptions created within the window (1h, 24h, 7d, ...)",
+            tags = {"Subscription"})
+    @GetMapping("/subscriptions/trending")
+    public ResponseEntity<List<String>> findTrendingSubscriptions(
+            @RequestParam(name = "window", defaultValue = "24h") String window,
+            @RequestParam(name = "limit", defaultValue = "3") int limit) {
+        log.debug("Received request to fetch top {} subscriptions trending within {}", limit, window);
+        List<String> subscriptions = this.subscriptionService.findTrendingSubscriptions(window, limit);
         return new ResponseEntity<>(subscriptions, HttpStatus.OK);
     }
 
@@ -63,4 +146,16 @@ public class SubscriptionController {
         log.debug("Successfully deleted subscription with ID {}", subscriptionId);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    @Operation(summary = "Delete Subscriptions",
+            description = "Delete user's subscriptions by ids in one statement, return deleted ids",
+            tags = {"Subscription"})
+    @DeleteMapping(value = "/users/{id}/subscriptions", params = "ids")
+    public ResponseEntity<List<Long>> deleteSubscriptions(@PathVariable("id") Long userId,
+                                                          @RequestParam("ids") List<Long> subscriptionIds) {
+        log.debug("Delete {} subscriptions for userId {}", subscriptionIds.size(), userId);
+        List<Long> deletedIds = this.subscriptionService.deleteSubscriptions(userId, subscriptionIds);
+        log.debug("Successfully deleted {} subscriptions", deletedIds.size());
+        return new ResponseEntity<>(deletedIds, HttpStatus.OK);
+    }
 }
@@ -4,17 +4,23 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.tms.dto.User;
+import ru.tms.dto.UserBatch;
 import ru.tms.entity.UserEntity;
 import ru.tms.mappers.UserMapper;
 import ru.tms.services.UserService;
 import ru.tms.services.UserServiceImpl;
 
+import java.util.List;
+
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/user-subscriptions/v1")
 @Tag(name = "User", description = "the User in service user-subscriptions")
 public class UserController {
@@ -28,12 +34,26 @@ public class UserController {
         log.info("UserController initialized");
     }
 
-    @Operation(summary = "Get user by id", description = "Return user by userId", tags = {"User"})
+    @Operation(summary = "Get user by id",
+            description = "Return user by userId; 304 if If-None-Match matches the user's ETag", tags = {"User"})
     @GetMapping("/users/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable("id") Long userId) {
+    public ResponseEntity<User> getUserById(@PathVariable("id") Long userId, WebRequest webRequest) {
         log.debug("Received request to fetch user by id {}", userId);
         UserEntity userEntity = this.userService.getUserById(userId);
-        return new ResponseEntity<>(this.userMapper.toDto(userEntity), HttpStatus.OK);
+        String eTag = userETag(userEntity);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(this.userMapper.toDto(userEntity));
+    }
+
+    @Operation(summary = "Get users by ids",
+            description = "Return users by ids in request order; ids not found are listed in missingIds",
+            tags = {"User"})
+    @GetMapping(value = "/users", params = "ids")
+    public ResponseEntity<UserBatch> getUsersByIds(@RequestParam("ids") List<Long> userIds) {
+        log.debug("Received request to fetch {} users by ids", userIds.size());
+        return new ResponseEntity<>(this.userService.getUsersByIds(userIds), HttpStatus.OK);
     }
 
     @Operation(summary = "Create user", description = "Return create user", tags = {"User"})
@@ -60,4 +80,21 @@ public class UserController {
         log.debug("Successfully deleted user with ID {}", userId);
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    @Operation(summary = "Delete users", description = "Delete users by ids in one statement, return deleted ids",
+            tags = {"User"})
+    @DeleteMapping(value = "/users", params = "ids")
+    public ResponseEntity<List<Long>> deleteUsers(@RequestParam("ids") List<Long> userIds) {
+        log.debug("Deleting {} users", userIds.size());
+        List<Long> deletedIds = this.userService.deleteUsers(userIds);
+        log.debug("Successfully deleted {} users", deletedIds.size());
+        return new ResponseEntity<>(deletedIds, HttpStatus.OK);
+    }
+
+    /**
+     * Версия увеличивается при каждом изменении пользователя, поэтому однозначно определяет представление.
+     */
+    private static String userETag(UserEntity userEntity) {
+        return "\"" + (userEntity.getVersion() != null ? userEntity.getVersion() : 0) + "\"";
+    }
 }
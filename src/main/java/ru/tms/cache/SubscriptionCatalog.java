@@ -0,0 +1,145 @@
+package ru.tms.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.tms.config.SubscriptionCatalogProperties;
+import ru.tms.dto.Subscription;
+import ru.tms.entity.SubscriptionEntity;
+import ru.tms.repo.SubscriptionCatalogEntry;
+import ru.tms.repo.SubscriptionCatalogRepo;
+import ru.tms.repo.SubscriptionRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Словарь имен подписок в памяти узла поверх справочника subscription_catalog, в обе стороны: имя -> id и id -> имя.
+ * <p>
+ * Новое имя сначала фиксируется в справочнике и только потом попадает в словарь. Записи справочника не меняются
+ * и не удаляются, поэтому словарь не нужно сбрасывать и узлы не нужно согласовывать. Имя -> id кэшируется
+ * по написанию из запроса: нормализация выполняется только в БД, и разные написания одного имени
+ * дают разные ключи с одним id. Статистика публикуется в метриках cache.* с тегами cache=subscription-catalog-*.
+ */
+@Slf4j
+@Component
+public class SubscriptionCatalog {
+
+    public static final String IDS_CACHE_NAME = "subscription-catalog-ids";
+    public static final String NAMES_CACHE_NAME = "subscription-catalog-names";
+
+    private final SubscriptionCatalogRepo subscriptionCatalogRepo;
+    private final Cache<String, SubscriptionCatalogEntry> byName;
+    private final Cache<Integer, String> byId;
+
+    public SubscriptionCatalog(SubscriptionCatalogRepo subscriptionCatalogRepo,
+                               SubscriptionCatalogProperties properties, MeterRegistry meterRegistry) {
+        this.subscriptionCatalogRepo = subscriptionCatalogRepo;
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.byName, IDS_CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, this.byId, NAMES_CACHE_NAME);
+        log.info("SubscriptionCatalog initialized, maximum size: {}", properties.maximumSize());
+    }
+
+    /**
+     * Возвращает имя из справочника, добавляя его в справочник, если его там еще нет.
+     *
+     * @param name Имя в написании из запроса.
+     * @return SubscriptionCatalogEntry Id и написание имени в справочнике.
+     */
+    public SubscriptionCatalogEntry resolve(String name) {
+        return this.byName.get(name, key -> remember(this.subscriptionCatalogRepo.resolve(key)));
+    }
+
+    /**
+     * Ищет id имени, не добавляя имя в справочник. Отсутствие имени не кэшируется.
+     *
+     * @param name Имя в написании из запроса.
+     * @return Optional<Integer> Id имени или Optional.empty(), если такого имени нет в справочнике.
+     */
+    public Optional<Integer> findId(String name) {
+        SubscriptionCatalogEntry cached = this.byName.getIfPresent(name);
+        if (cached != null) {
+            return Optional.of(cached.id());
+        }
+        Optional<SubscriptionCatalogEntry> found = this.subscriptionCatalogRepo.findByName(name);
+        found.ifPresent(entry -> this.byName.put(name, remember(entry)));
+        return found.map(SubscriptionCatalogEntry::id);
+    }
+
+    /**
+     * Заполняет имена подписок по их catalog_id. Недостающие в словаре имена загружаются одним запросом.
+     *
+     * @param subscriptionEntities Подписки, прочитанные из БД.
+     */
+    public void decode(Collection<SubscriptionEntity> subscriptionEntities) {
+        Map<Integer, String> names = names(subscriptionEntities.stream().map(SubscriptionEntity::getCatalogId).toList());
+        for (SubscriptionEntity subscriptionEntity : subscriptionEntities) {
+            if (subscriptionEntity.getCatalogId() != null) {
+                subscriptionEntity.setName(names.get(subscriptionEntity.getCatalogId()));
+            }
+        }
+    }
+
+    public void decode(SubscriptionEntity subscriptionEntity) {
+        decode(List.of(subscriptionEntity));
+    }
+
+    /**
+     * Собирает DTO подписок из строк, прочитанных проекцией, с именами из словаря.
+     * Недостающие в словаре имена загружаются одним запросом.
+     *
+     * @param subscriptionRows Строки подписок в нужном порядке.
+     * @return List<Subscription> DTO подписок в том же порядке.
+     */
+    public List<Subscription> toSubscriptions(List<SubscriptionRow> subscriptionRows) {
+        Map<Integer, String> names = names(subscriptionRows.stream().map(SubscriptionRow::catalogId).toList());
+        List<Subscription> subscriptions = new ArrayList<>(subscriptionRows.size());
+        for (SubscriptionRow row : subscriptionRows) {
+            subscriptions.add(new Subscription(row.id(), names.get(row.catalogId()), row.userId()));
+        }
+        return subscriptions;
+    }
+
+    private Map<Integer, String> names(Collection<Integer> catalogIds) {
+        Map<Integer, String> names = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+        for (Integer catalogId : catalogIds) {
+            if (catalogId != null && !names.containsKey(catalogId)) {
+                String name = this.byId.getIfPresent(catalogId);
+                if (name != null) {
+                    names.put(catalogId, name);
+                } else {
+                    missing.add(catalogId);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.debug("Loading {} subscription names from catalog", missing.size());
+            this.subscriptionCatalogRepo.findByIds(missing)
+                    .forEach(entry -> names.put(entry.id(), remember(entry).name()));
+        }
+        return names;
+    }
+
+    private SubscriptionCatalogEntry remember(SubscriptionCatalogEntry entry) {
+        this.byId.put(entry.id(), entry.name());
+        return entry;
+    }
+}
@@ -0,0 +1,254 @@
+package ru.tms.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.tms.config.SubscriptionListCacheProperties;
+import ru.tms.dto.Subscription;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.events.SubscriptionDeletedEvent;
+import ru.tms.events.SubscriptionsImportedEvent;
+import ru.tms.events.UserDeletedEvent;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш списков подписок по id пользователя в памяти узла с семантикой stale-while-revalidate.
+ * <p>
+ * Список, загруженный раньше refreshAfterWrite, продолжает отдаваться, пока в фоне идет одна его перезагрузка;
+ * остальные запросы этого ключа в это время в БД не ходят. Первая загрузка ключа тоже выполняется одна на ключ.
+ * Результат фоновой перезагрузки отбрасывается, если запись за это время была сброшена, поэтому перезагрузка,
+ * прочитавшая данные до фиксации изменения, не вернет их в кэш. Пачка, загруженная в обход Caffeine, кладется
+ * в кэш, только если за время загрузки не было ни одного сброса. Размер ограничен оценкой занимаемых байт.
+ */
+@Slf4j
+@Component
+public class SubscriptionListCache {
+
+    public static final String CACHE_NAME = "subscription-lists";
+
+    // Оценки для 64-битной JVM со сжатыми ссылками: неизменяемый список и запись кэша,
+    // record Subscription с двумя Long и String, символ имени в LATIN1 или UTF16
+    static final int LIST_OVERHEAD_BYTES = 96;
+    static final int SUBSCRIPTION_OVERHEAD_BYTES = 112;
+
+    private final Cache<Long, Entry> cache;
+    private final Ticker ticker;
+    private final Executor refreshExecutor;
+    private final long refreshAfterWriteNanos;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param refreshExecutor Исполнитель фоновых перезагрузок; applicationTaskExecutor работает на виртуальных
+     *                        потоках при spring.threads.virtual.enabled=true, иначе на пуле платформенных потоков.
+     */
+    @Autowired
+    public SubscriptionListCache(SubscriptionListCacheProperties properties, MeterRegistry meterRegistry,
+                                 @Qualifier("applicationTaskExecutor") Executor refreshExecutor) {
+        this(properties, meterRegistry, Ticker.systemTicker(), refreshExecutor);
+    }
+
+    SubscriptionListCache(SubscriptionListCacheProperties properties, MeterRegistry meterRegistry,
+                          Ticker ticker, Executor refreshExecutor) {
+        this.ticker = ticker;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshAfterWriteNanos = properties.refreshAfterWrite().toNanos();
+        if (properties.enabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(properties.memoryBudget().toBytes())
+                    .weigher((Long userId, Entry entry) -> entry.weight())
+                    .expireAfterWrite(properties.expireAfterWrite())
+                    .ticker(ticker)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+            Gauge.builder("cache.weighted.size", this.cache,
+                            c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                    .tag("cache", CACHE_NAME)
+                    .baseUnit("bytes")
+                    .description("Estimated memory used by cached subscription lists")
+                    .register(meterRegistry);
+        } else {
+            this.cache = null;
+        }
+        log.info("SubscriptionListCache initialized, enabled: {}", properties.enabled());
+    }
+
+    public boolean isEnabled() {
+        return this.cache != null;
+    }
+
+    /**
+     * Возвращает список подписок из кэша или загружает его. Устаревший список отдается сразу,
+     * а его перезагрузка запускается в фоне, если еще не запущена.
+     *
+     * @param userId ID пользователя.
+     * @param loader Загрузка списка из БД.
+     */
+    public List<Subscription> get(Long userId, Function<Long, List<Subscription>> loader) {
+        if (this.cache == null) {
+            return loader.apply(userId);
+        }
+        Entry entry = this.cache.get(userId, id -> newEntry(loader.apply(id)));
+        refreshIfStale(userId, entry, loader);
+        return entry.subscriptions();
+    }
+
+    /**
+     * Возвращает списки подписок из кэша, а недостающие загружает одной пачкой. Устаревшие списки отдаются сразу
+     * и перезагружаются в фоне по одному.
+     *
+     * @param userIds ID пользователей.
+     * @param loader  Загрузка недостающих списков из БД; должна вернуть список (возможно, пустой) для каждого ID.
+     * @return Map<Long, List<Subscription>> Списки подписок по id пользователя.
+     */
+    public Map<Long, List<Subscription>> getAll(Collection<Long> userIds,
+                                                Function<Set<Long>, Map<Long, List<Subscription>>> loader) {
+        Map<Long, List<Subscription>> subscriptions = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            Entry entry = this.cache != null ? this.cache.getIfPresent(userId) : null;
+            if (entry != null) {
+                refreshIfStale(userId, entry, id -> loader.apply(Set.of(id)).getOrDefault(id, List.of()));
+                subscriptions.put(userId, entry.subscriptions());
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return subscriptions;
+        }
+        long invalidationsBefore = this.invalidations.get();
+        loader.apply(missing).forEach((userId, loaded) -> {
+            Entry entry = newEntry(loaded);
+            if (this.cache != null) {
+                // Сброс увеличивает счетчик до удаления из кэша, поэтому проверка внутри compute
+                // не пропустит данные, прочитанные до фиксации изменения
+                this.cache.asMap().compute(userId, (id, current) -> current != null ? current
+                        : this.invalidations.get() == invalidationsBefore ? entry : null);
+            }
+            subscriptions.put(userId, entry.subscriptions());
+        });
+        return subscriptions;
+    }
+
+    public void invalidate(Long userId) {
+        if (this.cache != null) {
+            this.invalidations.incrementAndGet();
+            this.cache.invalidate(userId);
+        }
+    }
+
+    public void invalidateAll() {
+        if (this.cache != null) {
+            this.invalidations.incrementAndGet();
+            this.cache.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionCreated(SubscriptionCreatedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionDeleted(SubscriptionDeletedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionsImported(SubscriptionsImportedEvent event) {
+        if (event.subscriptionsCreated() > 0) {
+            invalidateAll();
+        }
+    }
+
+    private void refreshIfStale(Long userId, Entry entry, Function<Long, List<Subscription>> loader) {
+        if (this.ticker.read() - entry.loadedAtNanos() >= this.refreshAfterWriteNanos && this.refreshing.add(userId)) {
+            try {
+                this.refreshExecutor.execute(() -> refresh(userId, entry, loader));
+            } catch (RuntimeException e) {
+                this.refreshing.remove(userId);
+                log.warn("Failed to schedule refresh of subscriptions for user {}", userId, e);
+            }
+        }
+    }
+
+    private void refresh(Long userId, Entry stale, Function<Long, List<Subscription>> loader) {
+        try {
+            Entry fresh = newEntry(loader.apply(userId));
+            // Заменяем только ту запись, которую перезагружали: если ее сбросили, результат может быть устаревшим
+            this.cache.asMap().replace(userId, stale, fresh);
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh subscriptions for user {}, keeping stale value", userId, e);
+        } finally {
+            this.refreshing.remove(userId);
+        }
+    }
+
+    private Entry newEntry(List<Subscription> subscriptions) {
+        List<Subscription> copy = List.copyOf(subscriptions);
+        return new Entry(copy, this.ticker.read(), weigh(copy));
+    }
+
+    static int weigh(List<Subscription> subscriptions) {
+        long bytes = LIST_OVERHEAD_BYTES;
+        for (Subscription subscription : subscriptions) {
+            bytes += SUBSCRIPTION_OVERHEAD_BYTES;
+            if (subscription.name() != null) {
+                bytes += 2L * subscription.name().length();
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Запись сравнивается по ссылке, чтобы replace в refresh не спутал ее с новой загрузкой того же содержимого.
+     */
+    private static final class Entry {
+        private final List<Subscription> subscriptions;
+        private final long loadedAtNanos;
+        private final int weight;
+
+        private Entry(List<Subscription> subscriptions, long loadedAtNanos, int weight) {
+            this.subscriptions = subscriptions;
+            this.loadedAtNanos = loadedAtNanos;
+            this.weight = weight;
+        }
+
+        List<Subscription> subscriptions() {
+            return this.subscriptions;
+        }
+
+        long loadedAtNanos() {
+            return this.loadedAtNanos;
+        }
+
+        int weight() {
+            return this.weight;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.tms.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.tms.config.UserCacheProperties;
+import ru.tms.entity.UserEntity;
+import ru.tms.events.UserDeletedEvent;
+import ru.tms.events.UserUpdatedEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш пользователей по id в памяти узла с вытеснением по размеру и времени.
+ * <p>
+ * Хранится неизменяемый снимок, а наружу каждый раз отдается новый UserEntity, поэтому изменение
+ * полученной сущности не портит кэш. Запись удаляется после фиксации транзакции, изменившей или удалившей
+ * пользователя. Загрузка и удаление одного ключа в Caffeine упорядочены, поэтому загрузка, начатая до
+ * фиксации, не переживет удаление. Пачка, загруженная в обход Caffeine, кладется в кэш, только если за время
+ * загрузки не было ни одного удаления. Статистика публикуется в метриках cache.* с тегом cache=users.
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    public static final String CACHE_NAME = "users";
+
+    private final Cache<Long, CachedUser> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserCache(UserCacheProperties properties, MeterRegistry meterRegistry) {
+        if (properties.enabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.maximumSize())
+                    .expireAfterWrite(properties.expireAfterWrite())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+        log.info("UserCache initialized, enabled: {}", properties.enabled());
+    }
+
+    public boolean isEnabled() {
+        return this.cache != null;
+    }
+
+    /**
+     * Возвращает пользователя из кэша или загружает его. Исключение загрузчика пробрасывается и не кэшируется.
+     *
+     * @param userId ID пользователя.
+     * @param loader Загрузка пользователя из БД.
+     * @return UserEntity Новый экземпляр сущности, не привязанный к кэшу.
+     */
+    public UserEntity get(Long userId, Function<Long, UserEntity> loader) {
+        if (this.cache == null) {
+            return loader.apply(userId);
+        }
+        return this.cache.get(userId, id -> CachedUser.of(loader.apply(id))).toEntity();
+    }
+
+    /**
+     * Возвращает пользователей из кэша, а недостающих загружает одной пачкой.
+     *
+     * @param userIds ID пользователей.
+     * @param loader  Загрузка недостающих пользователей из БД; отсутствующие в БД пропускаются.
+     * @return Map<Long, UserEntity> Найденные пользователи по id, новые экземпляры сущностей.
+     */
+    public Map<Long, UserEntity> getAll(Collection<Long> userIds,
+                                        Function<Set<Long>, ? extends Collection<UserEntity>> loader) {
+        Map<Long, UserEntity> users = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            CachedUser cached = this.cache != null ? this.cache.getIfPresent(userId) : null;
+            if (cached != null) {
+                users.put(userId, cached.toEntity());
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return users;
+        }
+        long invalidationsBefore = this.invalidations.get();
+        for (UserEntity userEntity : loader.apply(missing)) {
+            CachedUser loaded = CachedUser.of(userEntity);
+            if (this.cache != null) {
+                // Удаление увеличивает счетчик до удаления из кэша, поэтому проверка внутри compute
+                // не пропустит данные, прочитанные до фиксации изменения
+                this.cache.asMap().compute(userEntity.getId(), (id, current) -> current != null ? current
+                        : this.invalidations.get() == invalidationsBefore ? loaded : null);
+            }
+            users.put(userEntity.getId(), loaded.toEntity());
+        }
+        return users;
+    }
+
+    public void invalidate(Long userId) {
+        if (this.cache != null) {
+            this.invalidations.incrementAndGet();
+            this.cache.invalidate(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private record CachedUser(Long id, String username, LocalDateTime createdAt, LocalDateTime updatedAt,
+                              Long version) {
+
+        static CachedUser of(UserEntity userEntity) {
+            return new CachedUser(userEntity.getId(), userEntity.getUsername(), userEntity.getCreatedAt(),
+                    userEntity.getUpdatedAt(), userEntity.getVersion());
+        }
+
+        UserEntity toEntity() {
+            UserEntity userEntity = new UserEntity(this.username);
+            userEntity.setId(this.id);
+            userEntity.setCreatedAt(this.createdAt);
+            userEntity.setUpdatedAt(this.updatedAt);
+            userEntity.setVersion(this.version);
+            return userEntity;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки ограничения одновременных обращений к БД в режиме виртуальных потоков.
+ *
+ * @param enabled        Включено ли ограничение; действует только при spring.threads.virtual.enabled=true.
+ * @param maxConcurrency Сколько соединений может быть выдано одновременно; если не задано, берется размер пула Hikari.
+ * @param acquireTimeout Сколько запрос ждет разрешения, прежде чем получить ошибку получения соединения.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.db-concurrency-limiter")
+public record DbConcurrencyLimiterProperties(@DefaultValue("true") boolean enabled,
+                                             Integer maxConcurrency,
+                                             @DefaultValue("5s") Duration acquireTimeout) {
+}
@@ -0,0 +1,21 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки приближенного топа подписок.
+ *
+ * @param epsilon         Допустимое превышение оценки как доля от общего количества подписок.
+ * @param delta           Вероятность выхода оценки за границу epsilon.
+ * @param capacity        Сколько имен-кандидатов отслеживается для топа.
+ * @param rebuildInterval Как часто скетч пересобирается из БД (учитывает каскадные удаления и записи других узлов).
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.heavy-hitters")
+public record HeavyHittersProperties(@DefaultValue("0.0005") double epsilon,
+                                     @DefaultValue("0.01") double delta,
+                                     @DefaultValue("1024") int capacity,
+                                     @DefaultValue("10m") Duration rebuildInterval) {
+}
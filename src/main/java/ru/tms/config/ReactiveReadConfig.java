@@ -0,0 +1,41 @@
+package ru.tms.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import ru.tms.repo.ReactiveReadRepo;
+
+/**
+ * Неблокирующее чтение пользователей и подписок для режима WebFlux.
+ * Пул R2DBC живет внутри ReactiveReadRepo: бин типа ConnectionFactory отключил бы автоконфигурацию DataSource,
+ * а JDBC по-прежнему нужен Flyway и фоновым задачам.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadConfig {
+
+    @Bean(destroyMethod = "close")
+    ReactiveReadRepo reactiveReadRepo(ReactiveReadProperties properties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.url())
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, properties.username())
+                .option(ConnectionFactoryOptions.PASSWORD, properties.password())
+                .build();
+        ConnectionPool connectionPool = new ConnectionPool(
+                ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                        .name("reactive-read")
+                        .initialSize(properties.initialPoolSize())
+                        .maxSize(properties.maxPoolSize())
+                        .maxAcquireTime(properties.maxAcquireTime())
+                        .build());
+        log.info("R2DBC pool initialized, max size: {}", properties.maxPoolSize());
+        return new ReactiveReadRepo(DatabaseClient.create(connectionPool), connectionPool);
+    }
+}
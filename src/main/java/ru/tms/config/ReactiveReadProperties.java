@@ -0,0 +1,25 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки реактивного чтения через R2DBC (spring.main.web-application-type=reactive).
+ *
+ * @param url             Адрес БД в формате r2dbc:postgresql://host:port/database.
+ * @param username        Имя пользователя БД.
+ * @param password        Пароль пользователя БД.
+ * @param initialPoolSize Сколько соединений открывается при старте.
+ * @param maxPoolSize     Максимальное количество соединений пула R2DBC.
+ * @param maxAcquireTime  Сколько запрос ждет свободное соединение, прежде чем получить ошибку.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.reactive")
+public record ReactiveReadProperties(String url,
+                                     String username,
+                                     String password,
+                                     @DefaultValue("2") int initialPoolSize,
+                                     @DefaultValue("10") int maxPoolSize,
+                                     @DefaultValue("5s") Duration maxAcquireTime) {
+}
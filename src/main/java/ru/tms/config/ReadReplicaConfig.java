@@ -0,0 +1,135 @@
+package ru.tms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.metrics.jdbc.DataSourcePoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.boot.jdbc.metadata.HikariDataSourcePoolMetadata;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import ru.tms.jdbc.ReadReplicaRoutingDataSource;
+import ru.tms.jdbc.ReplicaPool;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение с реплик: вместо пула Spring Boot публикуется источник данных dataSource, который направляет
+ * транзакции только для чтения на реплики (см. {@link ReadReplicaRoutingDataSource}). Пул основной БД
+ * настраивается как обычно свойствами spring.datasource.*, пулы реплик - user-subscriptions.read-replicas.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "user-subscriptions.read-replicas", name = "enabled")
+public class ReadReplicaConfig {
+
+    @Bean
+    ReadReplicaRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                            ReadReplicaProperties properties, Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName(ReadReplicaRoutingDataSource.PRIMARY);
+        }
+
+        List<ReplicaPool> replicas = properties.replicas().stream()
+                .map(replica -> new ReplicaPool(replica.name(), replicaDataSource(replica, dataSourceProperties)))
+                .toList();
+        ReadReplicaRoutingDataSource dataSource = new ReadReplicaRoutingDataSource(primary, replicas,
+                properties.maxLag());
+        dataSource.checkReplicas();
+        log.info("Routing read-only transactions to replicas {}, max lag {}",
+                replicas.stream().map(ReplicaPool::getName).toList(), properties.maxLag());
+        return dataSource;
+    }
+
+    /**
+     * По умолчанию сессия Hibernate держит соединение до своего закрытия, а при включенном open-in-view это весь
+     * HTTP-запрос: первое чтение закрепило бы за запросом реплику и для последующей записи. Соединение возвращается после
+     * каждой транзакции, и следующая транзакция выбирает источник заново.
+     */
+    @Bean
+    HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    HealthIndicator readReplicasHealthIndicator(DataSource dataSource) throws SQLException {
+        ReadReplicaRoutingDataSource routingDataSource = dataSource.unwrap(ReadReplicaRoutingDataSource.class);
+        // Недоступная реплика не делает сервис неработоспособным: чтения уходят в основную БД
+        return () -> {
+            Map<String, Object> details = new LinkedHashMap<>();
+            for (ReplicaPool replica : routingDataSource.getReplicas()) {
+                Map<String, Object> replicaDetails = new LinkedHashMap<>();
+                replicaDetails.put("healthy", replica.isHealthy());
+                replicaDetails.put("lagMillis", replica.getLagMillis());
+                if (replica.getLastError() != null) {
+                    replicaDetails.put("error", replica.getLastError());
+                }
+                details.put(replica.getName(), replicaDetails);
+            }
+            return Health.up()
+                    .withDetail("maxLagMillis", routingDataSource.getMaxLag().toMillis())
+                    .withDetails(details)
+                    .build();
+        };
+    }
+
+    @Bean
+    MeterBinder readReplicaMetrics(DataSource dataSource) throws SQLException {
+        ReadReplicaRoutingDataSource routingDataSource = dataSource.unwrap(ReadReplicaRoutingDataSource.class);
+        DataSourcePoolMetadataProvider hikariMetadata =
+                pool -> new HikariDataSourcePoolMetadata((HikariDataSource) pool);
+        return registry -> {
+            for (ReplicaPool replica : routingDataSource.getReplicas()) {
+                Tags tags = Tags.of("replica", replica.getName());
+                TimeGauge.builder("db.replica.lag", replica, TimeUnit.MILLISECONDS, ReplicaPool::getLagMillis)
+                        .description("Replica replay lag at the last check, -1 before the first successful check")
+                        .tags(tags)
+                        .register(registry);
+                Gauge.builder("db.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .description("Whether the replica passed the last check and serves reads")
+                        .tags(tags)
+                        .register(registry);
+                new DataSourcePoolMetrics(replica.getDataSource(), List.of(hikariMetadata),
+                        replica.getDataSource().getPoolName(), Tags.empty()).bindTo(registry);
+            }
+        };
+    }
+
+    private static HikariDataSource replicaDataSource(ReadReplicaProperties.Replica replica,
+                                                      DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-" + replica.name());
+        dataSource.setJdbcUrl(replica.url());
+        dataSource.setUsername(replica.username() != null ? replica.username() : dataSourceProperties.determineUsername());
+        dataSource.setPassword(replica.password() != null ? replica.password() : dataSourceProperties.determinePassword());
+        dataSource.setMaximumPoolSize(replica.maximumPoolSize());
+        dataSource.setConnectionTimeout(replica.connectionTimeout().toMillis());
+        dataSource.setReadOnly(true);
+        // Недоступная при запуске реплика не должна мешать запуску: ее исключит проверка
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройки чтения с реплик БД.
+ *
+ * @param enabled       Направлять ли транзакции только для чтения на реплики.
+ * @param replicas      Реплики, между которыми по очереди распределяются чтения.
+ * @param maxLag        Реплика с большим отставанием от основной БД исключается из чтения до следующей проверки.
+ * @param checkInterval Как часто проверяются доступность и отставание реплик.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.read-replicas")
+public record ReadReplicaProperties(@DefaultValue("false") boolean enabled,
+                                    @DefaultValue List<Replica> replicas,
+                                    @DefaultValue("5s") Duration maxLag,
+                                    @DefaultValue("2s") Duration checkInterval) {
+
+    /**
+     * @param name              Имя реплики в журнале, метриках и health.
+     * @param url               JDBC-адрес реплики.
+     * @param username          Пользователь; если не задан, берется spring.datasource.username.
+     * @param password          Пароль; если не задан, берется spring.datasource.password.
+     * @param maximumPoolSize   Размер пула соединений с репликой.
+     * @param connectionTimeout Сколько ждать соединения с репликой; недоступная реплика не должна надолго
+     *                          задерживать проверку.
+     */
+    public record Replica(String name,
+                          String url,
+                          String username,
+                          String password,
+                          @DefaultValue("10") int maximumPoolSize,
+                          @DefaultValue("2s") Duration connectionTimeout) {
+    }
+}
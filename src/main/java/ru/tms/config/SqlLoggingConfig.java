@@ -0,0 +1,76 @@
+package ru.tms.config;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import ru.tms.jdbc.RepositoryCallContext;
+import ru.tms.jdbc.SqlLoggingListener;
+import ru.tms.jdbc.StatementStatistics;
+import ru.tms.metrics.SlowStatementsEndpoint;
+
+import javax.sql.DataSource;
+
+/**
+ * Замер и выборочное журналирование SQL вместо spring.jpa.show-sql, который синхронно печатал
+ * каждый оператор в stdout на потоке запроса. Источник данных оборачивается прокси datasource-proxy,
+ * а прокси репозиториев Spring Data запоминают выполняющийся метод, чтобы подписать им оператор в журнале.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "user-subscriptions.sql-logging", name = "enabled", matchIfMissing = true)
+public class SqlLoggingConfig {
+
+    @Bean
+    StatementStatistics statementStatistics(SqlLoggingProperties properties) {
+        return new StatementStatistics(properties.maxStatements());
+    }
+
+    @Bean
+    SqlLoggingListener sqlLoggingListener(SqlLoggingProperties properties, StatementStatistics statementStatistics) {
+        return new SqlLoggingListener(properties.slowThreshold(), properties.sampleRate(), statementStatistics);
+    }
+
+    @Bean
+    SlowStatementsEndpoint slowStatementsEndpoint(StatementStatistics statementStatistics) {
+        return new SlowStatementsEndpoint(statementStatistics);
+    }
+
+    @Bean
+    static BeanPostProcessor sqlLoggingDataSourcePostProcessor(ObjectProvider<SqlLoggingListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                log.info("Recording SQL statements of {}", beanName);
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(listener.getObject())
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    static BeanPostProcessor repositoryCallContextPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(RepositoryCallContext.interceptor(
+                                            repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
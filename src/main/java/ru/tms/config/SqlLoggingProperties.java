@@ -0,0 +1,21 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки замера и журналирования SQL через прокси источника данных.
+ *
+ * @param enabled       Оборачивать ли источник данных прокси.
+ * @param slowThreshold Операторы не быстрее порога пишутся в журнал ru.tms.sql с уровнем WARN.
+ * @param sampleRate    Доля остальных операторов от 0 до 1, которая пишется в журнал с уровнем INFO.
+ * @param maxStatements Сколько различных текстов операторов хранит статистика для эндпоинта slowstatements.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.sql-logging")
+public record SqlLoggingProperties(@DefaultValue("true") boolean enabled,
+                                   @DefaultValue("200ms") Duration slowThreshold,
+                                   @DefaultValue("0") double sampleRate,
+                                   @DefaultValue("1000") int maxStatements) {
+}
@@ -0,0 +1,13 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки словаря имен подписок в памяти.
+ *
+ * @param maximumSize Максимальное количество имен в каждом направлении словаря (имя -> id и id -> имя).
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.subscription-catalog")
+public record SubscriptionCatalogProperties(@DefaultValue("100000") long maximumSize) {
+}
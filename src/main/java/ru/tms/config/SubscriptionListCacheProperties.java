@@ -0,0 +1,23 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша списков подписок пользователей.
+ *
+ * @param enabled           Включен ли кэш; при false списки всегда читаются из БД.
+ * @param memoryBudget      Оценочный объем памяти под все закэшированные списки.
+ * @param refreshAfterWrite Через сколько после загрузки список перечитывается в фоне, а до окончания
+ *                          перечитывания отдается прежнее значение.
+ * @param expireAfterWrite  Через сколько после загрузки список больше не отдается, даже устаревшим.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.subscription-list-cache")
+public record SubscriptionListCacheProperties(@DefaultValue("true") boolean enabled,
+                                              @DefaultValue("64MB") DataSize memoryBudget,
+                                              @DefaultValue("1m") Duration refreshAfterWrite,
+                                              @DefaultValue("10m") Duration expireAfterWrite) {
+}
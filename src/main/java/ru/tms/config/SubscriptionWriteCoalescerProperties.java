@@ -0,0 +1,22 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки объединения одновременных созданий подписок в пачки.
+ *
+ * @param enabled       Включено ли объединение; при false каждая подписка создается своим запросом.
+ * @param maxBatchSize  Сколько созданий самое большее записывается одним запросом.
+ * @param maxDelay      Сколько первое создание в пачке ждет следующих, прежде чем пачка будет записана.
+ * @param queueCapacity Сколько созданий может ждать записи; при заполненной очереди создание выполняется
+ *                      отдельным запросом в потоке вызывающего.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.subscription-write-coalescer")
+public record SubscriptionWriteCoalescerProperties(@DefaultValue("false") boolean enabled,
+                                                   @DefaultValue("200") int maxBatchSize,
+                                                   @DefaultValue("2ms") Duration maxDelay,
+                                                   @DefaultValue("10000") int queueCapacity) {
+}
@@ -0,0 +1,19 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки хранения корзин для трендовых подписок.
+ *
+ * @param hourlyRetention  Сколько хранить часовые корзины до сворачивания в суточные.
+ * @param dailyRetention   Сколько хранить суточные корзины; должно покрывать максимальное окно трендов.
+ * @param compactionDelay  Пауза между запусками фоновой задачи сворачивания.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.trending")
+public record TrendingProperties(@DefaultValue("48h") Duration hourlyRetention,
+                                 @DefaultValue("31d") Duration dailyRetention,
+                                 @DefaultValue("1h") Duration compactionDelay) {
+}
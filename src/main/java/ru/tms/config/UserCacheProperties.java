@@ -0,0 +1,19 @@
+package ru.tms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша пользователей.
+ *
+ * @param enabled          Включен ли кэш; при false пользователи всегда читаются из БД.
+ * @param maximumSize      Максимальное количество пользователей в кэше.
+ * @param expireAfterWrite Через сколько после загрузки запись вытесняется, даже если пользователь не менялся.
+ */
+@ConfigurationProperties(prefix = "user-subscriptions.user-cache")
+public record UserCacheProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("10000") long maximumSize,
+                                  @DefaultValue("10m") Duration expireAfterWrite) {
+}
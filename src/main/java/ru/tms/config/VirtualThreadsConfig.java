@@ -0,0 +1,76 @@
+package ru.tms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.tms.jdbc.ConcurrencyLimitingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Режим виртуальных потоков включается свойством spring.threads.virtual.enabled: Spring Boot переводит на них
+ * обработку запросов Tomcat, @Async и @Scheduled. Здесь к нему добавляется ограничение одновременных обращений к БД,
+ * чтобы неограниченное число виртуальных потоков не выстраивалось в очередь пула Hikari.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(prefix = "user-subscriptions.db-concurrency-limiter", name = "enabled", matchIfMissing = true)
+public class VirtualThreadsConfig {
+
+    @Bean
+    static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(
+            ObjectProvider<DbConcurrencyLimiterProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Пул может быть уже обернут прокси журналирования SQL (SqlLoggingConfig), поэтому ищется через unwrap
+                HikariDataSource hikariDataSource = unwrapHikari(bean);
+                if (hikariDataSource == null) {
+                    return bean;
+                }
+                DbConcurrencyLimiterProperties limiterProperties = properties.getObject();
+                int maxConcurrency = limiterProperties.maxConcurrency() != null
+                        ? limiterProperties.maxConcurrency()
+                        : hikariDataSource.getMaximumPoolSize();
+                log.info("Limiting concurrent connections of {} to {}", beanName, maxConcurrency);
+                return new ConcurrencyLimitingDataSource((DataSource) bean, maxConcurrency,
+                        limiterProperties.acquireTimeout());
+            }
+        };
+    }
+
+    private static HikariDataSource unwrapHikari(Object bean) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+            return null;
+        }
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot unwrap data source", e);
+        }
+    }
+
+    @Bean
+    MeterBinder concurrencyLimitingDataSourceMetrics(DataSource dataSource) throws SQLException {
+        ConcurrencyLimitingDataSource limiter = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+        return registry -> {
+            Gauge.builder("db.concurrency.limiter.permits.available", limiter,
+                            ConcurrencyLimitingDataSource::getAvailablePermits)
+                    .description("Database permits not held by any request")
+                    .register(registry);
+            Gauge.builder("db.concurrency.limiter.waiting", limiter, ConcurrencyLimitingDataSource::getQueueLength)
+                    .description("Threads waiting for a database permit")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Приближенный топ подписок. Каждая оценка превышает истинное количество не более чем на maxOverestimate
+ * с вероятностью confidence.
+ */
+@Builder
+public record ApproximateTopSubscriptions(List<SubscriptionEstimate> subscriptions,
+                                          long totalCount,
+                                          long maxOverestimate,
+                                          double epsilon,
+                                          double confidence) {
+}
@@ -0,0 +1,19 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+/**
+ * Операция пакета. Нужные поля зависят от типа:
+ * CREATE_USER - username; UPDATE_USERNAME - userId и username;
+ * ADD_SUBSCRIPTION - userId и name; REMOVE_SUBSCRIPTION - userId и subscriptionId.
+ */
+@Builder
+public record BatchOperation(Type type, Long userId, String username, Long subscriptionId, String name) {
+
+    public enum Type {
+        CREATE_USER,
+        UPDATE_USERNAME,
+        ADD_SUBSCRIPTION,
+        REMOVE_SUBSCRIPTION
+    }
+}
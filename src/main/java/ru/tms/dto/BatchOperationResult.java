@@ -0,0 +1,24 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+/**
+ * Результат операции пакета с индексом операции в запросе. id - созданный или измененный пользователь
+ * либо созданная или удаленная подписка; message заполняется для неудачных операций.
+ */
+@Builder
+public record BatchOperationResult(int index, Status status, Long id, String message) {
+
+    public enum Status {
+        OK,
+        FAILED,
+        /**
+         * Операция выполнилась, но пакет откатился из-за другой операции.
+         */
+        ROLLED_BACK,
+        /**
+         * Операция не выполнялась, потому что пакет откатился раньше.
+         */
+        SKIPPED
+    }
+}
@@ -0,0 +1,27 @@
+package ru.tms.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Упорядоченный список операций, выполняемых в одной транзакции.
+ * Без mode пакет выполняется в режиме ALL_OR_NOTHING.
+ */
+@Builder
+public record BatchRequest(Mode mode,
+                           @NotEmpty(message = "Field BatchRequest.operations cannot by empty")
+                           List<BatchOperation> operations) {
+
+    public enum Mode {
+        /**
+         * Первая неудачная операция откатывает весь пакет.
+         */
+        ALL_OR_NOTHING,
+        /**
+         * Неудачные операции пропускаются, остальные фиксируются.
+         */
+        BEST_EFFORT
+    }
+}
@@ -0,0 +1,12 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Итог пакета: результаты в порядке операций запроса и признак фиксации транзакции.
+ */
+@Builder
+public record BatchResult(BatchRequest.Mode mode, boolean committed, List<BatchOperationResult> results) {
+}
@@ -0,0 +1,10 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+/**
+ * Строка импорта, которая не была загружена, с номером строки во входном файле и причиной.
+ */
+@Builder
+public record ImportReject(long line, String reason) {
+}
@@ -0,0 +1,19 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Итог импорта. В rejects попадают только первые отклоненные строки, rejectedCount считает все.
+ */
+@Builder
+public record ImportResult(long linesRead,
+                           long rowsStaged,
+                           long usersCreated,
+                           long subscriptionsCreated,
+                           long rejectedCount,
+                           List<ImportReject> rejects,
+                           long elapsedMillis,
+                           long linesPerSecond) {
+}
@@ -0,0 +1,9 @@
+package ru.tms.dto;
+
+import java.util.List;
+
+/**
+ * Одна строка NDJSON импорта: пользователь и имена его подписок.
+ */
+public record ImportedUser(String username, List<String> subscriptions) {
+}
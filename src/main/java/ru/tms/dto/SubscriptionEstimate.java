@@ -0,0 +1,7 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+@Builder
+public record SubscriptionEstimate(String name, long estimatedCount) {
+}
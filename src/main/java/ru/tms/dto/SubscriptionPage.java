@@ -0,0 +1,12 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Страница подписок пользователя. nextCursor равен null на последней странице.
+ */
+@Builder
+public record SubscriptionPage(List<Subscription> items, String nextCursor) {
+}
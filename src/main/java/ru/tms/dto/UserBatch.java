@@ -0,0 +1,12 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Пользователи, найденные по списку id, в порядке запроса. В missingIds попадают id, которых нет в БД.
+ */
+@Builder
+public record UserBatch(List<User> users, List<Long> missingIds) {
+}
@@ -0,0 +1,12 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Подписки одного пользователя в ответе пакетного чтения.
+ */
+@Builder
+public record UserSubscriptions(Long user, List<Subscription> subscriptions) {
+}
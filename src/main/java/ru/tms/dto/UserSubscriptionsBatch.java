@@ -0,0 +1,13 @@
+package ru.tms.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Подписки пользователей, сгруппированные по пользователю, в порядке запроса.
+ * В missingIds попадают id пользователей, которых нет в БД.
+ */
+@Builder
+public record UserSubscriptionsBatch(List<UserSubscriptions> users, List<Long> missingIds) {
+}
@@ -0,0 +1,12 @@
+package ru.tms.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Запрос подписок нескольких пользователей.
+ */
+public record UserSubscriptionsBatchRequest(
+        @NotEmpty(message = "Field UserSubscriptionsBatchRequest.userIds cannot by empty") List<Long> userIds) {
+}
@@ -10,15 +10,27 @@ import org.hibernate.annotations.OnDeleteAction;
 @Table(name = "subscriptions")
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 public class SubscriptionEntity extends BaseEntity {
 
-    @Column(nullable = false)
+    /**
+     * Имя хранится в справочнике subscription_catalog. По записанному имени триггер БД заполняет catalog_id
+     * и заменяет имя написанием из справочника, а при чтении имя заполняет по catalogId словарь
+     * {@link ru.tms.cache.SubscriptionCatalog}.
+     */
+    @Column(updatable = false)
     private String name;
 
+    @Column(name = "catalog_id", insertable = false, updatable = false)
+    private Integer catalogId;
+
     @ManyToOne()
     @JoinColumn(name = "user_id", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
     private UserEntity user;
+
+    public SubscriptionEntity(String name, UserEntity user) {
+        this.name = name;
+        this.user = user;
+    }
 }
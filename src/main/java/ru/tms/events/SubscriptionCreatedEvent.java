@@ -0,0 +1,7 @@
+package ru.tms.events;
+
+/**
+ * Публикуется после создания подписки.
+ */
+public record SubscriptionCreatedEvent(Long userId, Long subscriptionId, String name) {
+}
@@ -0,0 +1,7 @@
+package ru.tms.events;
+
+/**
+ * Публикуется после удаления подписки.
+ */
+public record SubscriptionDeletedEvent(Long userId, Long subscriptionId, String name) {
+}
@@ -0,0 +1,7 @@
+package ru.tms.events;
+
+/**
+ * Публикуется после массового импорта, создавшего подписки в обход createSubscription.
+ */
+public record SubscriptionsImportedEvent(long usersCreated, long subscriptionsCreated) {
+}
@@ -0,0 +1,7 @@
+package ru.tms.events;
+
+/**
+ * Публикуется после удаления пользователя вместе с его подписками.
+ */
+public record UserDeletedEvent(Long userId) {
+}
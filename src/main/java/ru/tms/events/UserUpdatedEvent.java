@@ -0,0 +1,7 @@
+package ru.tms.events;
+
+/**
+ * Публикуется после изменения пользователя.
+ */
+public record UserUpdatedEvent(Long userId) {
+}
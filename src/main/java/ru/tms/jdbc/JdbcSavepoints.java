@@ -0,0 +1,40 @@
+package ru.tms.jdbc;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Savepoint;
+
+/**
+ * Точки сохранения на соединении текущей транзакции. Ошибка SQL в PostgreSQL прерывает всю транзакцию,
+ * а откат к точке сохранения возвращает ее в рабочее состояние. Затрагивается только JDBC-соединение:
+ * сущности в сессии Hibernate не откатываются, поэтому между точкой и откатом пишется только через JdbcTemplate.
+ */
+@Component
+public class JdbcSavepoints {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcSavepoints(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Savepoint create() {
+        return this.jdbcTemplate.execute((ConnectionCallback<Savepoint>) connection -> connection.setSavepoint());
+    }
+
+    public void rollbackTo(Savepoint savepoint) {
+        this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.rollback(savepoint);
+            return null;
+        });
+    }
+
+    public void release(Savepoint savepoint) {
+        this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+}
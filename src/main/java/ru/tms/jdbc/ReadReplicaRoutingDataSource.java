@@ -0,0 +1,113 @@
+package ru.tms.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник данных, направляющий транзакции только для чтения на реплики, а все остальное - на основную БД.
+ * <p>
+ * Выбор делается при первом обращении транзакции к БД, а не при ее начале: соединение выдает
+ * {@link LazyConnectionDataSourceProxy}, поэтому признак readOnly транзакции уже известен.
+ * Записи, операции вне транзакции и все последующие чтения того же HTTP-запроса идут в основную БД,
+ * поэтому запрос видит собственные изменения. Реплики выбираются по очереди среди прошедших последнюю
+ * проверку {@link ReplicaPool#check(Duration)}; если таких нет, чтение идет в основную БД.
+ */
+public class ReadReplicaRoutingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private static final String PINNED_TO_PRIMARY_ATTRIBUTE = ReadReplicaRoutingDataSource.class.getName() + ".PINNED";
+
+    private final DataSource primary;
+    private final List<ReplicaPool> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<ReplicaPool> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+
+        Router router = new Router();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.setLenientFallback(false);
+        router.afterPropertiesSet();
+        setTargetDataSource(new LazyConnectionDataSourceProxy(router));
+    }
+
+    public List<ReplicaPool> getReplicas() {
+        return this.replicas;
+    }
+
+    public Duration getMaxLag() {
+        return this.maxLag;
+    }
+
+    public void checkReplicas() {
+        this.replicas.forEach(replica -> replica.check(this.maxLag));
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (ReplicaPool replica : this.replicas) {
+            replica.close();
+        }
+        if (this.primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private String lookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinToPrimary();
+            return PRIMARY;
+        }
+        if (isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        int size = this.replicas.size();
+        int start = Math.floorMod(this.nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            ReplicaPool replica = this.replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica.getName();
+            }
+        }
+        return PRIMARY;
+    }
+
+    private static void pinToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(PINNED_TO_PRIMARY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static boolean isPinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(PINNED_TO_PRIMARY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return lookupKey();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.tms.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Пул соединений с одной репликой и результат последней проверки ее доступности и отставания.
+ */
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+
+    // Пока реплика проиграла все полученное, отставания нет, даже если основная БД давно ничего не писала;
+    // иначе отставание - время с момента последней проигранной транзакции
+    private static final String LAG_SQL = """
+            SELECT pg_is_in_recovery() AS in_recovery,
+                   CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END AS lag_millis""";
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private volatile boolean healthy;
+    private volatile long lagMillis = -1;
+    private volatile String lastError;
+
+    public ReplicaPool(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public HikariDataSource getDataSource() {
+        return this.dataSource;
+    }
+
+    public boolean isHealthy() {
+        return this.healthy;
+    }
+
+    /**
+     * @return Отставание по последней успешной проверке или -1, если реплика еще ни разу не ответила.
+     */
+    public long getLagMillis() {
+        return this.lagMillis;
+    }
+
+    public String getLastError() {
+        return this.lastError;
+    }
+
+    /**
+     * Проверяет, что реплика отвечает, находится в режиме восстановления (то есть действительно реплика)
+     * и отстает не больше maxLag.
+     */
+    public void check(Duration maxLag) {
+        boolean wasHealthy = this.healthy;
+        try (Connection connection = this.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+            resultSet.next();
+            this.lagMillis = resultSet.getLong("lag_millis");
+            if (!resultSet.getBoolean("in_recovery")) {
+                this.lastError = "Not in recovery, the server is not a replica";
+            } else if (this.lagMillis > maxLag.toMillis()) {
+                this.lastError = String.format("Lag %d ms exceeds %d ms", this.lagMillis, maxLag.toMillis());
+            } else {
+                this.lastError = null;
+            }
+        } catch (SQLException | RuntimeException e) {
+            this.lastError = e.getMessage();
+        }
+        this.healthy = this.lastError == null;
+        if (wasHealthy && !this.healthy) {
+            log.warn("Replica {} excluded from reads: {}", this.name, this.lastError);
+        } else if (!wasHealthy && this.healthy) {
+            log.info("Replica {} serves reads, lag {} ms", this.name, this.lagMillis);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.dataSource.close();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.tms.jdbc;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * Метод репозитория Spring Data, выполняющийся в текущем потоке, для подписи SQL в журнале.
+ * Перехватчик добавляется в прокси каждого репозитория и восстанавливает предыдущее значение при выходе,
+ * поэтому вложенные вызовы репозиториев подписываются самым внутренним методом.
+ */
+public final class RepositoryCallContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryCallContext() {
+    }
+
+    /**
+     * @return Имя вида UserRepo.findById или null вне вызова репозитория.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static MethodInterceptor interceptor(Class<?> repositoryInterface) {
+        String prefix = repositoryInterface.getSimpleName() + ".";
+        return invocation -> {
+            String previous = CURRENT.get();
+            CURRENT.set(prefix + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package ru.tms.jdbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.MDC;
+import ru.tms.api.filters.RequestIdFilter;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Замер каждого SQL-оператора, выполненного через прокси источника данных.
+ * <p>
+ * Время выполнения попадает в таймер db.statements с тегом типа оператора и в {@link StatementStatistics}.
+ * В журнал ru.tms.sql пишутся только операторы дольше порога (WARN) и случайная доля остальных (INFO)
+ * с параметрами, вызывающим методом репозитория и идентификатором запроса; журнал выводится асинхронным
+ * аппендером (logback-spring.xml), поэтому поток запроса не ждет вывода.
+ */
+@Slf4j(topic = "ru.tms.sql")
+public class SqlLoggingListener implements QueryExecutionListener, MeterBinder {
+
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final long slowThresholdMillis;
+    private final double sampleRate;
+    private final StatementStatistics statistics;
+    private volatile Map<QueryType, Timer> timers;
+
+    public SqlLoggingListener(Duration slowThreshold, double sampleRate, StatementStatistics statistics) {
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.sampleRate = sampleRate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<QueryType, Timer> timers = new EnumMap<>(QueryType.class);
+        for (QueryType type : QueryType.values()) {
+            timers.put(type, Timer.builder("db.statements")
+                    .description("Execution time of SQL statements sent through the application data source")
+                    .tag("type", type.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.timers = timers;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        long elapsedMillis = execInfo.getElapsedTime();
+        String sql = queryInfoList.size() == 1
+                ? queryInfoList.get(0).getQuery()
+                : queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+
+        Map<QueryType, Timer> timers = this.timers;
+        if (timers != null) {
+            timers.get(QueryUtils.getQueryType(queryInfoList.get(0).getQuery()))
+                    .record(elapsedMillis, TimeUnit.MILLISECONDS);
+        }
+        this.statistics.record(sql, elapsedMillis, SqlLoggingListener::caller);
+
+        if (elapsedMillis >= this.slowThresholdMillis) {
+            if (log.isWarnEnabled()) {
+                log.warn(format("Slow statement", execInfo, queryInfoList, sql));
+            }
+        } else if (this.sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < this.sampleRate
+                && log.isInfoEnabled()) {
+            log.info(format("Sampled statement", execInfo, queryInfoList, sql));
+        }
+    }
+
+    private static String format(String title, ExecutionInfo execInfo, List<QueryInfo> queryInfoList, String sql) {
+        return String.format("%s: %d ms, %s%s, caller %s, request %s, sql [%s], params %s",
+                title,
+                execInfo.getElapsedTime(),
+                execInfo.isSuccess() ? "success" : "failed",
+                execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+                caller(),
+                Optional.ofNullable(MDC.get(RequestIdFilter.MDC_KEY)).orElse("-"),
+                sql,
+                queryInfoList.stream()
+                        .flatMap(queryInfo -> queryInfo.getParametersList().stream())
+                        .map(SqlLoggingListener::formatParameters)
+                        .collect(Collectors.joining(", ", "[", "]")));
+    }
+
+    private static String formatParameters(List<ParameterSetOperation> parameters) {
+        return parameters.stream()
+                .map(operation -> "setNull".equals(operation.getMethod().getName())
+                        ? "null"
+                        : abbreviate(String.valueOf(operation.getArgs()[1])))
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static String abbreviate(String value) {
+        return value.length() <= MAX_PARAMETER_LENGTH ? value : value.substring(0, MAX_PARAMETER_LENGTH) + "...";
+    }
+
+    /**
+     * Метод репозитория Spring Data, если оператор выполнен внутри него, иначе ближайший метод приложения в стеке:
+     * так подписываются операторы JdbcTemplate и отложенные операторы Hibernate, выполняемые при фиксации транзакции.
+     */
+    private static String caller() {
+        String repositoryMethod = RepositoryCallContext.current();
+        if (repositoryMethod != null) {
+            return repositoryMethod;
+        }
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("ru.tms.")
+                        && !frame.getClassName().startsWith("ru.tms.jdbc."))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName())
+                .orElse("-"));
+    }
+}
@@ -0,0 +1,83 @@
+package ru.tms.jdbc;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Накопленная статистика выполнения SQL по тексту оператора: число выполнений, суммарное и наибольшее время,
+ * а также вызывающий метод самого медленного выполнения. Тексты операторов параметризованы, поэтому их число
+ * ограничено кодом приложения; сверх maxStatements новые тексты не учитываются.
+ */
+public class StatementStatistics {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxStatements;
+
+    public StatementStatistics(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * @param sql           Текст оператора.
+     * @param elapsedMillis Время выполнения.
+     * @param caller        Вызывающий метод; вычисляется, только если выполнение оказалось самым медленным.
+     */
+    public void record(String sql, long elapsedMillis, Supplier<String> caller) {
+        Entry entry = this.entries.get(sql);
+        if (entry == null) {
+            if (this.entries.size() >= this.maxStatements) {
+                return;
+            }
+            entry = this.entries.computeIfAbsent(sql, key -> new Entry());
+        }
+        entry.count.increment();
+        entry.totalMillis.add(elapsedMillis);
+        if (elapsedMillis > entry.maxMillis) {
+            synchronized (entry) {
+                if (elapsedMillis > entry.maxMillis) {
+                    entry.maxMillis = elapsedMillis;
+                    entry.slowestCaller = caller.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param limit Сколько операторов вернуть.
+     * @return Самые медленные операторы по наибольшему времени выполнения.
+     */
+    public List<StatementSummary> top(int limit) {
+        return this.entries.entrySet().stream()
+                .map(e -> e.getValue().summary(e.getKey()))
+                .sorted(Comparator.comparingLong(StatementSummary::maxMillis).reversed()
+                        .thenComparing(Comparator.comparingLong(StatementSummary::totalMillis).reversed()))
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        this.entries.clear();
+    }
+
+    public record StatementSummary(String sql, long count, long totalMillis, double meanMillis, long maxMillis,
+                                   String slowestCaller) {
+    }
+
+    private static final class Entry {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private volatile long maxMillis = -1;
+        private volatile String slowestCaller;
+
+        private StatementSummary summary(String sql) {
+            long executions = this.count.sum();
+            long total = this.totalMillis.sum();
+            return new StatementSummary(sql, executions, total, executions == 0 ? 0 : (double) total / executions,
+                    Math.max(this.maxMillis, 0), this.slowestCaller);
+        }
+    }
+}
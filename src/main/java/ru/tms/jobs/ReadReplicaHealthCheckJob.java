@@ -0,0 +1,32 @@
+package ru.tms.jobs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.tms.jdbc.ReadReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Фоновая задача, проверяющая доступность и отставание реплик: отстающая или недоступная реплика
+ * исключается из чтения, восстановившаяся - возвращается.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-subscriptions.read-replicas", name = "enabled")
+public class ReadReplicaHealthCheckJob {
+
+    private final ReadReplicaRoutingDataSource routingDataSource;
+
+    public ReadReplicaHealthCheckJob(DataSource dataSource) throws SQLException {
+        this.routingDataSource = dataSource.unwrap(ReadReplicaRoutingDataSource.class);
+        log.info("ReadReplicaHealthCheckJob initialized");
+    }
+
+    @Scheduled(fixedDelayString = "${user-subscriptions.read-replicas.check-interval:2s}")
+    public void check() {
+        routingDataSource.checkReplicas();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.tms.jobs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.tms.config.TrendingProperties;
+import ru.tms.repo.SubscriptionRepo;
+
+/**
+ * Фоновая задача, ограничивающая объем корзин трендовых подписок:
+ * сворачивает устаревшие часовые корзины в суточные и удаляет суточные корзины старше срока хранения.
+ */
+@Slf4j
+@Component
+public class SubscriptionBucketCompactionJob {
+
+    private final SubscriptionRepo subscriptionRepo;
+    private final TrendingProperties trendingProperties;
+
+    public SubscriptionBucketCompactionJob(SubscriptionRepo subscriptionRepo, TrendingProperties trendingProperties) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.trendingProperties = trendingProperties;
+        log.info("SubscriptionBucketCompactionJob initialized");
+    }
+
+    @Scheduled(fixedDelayString = "${user-subscriptions.trending.compaction-delay:1h}",
+            initialDelayString = "${user-subscriptions.trending.compaction-delay:1h}")
+    public void compact() {
+        int compacted = subscriptionRepo.compactHourlyBuckets(
+                (int) trendingProperties.hourlyRetention().toHours());
+        int purged = subscriptionRepo.purgeDailyBuckets(
+                (int) trendingProperties.dailyRetention().toDays());
+        log.info("Compacted hourly subscription buckets into {} daily buckets, purged {} expired daily buckets",
+                compacted, purged);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.tms.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счетчик api.exceptions исключений, обработанных советами контроллеров.
+ * Теги - совет, класс исключения и HTTP-статус ответа; текст исключения и параметры запроса в теги не попадают,
+ * поэтому число временных рядов ограничено числом обработчиков.
+ */
+@Component
+@RequiredArgsConstructor
+public class HandledExceptionMetrics {
+
+    public static final String METRIC_NAME = "api.exceptions";
+
+    private final MeterRegistry meterRegistry;
+
+    public void record(Class<?> advice, Exception exception, HttpStatus status) {
+        Counter.builder(METRIC_NAME)
+                .description("Exceptions mapped to HTTP responses by controller advices")
+                .tag("advice", advice.getSimpleName())
+                .tag("exception", exception.getClass().getSimpleName())
+                .tag("status", Integer.toString(status.value()))
+                .register(this.meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.tms.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Число SQL-операторов и сбросов контекста за одну сессию Hibernate. open-in-view выключен, поэтому сессия
+ * живет одну транзакцию сервиса (или один вызов репозитория вне транзакции), и распределения показывают
+ * нагрузку на БД в расчете на транзакцию.
+ * Общие счетчики (в том числе загрузки сущностей) публикует hibernate-micrometer в метриках hibernate.*.
+ * <p>
+ * Hibernate создает экземпляр на каждую сессию сам (hibernate.session.events.auto), поэтому метрики
+ * регистрируются в глобальном реестре, к которому Spring Boot подключает реестры приложения.
+ */
+public class HibernateSessionMetrics implements SessionEventListener {
+
+    private static final double[] BOUNDARIES = {0, 1, 2, 3, 5, 10, 20, 50, 100};
+
+    private int statements;
+    private int flushes;
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        this.statements++;
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        this.statements++;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        this.flushes++;
+    }
+
+    @Override
+    public void end() {
+        DistributionSummary.builder("hibernate.session.statements")
+                .description("JDBC statements and batches executed by one Hibernate session")
+                .serviceLevelObjectives(BOUNDARIES)
+                .register(Metrics.globalRegistry)
+                .record(this.statements);
+        DistributionSummary.builder("hibernate.session.flushes")
+                .description("Persistence context flushes performed by one Hibernate session")
+                .serviceLevelObjectives(BOUNDARIES)
+                .register(Metrics.globalRegistry)
+                .record(this.flushes);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.tms.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import ru.tms.jdbc.StatementStatistics;
+
+import java.util.List;
+
+/**
+ * Эндпоинт /actuator/slowstatements: самые медленные SQL-операторы с момента запуска или последнего сброса.
+ * GET принимает необязательный limit, DELETE сбрасывает статистику.
+ */
+@Endpoint(id = "slowstatements")
+@RequiredArgsConstructor
+public class SlowStatementsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final StatementStatistics statistics;
+
+    @ReadOperation
+    public List<StatementStatistics.StatementSummary> slowest(@Nullable Integer limit) {
+        return this.statistics.top(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        this.statistics.reset();
+    }
+}
@@ -0,0 +1,79 @@
+package ru.tms.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Чтение всех пользователей с подписками для выгрузки через серверный курсор.
+ * Драйвер PostgreSQL читает порциями по FETCH_SIZE строк только вне autocommit, поэтому методы
+ * требуют открытой транзакции, а возвращаемый Stream нужно закрыть.
+ */
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+public class ExportRepo {
+
+    public static final int FETCH_SIZE = 1000;
+
+    // Порядок (user_id, created_at, id) совпадает с индексом idx_subscriptions_user_created_id,
+    // поэтому строки одного пользователя идут подряд без сортировки всей выборки
+    private static final String SELECT_SQL = """
+            SELECT u.id AS user_id, u.username, u.created_at AS user_created_at, u.updated_at AS user_updated_at,
+                   s.id AS subscription_id, c.name AS subscription_name,
+                   s.created_at AS subscription_created_at, s.updated_at AS subscription_updated_at
+            FROM user_subscriptions.users u
+            LEFT JOIN user_subscriptions.subscriptions s ON s.user_id = u.id
+            LEFT JOIN user_subscriptions.subscription_catalog c ON c.id = s.catalog_id
+            """;
+
+    private static final String ORDER_SQL = "ORDER BY u.id, s.created_at, s.id";
+
+    private static final String SINCE_SQL = """
+            WHERE u.updated_at >= ?
+               OR EXISTS (SELECT 1 FROM user_subscriptions.subscriptions changed
+                          WHERE changed.user_id = u.id AND changed.updated_at >= ?)
+            """;
+
+    private static final RowMapper<ExportRow> ROW_MAPPER = (rs, rowNum) -> new ExportRow(
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            toLocalDateTime(rs.getTimestamp("user_created_at")),
+            toLocalDateTime(rs.getTimestamp("user_updated_at")),
+            rs.getObject("subscription_id", Long.class),
+            rs.getString("subscription_name"),
+            toLocalDateTime(rs.getTimestamp("subscription_created_at")),
+            toLocalDateTime(rs.getTimestamp("subscription_updated_at")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportRepo(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Возвращает пользователей с подписками, упорядоченных по id пользователя.
+     *
+     * @param since Если задан, только пользователи, которые сами или чьи подписки изменены не раньше этого момента;
+     *              у таких пользователей возвращаются все подписки.
+     */
+    public Stream<ExportRow> streamUsersWithSubscriptions(LocalDateTime since) {
+        if (since == null) {
+            return this.jdbcTemplate.queryForStream(SELECT_SQL + ORDER_SQL, ROW_MAPPER);
+        }
+        Timestamp sinceTimestamp = Timestamp.valueOf(since);
+        return this.jdbcTemplate.queryForStream(SELECT_SQL + SINCE_SQL + ORDER_SQL, ROW_MAPPER,
+                sinceTimestamp, sinceTimestamp);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,16 @@
+package ru.tms.repo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки: пользователь и одна его подписка. Поля подписки равны null у пользователя без подписок.
+ */
+public record ExportRow(long userId,
+                        String username,
+                        LocalDateTime userCreatedAt,
+                        LocalDateTime userUpdatedAt,
+                        Long subscriptionId,
+                        String subscriptionName,
+                        LocalDateTime subscriptionCreatedAt,
+                        LocalDateTime subscriptionUpdatedAt) {
+}
@@ -0,0 +1,145 @@
+package ru.tms.repo;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tms.dto.ImportReject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Промежуточная таблица импорта и ее слияние в users и subscriptions.
+ * Таблица временная и удаляется при фиксации транзакции, поэтому все методы требуют открытой транзакции.
+ */
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+public class ImportStagingRepo {
+
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMPORARY TABLE import_staging (
+                line_no BIGINT NOT NULL,
+                username VARCHAR(255) NOT NULL,
+                subscription_name VARCHAR(255)
+            ) ON COMMIT DROP""";
+
+    private static final String COPY_STAGING_SQL =
+            "COPY import_staging (line_no, username, subscription_name) FROM STDIN";
+
+    private static final String MERGE_USERS_SQL = """
+            INSERT INTO user_subscriptions.users (username, created_at, updated_at, version)
+            SELECT DISTINCT username, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM import_staging
+            ORDER BY username
+            ON CONFLICT (username) DO NOTHING""";
+
+    // Новые имена добавляются в справочник в написании первой строки импорта
+    private static final String MERGE_CATALOG_SQL = """
+            INSERT INTO user_subscriptions.subscription_catalog (normalized_name, name)
+            SELECT DISTINCT ON (user_subscriptions.subscription_catalog_normalize(subscription_name))
+                   user_subscriptions.subscription_catalog_normalize(subscription_name), btrim(subscription_name)
+            FROM import_staging
+            WHERE subscription_name IS NOT NULL
+            ORDER BY user_subscriptions.subscription_catalog_normalize(subscription_name), line_no
+            ON CONFLICT (normalized_name) DO NOTHING""";
+
+    private static final String MERGE_SUBSCRIPTIONS_SQL = """
+            INSERT INTO user_subscriptions.subscriptions (catalog_id, user_id, created_at, updated_at, version)
+            SELECT DISTINCT c.id, u.id, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM import_staging s
+            JOIN user_subscriptions.users u ON u.username = s.username
+            JOIN user_subscriptions.subscription_catalog c
+              ON c.normalized_name = user_subscriptions.subscription_catalog_normalize(s.subscription_name)
+            WHERE s.subscription_name IS NOT NULL
+            ON CONFLICT (user_id, catalog_id) DO NOTHING""";
+
+    // Первая строка с парой (username, name) отклоняется, только если подписка уже была до импорта,
+    // остальные строки с той же парой - повторы внутри файла. Имена сравниваются после нормализации справочника
+    private static final String FIND_DUPLICATE_SUBSCRIPTIONS_SQL = """
+            SELECT s.line_no,
+                   s.username,
+                   s.subscription_name,
+                   s.occurrence > 1 AS repeated
+            FROM (SELECT line_no, username, subscription_name,
+                         row_number() OVER (PARTITION BY username,
+                                            user_subscriptions.subscription_catalog_normalize(subscription_name)
+                                            ORDER BY line_no) AS occurrence
+                  FROM import_staging
+                  WHERE subscription_name IS NOT NULL) s
+            WHERE s.occurrence > 1
+               OR EXISTS (SELECT 1
+                          FROM user_subscriptions.users u
+                          JOIN user_subscriptions.subscriptions sub ON sub.user_id = u.id
+                          JOIN user_subscriptions.subscription_catalog c ON c.id = sub.catalog_id
+                          WHERE u.username = s.username
+                            AND c.normalized_name =
+                                user_subscriptions.subscription_catalog_normalize(s.subscription_name))
+            ORDER BY s.line_no
+            LIMIT ?""";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ImportStagingRepo(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Создает промежуточную таблицу и открывает COPY в нее на соединении текущей транзакции.
+     */
+    public ImportStagingWriter openWriter() {
+        this.jdbcTemplate.execute(CREATE_STAGING_SQL);
+        Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            return new ImportStagingWriter(pgConnection.getCopyAPI().copyIn(COPY_STAGING_SQL),
+                    this.jdbcTemplate.getExceptionTranslator());
+        } catch (SQLException e) {
+            throw this.jdbcTemplate.getExceptionTranslator().translate("COPY import_staging", COPY_STAGING_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+        }
+    }
+
+    /**
+     * Создает пользователей из промежуточной таблицы, которых еще нет.
+     *
+     * @return Количество созданных пользователей.
+     */
+    public long mergeUsers() {
+        return this.jdbcTemplate.update(MERGE_USERS_SQL);
+    }
+
+    /**
+     * Добавляет новые имена в справочник и создает подписки из промежуточной таблицы, которых еще нет.
+     *
+     * @return Количество созданных подписок.
+     */
+    public long mergeSubscriptions() {
+        this.jdbcTemplate.update(MERGE_CATALOG_SQL);
+        return this.jdbcTemplate.update(MERGE_SUBSCRIPTIONS_SQL);
+    }
+
+    /**
+     * Находит строки промежуточной таблицы, подписки из которых не будут созданы: подписка уже есть
+     * у пользователя или повторяется в импорте. Вызывается до mergeSubscriptions.
+     *
+     * @param limit Максимальное количество возвращаемых строк.
+     */
+    public List<ImportReject> findDuplicateSubscriptions(int limit) {
+        return this.jdbcTemplate.query(FIND_DUPLICATE_SUBSCRIPTIONS_SQL, (rs, rowNum) -> ImportReject.builder()
+                .line(rs.getLong("line_no"))
+                .reason(rs.getBoolean("repeated")
+                        ? "Subscription " + rs.getString("subscription_name") + " for user "
+                                + rs.getString("username") + " is repeated in import"
+                        : "Subscription " + rs.getString("subscription_name") + " already exists for user "
+                                + rs.getString("username"))
+                .build(), limit);
+    }
+}
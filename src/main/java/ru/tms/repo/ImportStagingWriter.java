@@ -0,0 +1,91 @@
+package ru.tms.repo;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * Потоковая запись строк в промежуточную таблицу импорта через COPY в текстовом формате.
+ * Строки уходят на сервер по мере заполнения буфера, поэтому память не зависит от размера импорта.
+ */
+public class ImportStagingWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PGCopyOutputStream copyStream;
+    private final Writer writer;
+    private final SQLExceptionTranslator exceptionTranslator;
+    private boolean finished;
+
+    ImportStagingWriter(CopyIn copyIn, SQLExceptionTranslator exceptionTranslator) {
+        this.exceptionTranslator = exceptionTranslator;
+        this.copyStream = new PGCopyOutputStream(copyIn, BUFFER_SIZE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(this.copyStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public void write(long line, String username, String subscriptionName) {
+        try {
+            this.writer.write(Long.toString(line));
+            this.writer.write('\t');
+            writeField(username);
+            this.writer.write('\t');
+            writeField(subscriptionName);
+            this.writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Завершает COPY.
+     *
+     * @return Количество строк, записанных в промежуточную таблицу.
+     */
+    public long finish() {
+        try {
+            this.writer.flush();
+            this.finished = true;
+            return this.copyStream.endCopy();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw this.exceptionTranslator.translate("COPY import_staging", null, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!this.finished && this.copyStream.isActive()) {
+            try {
+                this.copyStream.cancelCopy();
+            } catch (SQLException e) {
+                throw this.exceptionTranslator.translate("COPY import_staging", null, e);
+            }
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            this.writer.write("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> this.writer.write("\\\\");
+                case '\t' -> this.writer.write("\\t");
+                case '\n' -> this.writer.write("\\n");
+                case '\r' -> this.writer.write("\\r");
+                default -> this.writer.write(c);
+            }
+        }
+    }
+}
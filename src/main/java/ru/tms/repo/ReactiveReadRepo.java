@@ -0,0 +1,72 @@
+package ru.tms.repo;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+
+/**
+ * Неблокирующее чтение через R2DBC из той же схемы user_subscriptions.
+ * Строки читаются сразу в User и Subscription в том же виде, что дают UserMapper и SubscriptionMapper.
+ */
+public class ReactiveReadRepo implements AutoCloseable {
+
+    private static final String SELECT_USER_SQL = """
+            SELECT id, username FROM user_subscriptions.users WHERE id = :userId""";
+
+    private static final String SELECT_SUBSCRIPTIONS_SQL = """
+            SELECT s.id, c.name, s.user_id
+            FROM user_subscriptions.subscriptions s
+            JOIN user_subscriptions.subscription_catalog c ON c.id = s.catalog_id
+            WHERE s.user_id = :userId ORDER BY s.id""";
+
+    // Тот же запрос, что SubscriptionRepo.findTopSubscriptions
+    private static final String SELECT_TOP_SQL = """
+            SELECT name
+            FROM (SELECT name FROM user_subscriptions.subscription_name_counts
+                  ORDER BY subscription_count DESC, name LIMIT :limit) AS sn
+            ORDER BY name""";
+
+    private final DatabaseClient databaseClient;
+    private final ConnectionPool connectionPool;
+
+    public ReactiveReadRepo(DatabaseClient databaseClient, ConnectionPool connectionPool) {
+        this.databaseClient = databaseClient;
+        this.connectionPool = connectionPool;
+    }
+
+    public Mono<User> findUserById(Long userId) {
+        return this.databaseClient.sql(SELECT_USER_SQL)
+                .bind("userId", userId)
+                .map((row, metadata) -> User.builder()
+                        .id(row.get("id", Long.class))
+                        .username(row.get("username", String.class))
+                        .build())
+                .one();
+    }
+
+    public Flux<Subscription> findSubscriptionsByUserId(Long userId) {
+        return this.databaseClient.sql(SELECT_SUBSCRIPTIONS_SQL)
+                .bind("userId", userId)
+                .map((row, metadata) -> Subscription.builder()
+                        .id(row.get("id", Long.class))
+                        .name(row.get("name", String.class))
+                        .user(row.get("user_id", Long.class))
+                        .build())
+                .all();
+    }
+
+    public Flux<String> findTopSubscriptions(int limit) {
+        return this.databaseClient.sql(SELECT_TOP_SQL)
+                .bind("limit", limit)
+                .map((row, metadata) -> row.get("name", String.class))
+                .all();
+    }
+
+    @Override
+    public void close() {
+        this.connectionPool.dispose();
+    }
+}
@@ -0,0 +1,8 @@
+package ru.tms.repo;
+
+/**
+ * Строка результата пакетной вставки подписок: по строке на каждую созданную подписку и по строке с пустыми
+ * subscriptionId и catalogId на каждого найденного пользователя, которому ничего не добавлено.
+ */
+public record SubscriptionBatchInsertRow(Long userId, Long subscriptionId, Integer catalogId) {
+}
@@ -0,0 +1,7 @@
+package ru.tms.repo;
+
+/**
+ * Имя из справочника subscription_catalog: id, на который ссылаются подписки, и написание, которое отдает API.
+ */
+public record SubscriptionCatalogEntry(int id, String name) {
+}
@@ -0,0 +1,62 @@
+package ru.tms.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Справочник имен подписок. Имена сравниваются после нормализации в БД
+ * (subscription_catalog_normalize: без пробелов по краям, в нижнем регистре).
+ */
+@Repository
+public class SubscriptionCatalogRepo {
+
+    // Функция добавляет строку в справочник, поэтому вызывается отдельным оператором: сканирование справочника
+    // в том же операторе не видит добавленную строку, а на пустом справочнике не вызывает функцию вовсе
+    private static final String RESOLVE_ID_SQL = """
+            SELECT user_subscriptions.subscription_catalog_id(?)""";
+
+    private static final String FIND_BY_ID_SQL = """
+            SELECT id, name FROM user_subscriptions.subscription_catalog WHERE id = ?""";
+
+    private static final String FIND_BY_NAME_SQL = """
+            SELECT id, name FROM user_subscriptions.subscription_catalog
+            WHERE normalized_name = user_subscriptions.subscription_catalog_normalize(?)""";
+
+    private static final String FIND_BY_IDS_SQL = """
+            SELECT id, name FROM user_subscriptions.subscription_catalog WHERE id = ANY(?)""";
+
+    private static final RowMapper<SubscriptionCatalogEntry> ENTRY_ROW_MAPPER =
+            (rs, rowNum) -> new SubscriptionCatalogEntry(rs.getInt("id"), rs.getString("name"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SubscriptionCatalogRepo(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Возвращает имя из справочника, добавляя его, если его еще нет.
+     * Выполняется в отдельной транзакции: добавленное имя фиксируется, даже если транзакция вызывающего
+     * откатится, поэтому его id можно сразу кэшировать.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public SubscriptionCatalogEntry resolve(String name) {
+        Integer id = this.jdbcTemplate.queryForObject(RESOLVE_ID_SQL, Integer.class, name);
+        return this.jdbcTemplate.queryForObject(FIND_BY_ID_SQL, ENTRY_ROW_MAPPER, id);
+    }
+
+    public Optional<SubscriptionCatalogEntry> findByName(String name) {
+        return this.jdbcTemplate.query(FIND_BY_NAME_SQL, ENTRY_ROW_MAPPER, name).stream().findFirst();
+    }
+
+    public List<SubscriptionCatalogEntry> findByIds(Collection<Integer> ids) {
+        return this.jdbcTemplate.query(FIND_BY_IDS_SQL, ENTRY_ROW_MAPPER, (Object) ids.toArray(Integer[]::new));
+    }
+}
@@ -0,0 +1,11 @@
+package ru.tms.repo;
+
+/**
+ * Результат вставки подписки: subscriptionId равен null, если пользователь не найден или подписка уже была.
+ */
+public record SubscriptionInsertResult(boolean userFound, Long subscriptionId) {
+
+    public boolean created() {
+        return this.subscriptionId != null;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.tms.repo;
+
+/**
+ * Сводка по подпискам пользователя для ETag списка: количество, наибольший id и XOR всех id.
+ */
+public interface SubscriptionListStamp {
+
+    long getCount();
+
+    long getMaxId();
+
+    long getIdsXor();
+}
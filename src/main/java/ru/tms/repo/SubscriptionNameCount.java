@@ -0,0 +1,11 @@
+package ru.tms.repo;
+
+/**
+ * Строка счетчика subscription_name_counts.
+ */
+public interface SubscriptionNameCount {
+
+    String getName();
+
+    long getSubscriptionCount();
+}
@@ -1,26 +1,100 @@
 package ru.tms.repo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.tms.entity.SubscriptionEntity;
 import ru.tms.entity.UserEntity;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface SubscriptionRepo extends JpaRepository<SubscriptionEntity,  Long> {
+public interface SubscriptionRepo extends JpaRepository<SubscriptionEntity,  Long>, SubscriptionRepoCustom {
 
-    Optional<SubscriptionEntity> findByNameAndUser(String name, UserEntity userEntity);
+    Optional<SubscriptionEntity> findByCatalogIdAndUser(Integer catalogId, UserEntity userEntity);
 
     List<SubscriptionEntity> findByUserId(Long userId);
 
-    void deleteByUserIdAndId(Long userId, Long Id);
+    @Query(value = "SELECT count(*) AS \"count\", COALESCE(max(id), 0) AS \"maxId\", COALESCE(bit_xor(id), 0) AS \"idsXor\"" +
+                " FROM user_subscriptions.subscriptions WHERE user_id = :userId"
+                , nativeQuery = true)
+    SubscriptionListStamp findListStampByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new ru.tms.repo.SubscriptionRow(s.id, s.catalogId, s.user.id, s.createdAt)" +
+            " FROM SubscriptionEntity s WHERE s.user.id = :userId")
+    List<SubscriptionRow> findRowsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new ru.tms.repo.SubscriptionRow(s.id, s.catalogId, s.user.id, s.createdAt)" +
+            " FROM SubscriptionEntity s WHERE s.user.id = :userId" +
+            " ORDER BY s.createdAt, s.id LIMIT :limit")
+    List<SubscriptionRow> findFirstPageByUserIdOrderByCreatedAt(@Param("userId") Long userId,
+                                                                @Param("limit") int limit);
+
+    @Query("SELECT new ru.tms.repo.SubscriptionRow(s.id, s.catalogId, s.user.id, s.createdAt)" +
+            " FROM SubscriptionEntity s WHERE s.user.id = :userId" +
+            " AND (s.createdAt, s.id) > (:afterCreatedAt, :afterId)" +
+            " ORDER BY s.createdAt, s.id LIMIT :limit")
+    List<SubscriptionRow> findPageByUserIdOrderByCreatedAt(@Param("userId") Long userId,
+                                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                           @Param("afterId") Long afterId,
+                                                           @Param("limit") int limit);
 
     @Query(value = "SELECT * " +
-                " FROM (SELECT name FROM user_subscriptions.subscriptions GROUP BY name ORDER BY COUNT(*) DESC LIMIT 3) as sn" +
+                " FROM (SELECT name FROM user_subscriptions.subscription_name_counts" +
+                " ORDER BY subscription_count DESC, name LIMIT :limit) as sn" +
                 " ORDER BY name"
                 , nativeQuery = true)
-    List<String> findTopThreeSubscriptions();
+    List<String> findTopSubscriptions(@Param("limit") int limit);
+
+    default List<String> findTopThreeSubscriptions() {
+        return findTopSubscriptions(3);
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT name AS \"name\", subscription_count AS \"subscriptionCount\"" +
+                " FROM user_subscriptions.subscription_name_counts"
+                , nativeQuery = true)
+    Stream<SubscriptionNameCount> streamSubscriptionNameCounts();
+
+    @Query(value = "SELECT name FROM user_subscriptions.subscription_name_buckets" +
+                " WHERE (granularity = 'HOUR'" +
+                "   AND bucket_start >= date_trunc('hour', LOCALTIMESTAMP - make_interval(hours => :hours)))" +
+                " OR (granularity = 'DAY'" +
+                "   AND bucket_start >= date_trunc('day', LOCALTIMESTAMP - make_interval(hours => :hours)))" +
+                " GROUP BY name ORDER BY SUM(subscription_count) DESC, name LIMIT :limit"
+                , nativeQuery = true)
+    List<String> findTrendingSubscriptions(@Param("hours") int hours, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "WITH moved AS (" +
+                "   DELETE FROM user_subscriptions.subscription_name_buckets" +
+                "   WHERE granularity = 'HOUR'" +
+                "   AND bucket_start < date_trunc('hour', LOCALTIMESTAMP) - make_interval(hours => :retentionHours)" +
+                "   RETURNING bucket_start, name, subscription_count)" +
+                " INSERT INTO user_subscriptions.subscription_name_buckets AS b" +
+                "   (granularity, bucket_start, name, subscription_count)" +
+                " SELECT 'DAY', date_trunc('day', bucket_start), name, SUM(subscription_count) FROM moved" +
+                " GROUP BY date_trunc('day', bucket_start), name" +
+                " ON CONFLICT (granularity, bucket_start, name)" +
+                " DO UPDATE SET subscription_count = b.subscription_count + EXCLUDED.subscription_count"
+                , nativeQuery = true)
+    int compactHourlyBuckets(@Param("retentionHours") int retentionHours);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_subscriptions.subscription_name_buckets" +
+                " WHERE granularity = 'DAY'" +
+                " AND bucket_start < date_trunc('day', LOCALTIMESTAMP) - make_interval(days => :retentionDays)"
+                , nativeQuery = true)
+    int purgeDailyBuckets(@Param("retentionDays") int retentionDays);
 }
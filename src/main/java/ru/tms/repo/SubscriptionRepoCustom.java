@@ -0,0 +1,59 @@
+package ru.tms.repo;
+
+import ru.tms.dto.Subscription;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Запись подписок одним SQL-запросом без предварительного чтения и чтение, которое не выражается через JPQL.
+ */
+public interface SubscriptionRepoCustom {
+
+    /**
+     * Создает подписку пользователю, если у него еще нет подписки с таким именем.
+     *
+     * @param catalogId Id имени подписки в справочнике subscription_catalog.
+     * @return Результат вставки: найден ли пользователь и id созданной подписки (null, если подписка уже была).
+     */
+    SubscriptionInsertResult insertIfAbsent(Long userId, Integer catalogId);
+
+    /**
+     * Создает подписки нескольким пользователям одним запросом INSERT ... ON CONFLICT DO NOTHING.
+     * Подписки отсутствующим пользователям не создаются.
+     *
+     * @param userIds    ID пользователей.
+     * @param catalogIds Id имен в справочнике, попарно с userIds.
+     * @return Созданные подписки и найденные пользователи, см. {@link SubscriptionBatchInsertRow}.
+     */
+    List<SubscriptionBatchInsertRow> insertAllIfAbsent(List<Long> userIds, List<Integer> catalogIds);
+
+    /**
+     * Удаляет подписку, только если она принадлежит пользователю.
+     *
+     * @return Имя удаленной подписки или Optional.empty(), если у пользователя нет подписки с таким id.
+     */
+    Optional<String> deleteByUserIdAndId(Long userId, Long subscriptionId);
+
+    /**
+     * Удаляет подписки пользователя одним запросом {@code id = ANY(?)}.
+     *
+     * @return Удаленные подписки; чужие и отсутствующие ID пропускаются.
+     */
+    List<Subscription> deleteByUserIdAndIds(Long userId, Collection<Long> subscriptionIds);
+
+    /**
+     * Читает страницу подписок пользователя, упорядоченных по имени из справочника.
+     *
+     * @param afterName Имя последней подписки предыдущей страницы или null для первой страницы.
+     */
+    List<SubscriptionRow> findRowsPageByUserIdOrderByName(Long userId, String afterName, int limit);
+
+    /**
+     * Читает подписки нескольких пользователей одним запросом {@code user_id = ANY(?)}.
+     *
+     * @return Строки подписок, упорядоченные по пользователю и id.
+     */
+    List<SubscriptionRow> findRowsByUserIds(Collection<Long> userIds);
+}
@@ -0,0 +1,135 @@
+package ru.tms.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.tms.dto.Subscription;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class SubscriptionRepoCustomImpl implements SubscriptionRepoCustom {
+
+    // Отсутствие строки - нет пользователя, строка с NULL - подписка уже была
+    private static final String INSERT_IF_ABSENT_SQL = """
+            WITH owner AS (
+                SELECT id FROM user_subscriptions.users WHERE id = ?
+            ), inserted AS (
+                INSERT INTO user_subscriptions.subscriptions (catalog_id, user_id, created_at, updated_at, version)
+                SELECT ?, owner.id, LOCALTIMESTAMP, LOCALTIMESTAMP, 0 FROM owner
+                ON CONFLICT (user_id, catalog_id) DO NOTHING
+                RETURNING id
+            )
+            SELECT inserted.id FROM owner LEFT JOIN inserted ON TRUE""";
+
+    // Пары (пользователь, имя) вставляются в порядке ключа уникального индекса, чтобы встречные пачки
+    // не ждали друг друга крест-накрест
+    private static final String INSERT_ALL_IF_ABSENT_SQL = """
+            WITH requested AS (
+                SELECT t.user_id, t.catalog_id FROM unnest(?::bigint[], ?::integer[]) AS t(user_id, catalog_id)
+            ), owners AS (
+                SELECT u.id FROM user_subscriptions.users u WHERE u.id IN (SELECT user_id FROM requested)
+            ), inserted AS (
+                INSERT INTO user_subscriptions.subscriptions (catalog_id, user_id, created_at, updated_at, version)
+                SELECT r.catalog_id, r.user_id, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+                FROM requested r JOIN owners o ON o.id = r.user_id
+                ORDER BY r.user_id, r.catalog_id
+                ON CONFLICT (user_id, catalog_id) DO NOTHING
+                RETURNING id, user_id, catalog_id
+            )
+            SELECT o.id AS user_id, i.id, i.catalog_id FROM owners o LEFT JOIN inserted i ON i.user_id = o.id""";
+
+    // Имя удаленной подписки нужно для событий удаления; справочник не меняется, поэтому читается в том же запросе
+    private static final String DELETE_BY_USER_ID_AND_ID_SQL = """
+            DELETE FROM user_subscriptions.subscriptions s WHERE s.user_id = ? AND s.id = ?
+            RETURNING (SELECT c.name FROM user_subscriptions.subscription_catalog c WHERE c.id = s.catalog_id) AS name""";
+
+    private static final String DELETE_BY_USER_ID_AND_IDS_SQL = """
+            DELETE FROM user_subscriptions.subscriptions s WHERE s.user_id = ? AND s.id = ANY(?)
+            RETURNING s.id,
+                      (SELECT c.name FROM user_subscriptions.subscription_catalog c WHERE c.id = s.catalog_id) AS name,
+                      s.user_id""";
+
+    // Имя в строке - написание из справочника (его записывает триггер), поэтому страница читается
+    // диапазоном индекса (user_id, name) без обращения к справочнику и без сортировки
+    static final String SELECT_PAGE_ORDER_BY_NAME_SQL = """
+            SELECT s.id, s.catalog_id, s.user_id, s.created_at
+            FROM user_subscriptions.subscriptions s
+            WHERE s.user_id = ?
+            ORDER BY s.name LIMIT ?""";
+
+    static final String SELECT_PAGE_AFTER_NAME_SQL = """
+            SELECT s.id, s.catalog_id, s.user_id, s.created_at
+            FROM user_subscriptions.subscriptions s
+            WHERE s.user_id = ? AND s.name > ?
+            ORDER BY s.name LIMIT ?""";
+
+    private static final String SELECT_BY_USER_IDS_SQL = """
+            SELECT s.id, s.catalog_id, s.user_id, s.created_at
+            FROM user_subscriptions.subscriptions s
+            WHERE s.user_id = ANY(?)
+            ORDER BY s.user_id, s.id""";
+
+    private static final RowMapper<SubscriptionRow> ROW_MAPPER = (rs, rowNum) -> new SubscriptionRow(
+            rs.getLong("id"),
+            rs.getInt("catalog_id"),
+            rs.getLong("user_id"),
+            rs.getObject("created_at", LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SubscriptionRepoCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public SubscriptionInsertResult insertIfAbsent(Long userId, Integer catalogId) {
+        return this.jdbcTemplate.query(INSERT_IF_ABSENT_SQL,
+                        (rs, rowNum) -> new SubscriptionInsertResult(true, rs.getObject("id", Long.class)),
+                        userId, catalogId)
+                .stream()
+                .findFirst()
+                .orElseGet(() -> new SubscriptionInsertResult(false, null));
+    }
+
+    @Override
+    public List<SubscriptionBatchInsertRow> insertAllIfAbsent(List<Long> userIds, List<Integer> catalogIds) {
+        return this.jdbcTemplate.query(INSERT_ALL_IF_ABSENT_SQL,
+                (rs, rowNum) -> new SubscriptionBatchInsertRow(rs.getLong("user_id"),
+                        rs.getObject("id", Long.class), rs.getObject("catalog_id", Integer.class)),
+                userIds.toArray(Long[]::new), catalogIds.toArray(Integer[]::new));
+    }
+
+    @Override
+    public Optional<String> deleteByUserIdAndId(Long userId, Long subscriptionId) {
+        return this.jdbcTemplate.query(DELETE_BY_USER_ID_AND_ID_SQL, (rs, rowNum) -> rs.getString("name"),
+                        userId, subscriptionId)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Subscription> deleteByUserIdAndIds(Long userId, Collection<Long> subscriptionIds) {
+        return this.jdbcTemplate.query(DELETE_BY_USER_ID_AND_IDS_SQL,
+                (rs, rowNum) -> Subscription.builder()
+                        .id(rs.getLong("id"))
+                        .name(rs.getString("name"))
+                        .user(rs.getLong("user_id"))
+                        .build(),
+                userId, subscriptionIds.toArray(Long[]::new));
+    }
+
+    @Override
+    public List<SubscriptionRow> findRowsPageByUserIdOrderByName(Long userId, String afterName, int limit) {
+        if (afterName == null) {
+            return this.jdbcTemplate.query(SELECT_PAGE_ORDER_BY_NAME_SQL, ROW_MAPPER, userId, limit);
+        }
+        return this.jdbcTemplate.query(SELECT_PAGE_AFTER_NAME_SQL, ROW_MAPPER, userId, afterName, limit);
+    }
+
+    @Override
+    public List<SubscriptionRow> findRowsByUserIds(Collection<Long> userIds) {
+        return this.jdbcTemplate.query(SELECT_BY_USER_IDS_SQL, ROW_MAPPER, (Object) userIds.toArray(Long[]::new));
+    }
+}
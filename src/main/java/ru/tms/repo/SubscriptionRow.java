@@ -0,0 +1,10 @@
+package ru.tms.repo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка подписки для чтения: выбирается конструктором прямо из запроса, без сущности в контексте
+ * персистентности. Имя по catalogId заполняет словарь {@link ru.tms.cache.SubscriptionCatalog}.
+ */
+public record SubscriptionRow(Long id, Integer catalogId, Long userId, LocalDateTime createdAt) {
+}
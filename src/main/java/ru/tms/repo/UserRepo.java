@@ -10,7 +10,7 @@ import ru.tms.entity.UserEntity;
 import java.util.Optional;
 
 @Repository
-public interface UserRepo extends JpaRepository<UserEntity, Long> {
+public interface UserRepo extends JpaRepository<UserEntity, Long>, UserRepoCustom {
 
     Optional<UserEntity> findByUsername(String username);
 }
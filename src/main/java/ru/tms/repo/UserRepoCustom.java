@@ -0,0 +1,57 @@
+package ru.tms.repo;
+
+import ru.tms.dto.User;
+import ru.tms.entity.UserEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Запись пользователей одним SQL-запросом без предварительного чтения и чтение пачкой по id.
+ */
+public interface UserRepoCustom {
+
+    /**
+     * Создает пользователя, если имя еще не занято.
+     *
+     * @return Созданный пользователь или Optional.empty(), если пользователь с таким именем уже есть.
+     */
+    Optional<User> insertIfAbsent(String username);
+
+    /**
+     * Создает пользователей одним запросом; занятые имена и повторы пропускаются.
+     *
+     * @return Созданные пользователи.
+     */
+    List<User> insertAllIfAbsent(List<String> usernames);
+
+    /**
+     * Меняет имя пользователя.
+     *
+     * @return Измененный пользователь или Optional.empty(), если пользователя с таким id нет.
+     * @throws org.springframework.dao.DuplicateKeyException Если имя занято другим пользователем.
+     */
+    Optional<User> updateUsername(Long userId, String username);
+
+    /**
+     * Удаляет пользователя вместе с подписками (ON DELETE CASCADE).
+     *
+     * @return Количество удаленных пользователей: 0 или 1.
+     */
+    int deleteUserById(Long userId);
+
+    /**
+     * Удаляет пользователей одним запросом {@code id = ANY(?)}.
+     *
+     * @return ID удаленных пользователей; отсутствующие ID пропускаются.
+     */
+    List<Long> deleteUsersByIds(Collection<Long> userIds);
+
+    /**
+     * Читает пользователей одним запросом {@code id = ANY(?)}. Сущности не привязаны к сессии.
+     *
+     * @return Найденные пользователи в произвольном порядке; отсутствующие ID пропускаются.
+     */
+    List<UserEntity> findByIds(Collection<Long> userIds);
+}
@@ -0,0 +1,97 @@
+package ru.tms.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.tms.dto.User;
+import ru.tms.entity.UserEntity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class UserRepoCustomImpl implements UserRepoCustom {
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO user_subscriptions.users (username, created_at, updated_at, version)
+            VALUES (?, LOCALTIMESTAMP, LOCALTIMESTAMP, 0)
+            ON CONFLICT (username) DO NOTHING
+            RETURNING id, username""";
+
+    private static final String INSERT_ALL_IF_ABSENT_SQL = """
+            INSERT INTO user_subscriptions.users (username, created_at, updated_at, version)
+            SELECT t.username, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM unnest(?::varchar[]) WITH ORDINALITY AS t(username, ord)
+            ORDER BY t.ord
+            ON CONFLICT (username) DO NOTHING
+            RETURNING id, username""";
+
+    private static final String UPDATE_USERNAME_SQL = """
+            UPDATE user_subscriptions.users
+            SET username = ?, updated_at = LOCALTIMESTAMP, version = COALESCE(version, 0) + 1
+            WHERE id = ?
+            RETURNING id, username""";
+
+    private static final String DELETE_BY_ID_SQL = """
+            DELETE FROM user_subscriptions.users WHERE id = ?""";
+
+    private static final String DELETE_BY_IDS_SQL = """
+            DELETE FROM user_subscriptions.users WHERE id = ANY(?)
+            RETURNING id""";
+
+    private static final String SELECT_BY_IDS_SQL = """
+            SELECT id, username, created_at, updated_at, version
+            FROM user_subscriptions.users WHERE id = ANY(?)""";
+
+    private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .username(rs.getString("username"))
+            .build();
+
+    private static final RowMapper<UserEntity> USER_ENTITY_ROW_MAPPER = (rs, rowNum) -> {
+        UserEntity userEntity = new UserEntity(rs.getString("username"));
+        userEntity.setId(rs.getLong("id"));
+        userEntity.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        userEntity.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        userEntity.setVersion(rs.getObject("version", Long.class));
+        return userEntity;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepoCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<User> insertIfAbsent(String username) {
+        return this.jdbcTemplate.query(INSERT_IF_ABSENT_SQL, USER_ROW_MAPPER, username).stream().findFirst();
+    }
+
+    @Override
+    public List<User> insertAllIfAbsent(List<String> usernames) {
+        return this.jdbcTemplate.query(INSERT_ALL_IF_ABSENT_SQL, USER_ROW_MAPPER,
+                (Object) usernames.toArray(String[]::new));
+    }
+
+    @Override
+    public Optional<User> updateUsername(Long userId, String username) {
+        return this.jdbcTemplate.query(UPDATE_USERNAME_SQL, USER_ROW_MAPPER, username, userId).stream().findFirst();
+    }
+
+    @Override
+    public int deleteUserById(Long userId) {
+        return this.jdbcTemplate.update(DELETE_BY_ID_SQL, userId);
+    }
+
+    @Override
+    public List<Long> deleteUsersByIds(Collection<Long> userIds) {
+        return this.jdbcTemplate.query(DELETE_BY_IDS_SQL, (rs, rowNum) -> rs.getLong("id"),
+                (Object) userIds.toArray(Long[]::new));
+    }
+
+    @Override
+    public List<UserEntity> findByIds(Collection<Long> userIds) {
+        return this.jdbcTemplate.query(SELECT_BY_IDS_SQL, USER_ENTITY_ROW_MAPPER, (Object) userIds.toArray(Long[]::new));
+    }
+}
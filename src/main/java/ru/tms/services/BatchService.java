@@ -0,0 +1,9 @@
+package ru.tms.services;
+
+import ru.tms.dto.BatchRequest;
+import ru.tms.dto.BatchResult;
+
+public interface BatchService {
+
+    BatchResult execute(BatchRequest request);
+}
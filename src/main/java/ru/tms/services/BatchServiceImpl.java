@@ -0,0 +1,392 @@
+package ru.tms.services;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.tms.cache.SubscriptionCatalog;
+import ru.tms.dto.BatchOperation;
+import ru.tms.dto.BatchOperationResult;
+import ru.tms.dto.BatchRequest;
+import ru.tms.dto.BatchResult;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.events.SubscriptionDeletedEvent;
+import ru.tms.events.UserUpdatedEvent;
+import ru.tms.exceptions.InvalidElementDataException;
+import ru.tms.jdbc.JdbcSavepoints;
+import ru.tms.repo.SubscriptionBatchInsertRow;
+import ru.tms.repo.SubscriptionCatalogEntry;
+import ru.tms.repo.SubscriptionRepo;
+import ru.tms.repo.UserRepo;
+
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Реализация сервиса пакетных изменений пользователей и подписок в одной транзакции.
+ * <p>
+ * Подряд идущие операции одного типа выполняются одним запросом: создания пользователей и подписок -
+ * многострочным INSERT ... ON CONFLICT DO NOTHING, удаления подписок - DELETE ... WHERE id = ANY(?)
+ * на каждого пользователя. Переименование пользователя выполняется отдельным запросом.
+ * Порядок операций сохраняется: группа начинается только после завершения предыдущей.
+ * В режиме BEST_EFFORT каждая группа выполняется внутри точки сохранения; если запрос группы падает,
+ * ее операции повторяются по одной, чтобы ошибка досталась только виновной операции.
+ */
+@Slf4j
+@Service
+@Timed(value = "service.invocations", histogram = true)
+public class BatchServiceImpl implements BatchService {
+
+    public static final int MAX_BATCH_OPERATIONS = 1000;
+
+    private final UserRepo userRepo;
+    private final SubscriptionRepo subscriptionRepo;
+    private final SubscriptionCatalog subscriptionCatalog;
+    private final JdbcSavepoints savepoints;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    /**
+     * Конструктор класса BatchServiceImpl.
+     *
+     * @param userRepo            Репозиторий для работы с пользователями.
+     * @param subscriptionRepo    Репозиторий для работы с подписками.
+     * @param subscriptionCatalog Словарь имен подписок.
+     * @param savepoints          Точки сохранения для режима BEST_EFFORT.
+     * @param eventPublisher      Публикатор событий изменений для сброса кэшей; события доходят после фиксации.
+     * @param transactionManager  Менеджер транзакций: исход пакета решается после выполнения операций.
+     */
+    public BatchServiceImpl(UserRepo userRepo, SubscriptionRepo subscriptionRepo,
+                            SubscriptionCatalog subscriptionCatalog, JdbcSavepoints savepoints,
+                            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.userRepo = userRepo;
+        this.subscriptionRepo = subscriptionRepo;
+        this.subscriptionCatalog = subscriptionCatalog;
+        this.savepoints = savepoints;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        log.info("BatchService initialized");
+    }
+
+    /**
+     * Выполняет операции пакета по порядку в одной транзакции.
+     *
+     * @param request Операции (от 1 до {@value #MAX_BATCH_OPERATIONS}) и режим.
+     * @return BatchResult Результат каждой операции в порядке запроса и признак фиксации.
+     * @throws InvalidElementDataException Если список операций пуст или слишком велик.
+     */
+    @Override
+    public BatchResult execute(BatchRequest request) {
+        if (request == null || request.operations() == null || request.operations().isEmpty()
+                || request.operations().size() > MAX_BATCH_OPERATIONS) {
+            throw new InvalidElementDataException(
+                    String.format("Batch must contain between 1 and %d operations", MAX_BATCH_OPERATIONS));
+        }
+        BatchRequest.Mode mode = request.mode() != null ? request.mode() : BatchRequest.Mode.ALL_OR_NOTHING;
+        BatchOperationResult[] results = new BatchOperationResult[request.operations().size()];
+        List<PreparedOperation> prepared = prepare(request.operations(), results);
+
+        boolean committed;
+        if (mode == BatchRequest.Mode.ALL_OR_NOTHING && prepared.size() < results.length) {
+            committed = false;
+        } else {
+            committed = Boolean.TRUE.equals(this.transaction.execute(status -> {
+                for (List<PreparedOperation> group : groups(prepared)) {
+                    if (mode == BatchRequest.Mode.BEST_EFFORT) {
+                        executeIsolated(group, results);
+                    } else if (!executeAll(group, results)) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        if (!committed) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = result(i, BatchOperationResult.Status.SKIPPED, null, null);
+                } else if (results[i].status() == BatchOperationResult.Status.OK) {
+                    results[i] = result(i, BatchOperationResult.Status.ROLLED_BACK, results[i].id(), null);
+                }
+            }
+        }
+        long failed = Arrays.stream(results).filter(r -> r.status() == BatchOperationResult.Status.FAILED).count();
+        log.info("Executed batch of {} operations in {} mode, committed: {}, failed: {}",
+                results.length, mode, committed, failed);
+        return BatchResult.builder()
+                .mode(mode)
+                .committed(committed)
+                .results(List.of(results))
+                .build();
+    }
+
+    /**
+     * Проверяет операции и переводит имена подписок в id справочника до начала транзакции,
+     * чтобы запись в справочник не держала второе соединение. Результаты неверных операций заполняются сразу.
+     */
+    private List<PreparedOperation> prepare(List<BatchOperation> operations, BatchOperationResult[] results) {
+        List<PreparedOperation> prepared = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            String error = validate(operation);
+            if (error != null) {
+                results[i] = result(i, BatchOperationResult.Status.FAILED, null, error);
+            } else if (operation.type() == BatchOperation.Type.ADD_SUBSCRIPTION) {
+                prepared.add(new PreparedOperation(i, operation, this.subscriptionCatalog.resolve(operation.name())));
+            } else {
+                prepared.add(new PreparedOperation(i, operation, null));
+            }
+        }
+        return prepared;
+    }
+
+    private static String validate(BatchOperation operation) {
+        if (operation == null || operation.type() == null) {
+            return "Field BatchOperation.type cannot be null";
+        }
+        return switch (operation.type()) {
+            case CREATE_USER -> isEmpty(operation.username())
+                    ? "Invalid data when trying to create a user: Username is empty or missing" : null;
+            case UPDATE_USERNAME -> operation.userId() == null
+                    ? "Field BatchOperation.userId cannot be null"
+                    : isEmpty(operation.username())
+                    ? "Invalid data when updating the user: Username is empty or missing" : null;
+            case ADD_SUBSCRIPTION -> operation.userId() == null
+                    ? "Field BatchOperation.userId cannot be null"
+                    : operation.name() == null || operation.name().isBlank()
+                    ? "Subscription.name cannot be empty or missing" : null;
+            case REMOVE_SUBSCRIPTION -> operation.userId() == null
+                    ? "Field BatchOperation.userId cannot be null"
+                    : operation.subscriptionId() == null ? "Field BatchOperation.subscriptionId cannot be null" : null;
+        };
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * Делит операции на группы подряд идущих операций одного типа; переименования идут по одному.
+     */
+    private static List<List<PreparedOperation>> groups(List<PreparedOperation> operations) {
+        List<List<PreparedOperation>> groups = new ArrayList<>();
+        List<PreparedOperation> current = null;
+        for (PreparedOperation operation : operations) {
+            if (current == null || current.get(0).type() != operation.type()
+                    || operation.type() == BatchOperation.Type.UPDATE_USERNAME) {
+                current = new ArrayList<>();
+                groups.add(current);
+            }
+            current.add(operation);
+        }
+        return groups;
+    }
+
+    /**
+     * Выполняет группу в режиме ALL_OR_NOTHING.
+     *
+     * @return false, если хотя бы одна операция группы не удалась и пакет нужно откатить.
+     */
+    private boolean executeAll(List<PreparedOperation> group, BatchOperationResult[] results) {
+        try {
+            GroupOutcome outcome = executeGroup(group);
+            apply(outcome, results);
+            return outcome.results().stream().allMatch(r -> r.status() == BatchOperationResult.Status.OK);
+        } catch (DataAccessException e) {
+            // Транзакция в PostgreSQL уже прервана, поэтому остальные группы не выполняются
+            group.forEach(operation -> results[operation.index()] = failed(operation, e));
+            return false;
+        }
+    }
+
+    /**
+     * Выполняет группу в режиме BEST_EFFORT внутри точки сохранения.
+     */
+    private void executeIsolated(List<PreparedOperation> group, BatchOperationResult[] results) {
+        Savepoint savepoint = this.savepoints.create();
+        GroupOutcome outcome;
+        try {
+            outcome = executeGroup(group);
+        } catch (DataAccessException e) {
+            this.savepoints.rollbackTo(savepoint);
+            if (group.size() == 1) {
+                results[group.get(0).index()] = failed(group.get(0), e);
+            } else {
+                log.debug("Batch group of {} {} operations failed, retrying one by one",
+                        group.size(), group.get(0).type(), e);
+                group.forEach(operation -> executeIsolated(List.of(operation), results));
+            }
+            return;
+        }
+        this.savepoints.release(savepoint);
+        apply(outcome, results);
+    }
+
+    /**
+     * Результаты и события группы применяются только после всех ее запросов, чтобы откат к точке сохранения
+     * не оставил успешных результатов и событий откатанных изменений.
+     */
+    private void apply(GroupOutcome outcome, BatchOperationResult[] results) {
+        outcome.results().forEach(result -> results[result.index()] = result);
+        outcome.events().forEach(this.eventPublisher::publishEvent);
+    }
+
+    private GroupOutcome executeGroup(List<PreparedOperation> group) {
+        return switch (group.get(0).type()) {
+            case CREATE_USER -> createUsers(group);
+            case UPDATE_USERNAME -> updateUsername(group.get(0));
+            case ADD_SUBSCRIPTION -> addSubscriptions(group);
+            case REMOVE_SUBSCRIPTION -> removeSubscriptions(group);
+        };
+    }
+
+    private GroupOutcome createUsers(List<PreparedOperation> group) {
+        Map<String, Long> created = new HashMap<>();
+        this.userRepo.insertAllIfAbsent(group.stream().map(operation -> operation.operation().username()).toList())
+                .forEach(user -> created.put(user.username(), user.id()));
+        GroupOutcome outcome = new GroupOutcome();
+        for (PreparedOperation operation : group) {
+            // Повтор имени в пакете получает ошибку, как и имя, занятое до пакета
+            Long userId = created.remove(operation.operation().username());
+            outcome.results().add(userId != null
+                    ? result(operation.index(), BatchOperationResult.Status.OK, userId, null)
+                    : result(operation.index(), BatchOperationResult.Status.FAILED, null,
+                    "User with this username already exists"));
+        }
+        return outcome;
+    }
+
+    private GroupOutcome updateUsername(PreparedOperation operation) {
+        Long userId = operation.operation().userId();
+        Optional<User> updated = this.userRepo.updateUsername(userId, operation.operation().username());
+        GroupOutcome outcome = new GroupOutcome();
+        if (updated.isPresent()) {
+            outcome.results().add(result(operation.index(), BatchOperationResult.Status.OK, userId, null));
+            outcome.events().add(new UserUpdatedEvent(userId));
+        } else {
+            outcome.results().add(result(operation.index(), BatchOperationResult.Status.FAILED, null,
+                    "User not found with id: " + userId));
+        }
+        return outcome;
+    }
+
+    private GroupOutcome addSubscriptions(List<PreparedOperation> group) {
+        List<SubscriptionBatchInsertRow> rows = this.subscriptionRepo.insertAllIfAbsent(
+                group.stream().map(operation -> operation.operation().userId()).toList(),
+                group.stream().map(operation -> operation.catalogEntry().id()).toList());
+        Set<Long> owners = new HashSet<>();
+        Map<UserCatalogKey, Long> created = new HashMap<>();
+        for (SubscriptionBatchInsertRow row : rows) {
+            owners.add(row.userId());
+            if (row.subscriptionId() != null) {
+                created.put(new UserCatalogKey(row.userId(), row.catalogId()), row.subscriptionId());
+            }
+        }
+        GroupOutcome outcome = new GroupOutcome();
+        for (PreparedOperation operation : group) {
+            Long userId = operation.operation().userId();
+            SubscriptionCatalogEntry catalogEntry = operation.catalogEntry();
+            Long subscriptionId = created.remove(new UserCatalogKey(userId, catalogEntry.id()));
+            if (subscriptionId != null) {
+                outcome.results().add(result(operation.index(), BatchOperationResult.Status.OK, subscriptionId, null));
+                outcome.events().add(new SubscriptionCreatedEvent(userId, subscriptionId, catalogEntry.name()));
+            } else if (!owners.contains(userId)) {
+                outcome.results().add(result(operation.index(), BatchOperationResult.Status.FAILED, null,
+                        "User not found with id: " + userId));
+            } else {
+                outcome.results().add(result(operation.index(), BatchOperationResult.Status.FAILED, null,
+                        String.format("Attempted duplicate subscription creation for user %s: %s",
+                                userId, operation.operation().name())));
+            }
+        }
+        return outcome;
+    }
+
+    private GroupOutcome removeSubscriptions(List<PreparedOperation> group) {
+        Map<Long, List<Long>> idsByUser = new LinkedHashMap<>();
+        group.forEach(operation -> idsByUser
+                .computeIfAbsent(operation.operation().userId(), userId -> new ArrayList<>())
+                .add(operation.operation().subscriptionId()));
+        Map<Long, Map<Long, Subscription>> deleted = new HashMap<>();
+        idsByUser.forEach((userId, subscriptionIds) -> {
+            Map<Long, Subscription> deletedByUser = new HashMap<>();
+            this.subscriptionRepo.deleteByUserIdAndIds(userId, subscriptionIds)
+                    .forEach(subscription -> deletedByUser.put(subscription.id(), subscription));
+            deleted.put(userId, deletedByUser);
+        });
+        GroupOutcome outcome = new GroupOutcome();
+        for (PreparedOperation operation : group) {
+            Long userId = operation.operation().userId();
+            Long subscriptionId = operation.operation().subscriptionId();
+            Subscription subscription = deleted.get(userId).remove(subscriptionId);
+            if (subscription != null) {
+                outcome.results().add(result(operation.index(), BatchOperationResult.Status.OK, subscriptionId, null));
+                outcome.events().add(new SubscriptionDeletedEvent(userId, subscriptionId, subscription.name()));
+            } else {
+                outcome.results().add(result(operation.index(), BatchOperationResult.Status.FAILED, null,
+                        "Subscription with id " + subscriptionId + " not found for user " + userId));
+            }
+        }
+        return outcome;
+    }
+
+    private static BatchOperationResult failed(PreparedOperation operation, DataAccessException e) {
+        String message;
+        if (e instanceof DuplicateKeyException) {
+            message = "User with this username already exists";
+        } else if (e instanceof DataIntegrityViolationException) {
+            // Пользователь удален между проверкой в запросе и проверкой внешнего ключа
+            message = "User not found with id: " + operation.operation().userId();
+        } else {
+            log.warn("Batch operation {} failed", operation.index(), e);
+            message = "Operation failed: " + e.getClass().getSimpleName();
+        }
+        return result(operation.index(), BatchOperationResult.Status.FAILED, null, message);
+    }
+
+    private static BatchOperationResult result(int index, BatchOperationResult.Status status, Long id,
+                                               String message) {
+        return BatchOperationResult.builder()
+                .index(index)
+                .status(status)
+                .id(id)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Операция после проверки; catalogEntry заполнен только для ADD_SUBSCRIPTION.
+     */
+    private record PreparedOperation(int index, BatchOperation operation, SubscriptionCatalogEntry catalogEntry) {
+
+        BatchOperation.Type type() {
+            return this.operation.type();
+        }
+    }
+
+    private record UserCatalogKey(Long userId, Integer catalogId) {
+    }
+
+    private record GroupOutcome(List<BatchOperationResult> results, List<Object> events) {
+
+        GroupOutcome() {
+            this(new ArrayList<>(), new ArrayList<>());
+        }
+    }
+}
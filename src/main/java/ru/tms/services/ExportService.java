@@ -0,0 +1,9 @@
+package ru.tms.services;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface ExportService {
+
+    long exportUsers(LocalDateTime since, OutputStream output);
+}
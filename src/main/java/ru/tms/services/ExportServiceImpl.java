@@ -0,0 +1,124 @@
+package ru.tms.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tms.repo.ExportRepo;
+import ru.tms.repo.ExportRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Реализация сервиса выгрузки пользователей с подписками в NDJSON.
+ * Строки читаются курсором и сразу пишутся в поток ответа, поэтому в памяти находится не больше одной порции курсора.
+ */
+@Slf4j
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    /**
+     * Через сколько пользователей сбрасывать буфер в поток ответа.
+     */
+    public static final int FLUSH_EVERY_USERS = 1000;
+
+    private final ExportRepo exportRepo;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Конструктор класса ExportServiceImpl.
+     *
+     * @param exportRepo   Репозиторий для чтения выгрузки.
+     * @param objectMapper Маппер, фабрика которого используется для потоковой записи JSON.
+     */
+    public ExportServiceImpl(ExportRepo exportRepo, ObjectMapper objectMapper) {
+        this.exportRepo = exportRepo;
+        this.objectMapper = objectMapper;
+        log.info("ExportService initialized");
+    }
+
+    /**
+     * Пишет в поток по одной строке JSON на пользователя с вложенным списком подписок.
+     * Первая строка сбрасывается сразу, дальше буфер сбрасывается каждые FLUSH_EVERY_USERS пользователей.
+     *
+     * @param since  Если задан, выгружаются только пользователи, изменившиеся сами или по подпискам с этого момента.
+     * @param output Поток ответа; не закрывается.
+     * @return Количество выгруженных пользователей.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportUsers(LocalDateTime since, OutputStream output) {
+        log.debug("Exporting users changed since {}", since);
+        long users = 0;
+        try (Stream<ExportRow> rows = this.exportRepo.streamUsersWithSubscriptions(since);
+             JsonGenerator generator = this.objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<ExportRow> iterator = rows.iterator();
+            Long currentUserId = null;
+            while (iterator.hasNext()) {
+                ExportRow row = iterator.next();
+                if (currentUserId == null || currentUserId != row.userId()) {
+                    if (currentUserId != null) {
+                        endUser(generator);
+                        if (users == 1 || users % FLUSH_EVERY_USERS == 0) {
+                            generator.flush();
+                        }
+                    }
+                    startUser(generator, row);
+                    currentUserId = row.userId();
+                    users++;
+                }
+                if (row.subscriptionId() != null) {
+                    writeSubscription(generator, row);
+                }
+            }
+            if (currentUserId != null) {
+                endUser(generator);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} users changed since {}", users, since);
+        return users;
+    }
+
+    private static void startUser(JsonGenerator generator, ExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.userId());
+        generator.writeStringField("username", row.username());
+        writeTimestamp(generator, "createdAt", row.userCreatedAt());
+        writeTimestamp(generator, "updatedAt", row.userUpdatedAt());
+        generator.writeArrayFieldStart("subscriptions");
+    }
+
+    private static void endUser(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static void writeSubscription(JsonGenerator generator, ExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.subscriptionId());
+        generator.writeStringField("name", row.subscriptionName());
+        writeTimestamp(generator, "createdAt", row.subscriptionCreatedAt());
+        writeTimestamp(generator, "updatedAt", row.subscriptionUpdatedAt());
+        generator.writeEndObject();
+    }
+
+    private static void writeTimestamp(JsonGenerator generator, String field, LocalDateTime value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeStringField(field, value.toString());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.tms.services;
+
+import org.springframework.http.MediaType;
+import ru.tms.exceptions.InvalidElementDataException;
+
+/**
+ * Формат файла импорта.
+ */
+public enum ImportFormat {
+    /**
+     * Строка - объект {"username": "...", "subscriptions": ["...", ...]}.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    /**
+     * Строка - username[,subscription]; необязательный заголовок username,subscription.
+     */
+    CSV(MediaType.valueOf("text/csv"));
+
+    private final MediaType mediaType;
+
+    ImportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public static ImportFormat fromMediaType(MediaType mediaType) {
+        for (ImportFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(mediaType)) {
+                return format;
+            }
+        }
+        throw new InvalidElementDataException("Import content type must be "
+                + NDJSON.mediaType + " or " + CSV.mediaType + ", got " + mediaType);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.tms.services;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Построчное чтение с ограничением длины строки: хвост слишком длинной строки пропускается,
+ * а не накапливается в памяти.
+ */
+final class ImportLineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final StringBuilder line;
+    private boolean tooLong;
+
+    ImportLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+        this.line = new StringBuilder();
+    }
+
+    /**
+     * Читает следующую строку.
+     *
+     * @return false, если вход закончился.
+     */
+    boolean next() throws IOException {
+        this.line.setLength(0);
+        this.tooLong = false;
+        int c = this.reader.read();
+        if (c < 0) {
+            return false;
+        }
+        while (c >= 0 && c != '\n') {
+            if (this.line.length() < this.maxLength) {
+                this.line.append((char) c);
+            } else {
+                this.tooLong = true;
+            }
+            c = this.reader.read();
+        }
+        int last = this.line.length() - 1;
+        if (!this.tooLong && last >= 0 && this.line.charAt(last) == '\r') {
+            this.line.setLength(last);
+        }
+        return true;
+    }
+
+    String line() {
+        return this.line.toString();
+    }
+
+    boolean tooLong() {
+        return this.tooLong;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.tms.services;
+
+import ru.tms.dto.ImportResult;
+
+import java.io.InputStream;
+
+public interface ImportService {
+
+    ImportResult importSubscriptions(InputStream input, ImportFormat format);
+}
@@ -0,0 +1,213 @@
+package ru.tms.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tms.dto.ImportReject;
+import ru.tms.dto.ImportResult;
+import ru.tms.dto.ImportedUser;
+import ru.tms.events.SubscriptionsImportedEvent;
+import ru.tms.repo.ImportStagingRepo;
+import ru.tms.repo.ImportStagingWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Реализация сервиса массового импорта пользователей и подписок.
+ * Вход читается построчно и сразу пишется через COPY в промежуточную таблицу, затем переносится
+ * в users и subscriptions двумя запросами INSERT ... ON CONFLICT DO NOTHING в одной транзакции.
+ */
+@Slf4j
+@Service
+public class ImportServiceImpl implements ImportService {
+
+    public static final int MAX_REPORTED_REJECTS = 100;
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+    public static final int MAX_NAME_LENGTH = 255;
+
+    private static final String CSV_HEADER = "username,subscription";
+
+    private final ImportStagingRepo importStagingRepo;
+    private final ObjectReader importedUserReader;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Конструктор класса ImportServiceImpl.
+     *
+     * @param importStagingRepo Репозиторий промежуточной таблицы импорта.
+     * @param objectMapper      Маппер для разбора строк NDJSON.
+     * @param eventPublisher    Публикатор события импорта для сброса кэшей.
+     */
+    public ImportServiceImpl(ImportStagingRepo importStagingRepo, ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher) {
+        this.importStagingRepo = importStagingRepo;
+        this.importedUserReader = objectMapper.readerFor(ImportedUser.class);
+        this.eventPublisher = eventPublisher;
+        log.info("ImportService initialized");
+    }
+
+    /**
+     * Импортирует пользователей и подписки. Существующие пользователи дополняются новыми подписками,
+     * существующие подписки не изменяются и попадают в отклоненные строки.
+     * Объем памяти не зависит от размера входа: в памяти держится одна строка и не более
+     * MAX_REPORTED_REJECTS отклоненных строк.
+     *
+     * @param input  Поток с содержимым файла в UTF-8.
+     * @param format Формат файла.
+     * @return ImportResult Количество созданных записей, отклоненные строки и скорость импорта.
+     */
+    @Override
+    @Transactional
+    public ImportResult importSubscriptions(InputStream input, ImportFormat format) {
+        long startedAt = System.nanoTime();
+        log.info("Starting {} import", format);
+        List<ImportReject> rejects = new ArrayList<>();
+        long rejectedCount = 0;
+        long linesRead = 0;
+        long rowsStaged;
+        long subscriptionRows = 0;
+        try (ImportStagingWriter writer = this.importStagingRepo.openWriter()) {
+            ImportLineReader lines = new ImportLineReader(
+                    new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), MAX_LINE_LENGTH);
+            while (lines.next()) {
+                linesRead++;
+                String line = lines.line();
+                if (!lines.tooLong() && (line.isBlank() || isCsvHeader(format, linesRead, line))) {
+                    continue;
+                }
+                try {
+                    if (lines.tooLong()) {
+                        throw new IllegalArgumentException("Line is longer than " + MAX_LINE_LENGTH + " characters");
+                    }
+                    ImportedUser user = format == ImportFormat.NDJSON ? parseNdjson(line) : parseCsv(line);
+                    validate(user);
+                    if (user.subscriptions().isEmpty()) {
+                        writer.write(linesRead, user.username(), null);
+                    }
+                    for (String subscriptionName : user.subscriptions()) {
+                        writer.write(linesRead, user.username(), subscriptionName);
+                        subscriptionRows++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    rejectedCount++;
+                    if (rejects.size() < MAX_REPORTED_REJECTS) {
+                        rejects.add(ImportReject.builder().line(linesRead).reason(e.getMessage()).build());
+                    }
+                }
+            }
+            rowsStaged = writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<ImportReject> duplicates = this.importStagingRepo.findDuplicateSubscriptions(MAX_REPORTED_REJECTS);
+        long usersCreated = this.importStagingRepo.mergeUsers();
+        long subscriptionsCreated = this.importStagingRepo.mergeSubscriptions();
+        rejectedCount += subscriptionRows - subscriptionsCreated;
+        this.eventPublisher.publishEvent(new SubscriptionsImportedEvent(usersCreated, subscriptionsCreated));
+        rejects.addAll(duplicates);
+        rejects.sort(Comparator.comparingLong(ImportReject::line));
+        List<ImportReject> reportedRejects = rejects.size() > MAX_REPORTED_REJECTS
+                ? List.copyOf(rejects.subList(0, MAX_REPORTED_REJECTS))
+                : Collections.unmodifiableList(rejects);
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        ImportResult result = ImportResult.builder()
+                .linesRead(linesRead)
+                .rowsStaged(rowsStaged)
+                .usersCreated(usersCreated)
+                .subscriptionsCreated(subscriptionsCreated)
+                .rejectedCount(rejectedCount)
+                .rejects(reportedRejects)
+                .elapsedMillis(elapsedMillis)
+                .linesPerSecond(linesRead * 1000 / Math.max(elapsedMillis, 1))
+                .build();
+        log.info("Imported {} lines: {} users and {} subscriptions created, {} rejected in {} ms",
+                linesRead, usersCreated, subscriptionsCreated, rejectedCount, elapsedMillis);
+        return result;
+    }
+
+    private static boolean isCsvHeader(ImportFormat format, long lineNumber, String line) {
+        return format == ImportFormat.CSV && lineNumber == 1 && CSV_HEADER.equalsIgnoreCase(line.strip());
+    }
+
+    private ImportedUser parseNdjson(String line) {
+        ImportedUser user;
+        try {
+            user = this.importedUserReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (user == null) {
+            throw new IllegalArgumentException("Line must be a JSON object");
+        }
+        return user.subscriptions() == null ? new ImportedUser(user.username(), List.of()) : user;
+    }
+
+    private static ImportedUser parseCsv(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        if (fields.size() > 2) {
+            throw new IllegalArgumentException("Expected columns username[,subscription], got " + fields.size() + " columns");
+        }
+        String username = fields.get(0).strip();
+        return fields.size() == 1 || fields.get(1).isBlank()
+                ? new ImportedUser(username, List.of())
+                : new ImportedUser(username, List.of(fields.get(1).strip()));
+    }
+
+    private static void validate(ImportedUser user) {
+        if (user.username() == null || user.username().isBlank()) {
+            throw new IllegalArgumentException("Field username cannot be blank");
+        }
+        if (user.username().length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Field username is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        for (String subscriptionName : user.subscriptions()) {
+            if (subscriptionName == null || subscriptionName.isBlank()) {
+                throw new IllegalArgumentException("Subscription name cannot be blank");
+            }
+            if (subscriptionName.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Subscription name is longer than " + MAX_NAME_LENGTH + " characters");
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.tms.services;
+
+import ru.tms.dto.Subscription;
+import ru.tms.repo.SubscriptionListStamp;
+
+import java.util.List;
+
+/**
+ * Сильный ETag списка подписок пользователя.
+ * <p>
+ * Подписки не изменяются, только создаются и удаляются, а id новых подписок растут, поэтому список
+ * определяется набором id. ETag строится из количества, наибольшего id и XOR всех id: одно и то же значение
+ * считается по отданному списку (в том числе из кэша) и одним агрегатным запросом по индексу без чтения строк.
+ *
+ * @param count  Количество подписок.
+ * @param maxId  Наибольший id или 0 для пустого списка.
+ * @param idsXor XOR всех id или 0 для пустого списка.
+ */
+public record SubscriptionListETag(long count, long maxId, long idsXor) {
+
+    public static SubscriptionListETag of(List<Subscription> subscriptions) {
+        long maxId = 0;
+        long idsXor = 0;
+        for (Subscription subscription : subscriptions) {
+            maxId = Math.max(maxId, subscription.id());
+            idsXor ^= subscription.id();
+        }
+        return new SubscriptionListETag(subscriptions.size(), maxId, idsXor);
+    }
+
+    static SubscriptionListETag of(SubscriptionListStamp stamp) {
+        return new SubscriptionListETag(stamp.getCount(), stamp.getMaxId(), stamp.getIdsXor());
+    }
+
+    public String value() {
+        return "\"" + count + "-" + maxId + "-" + Long.toHexString(idsXor) + "\"";
+    }
+}
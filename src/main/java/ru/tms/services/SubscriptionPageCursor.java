@@ -0,0 +1,69 @@
+package ru.tms.services;
+
+import ru.tms.exceptions.InvalidElementDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор постраничной выдачи подписок: ключ сортировки последней отданной подписки.
+ * Клиенту передается в виде непрозрачной base64url-строки.
+ *
+ * @param sort      Сортировка, для которой выдан курсор.
+ * @param id        ID последней подписки на странице.
+ * @param name      Имя последней подписки (для сортировки по name).
+ * @param createdAt Время создания последней подписки (для сортировки по created_at).
+ */
+record SubscriptionPageCursor(Sort sort, long id, String name, LocalDateTime createdAt) {
+
+    enum Sort {
+        NAME("name"),
+        CREATED_AT("created_at");
+
+        private final String parameter;
+
+        Sort(String parameter) {
+            this.parameter = parameter;
+        }
+
+        static Sort fromParameter(String parameter) {
+            for (Sort sort : values()) {
+                if (sort.parameter.equals(parameter)) {
+                    return sort;
+                }
+            }
+            throw new InvalidElementDataException("Parameter sort must be name or created_at, got " + parameter);
+        }
+    }
+
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        String key = sort == Sort.NAME ? name : createdAt.toString();
+        String raw = sort.parameter + SEPARATOR + id + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор и проверяет, что он выдан для той же сортировки.
+     *
+     * @throws InvalidElementDataException Если курсор поврежден или выдан для другой сортировки.
+     */
+    static SubscriptionPageCursor decode(String cursor, Sort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length == 3 && expectedSort.parameter.equals(parts[0])) {
+                long id = Long.parseLong(parts[1]);
+                return expectedSort == Sort.NAME
+                        ? new SubscriptionPageCursor(expectedSort, id, parts[2], null)
+                        : new SubscriptionPageCursor(expectedSort, id, null, LocalDateTime.parse(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // обрабатывается ниже как некорректный курсор
+        }
+        throw new InvalidElementDataException("Parameter cursor is malformed or was issued for another sort order");
+    }
+}
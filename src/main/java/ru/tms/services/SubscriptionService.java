@@ -1,6 +1,9 @@
 package ru.tms.services;
 
+import ru.tms.dto.ApproximateTopSubscriptions;
 import ru.tms.dto.Subscription;
+import ru.tms.dto.SubscriptionPage;
+import ru.tms.dto.UserSubscriptionsBatch;
 import ru.tms.entity.SubscriptionEntity;
 import ru.tms.entity.UserEntity;
 
@@ -15,9 +18,27 @@ public interface SubscriptionService {
 
     List<Subscription> getSubscriptionsByUserId(Long userId);
 
+    UserSubscriptionsBatch getSubscriptionsByUserIds(List<Long> userIds);
+
+    String getSubscriptionsETagByUserId(Long userId);
+
+    SubscriptionPage getSubscriptionsPageByUserId(Long userId, int limit, String sort, String cursor);
+
     List<String> findTopThreeSubscriptions();
 
+    List<String> findTopSubscriptions(int limit);
+
+    List<String> findTrendingSubscriptions(String window, int limit);
+
+    ApproximateTopSubscriptions findApproximateTopSubscriptions(int limit);
+
+    byte[] getTopSubscriptionsSketch();
+
+    void mergeTopSubscriptionsSketch(byte[] sketch);
+
     Subscription createSubscription(Subscription subscription, Long userId);
 
     void deleteSubscription(Long userId, Long subscriptionId);
+
+    List<Long> deleteSubscriptions(Long userId, List<Long> subscriptionIds);
 }
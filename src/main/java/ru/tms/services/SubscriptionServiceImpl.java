@@ -1,44 +1,91 @@
 package ru.tms.services;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DuplicateKeyException;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.servlet.View;
+import ru.tms.cache.SubscriptionCatalog;
+import ru.tms.cache.SubscriptionListCache;
+import ru.tms.dto.ApproximateTopSubscriptions;
 import ru.tms.dto.Subscription;
+import ru.tms.dto.SubscriptionPage;
+import ru.tms.dto.User;
+import ru.tms.dto.UserBatch;
+import ru.tms.dto.UserSubscriptions;
+import ru.tms.dto.UserSubscriptionsBatch;
 import ru.tms.entity.SubscriptionEntity;
 import ru.tms.entity.UserEntity;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.events.SubscriptionDeletedEvent;
 import ru.tms.exceptions.InvalidElementDataException;
-import ru.tms.mappers.SubscriptionMapper;
+import ru.tms.repo.SubscriptionCatalogEntry;
+import ru.tms.repo.SubscriptionInsertResult;
 import ru.tms.repo.SubscriptionRepo;
+import ru.tms.repo.SubscriptionRow;
+import ru.tms.sketch.SubscriptionHeavyHitters;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Реализация сервиса для управления подписками.
  */
 @Slf4j
 @Service
+@Timed(value = "service.invocations", histogram = true)
 public class SubscriptionServiceImpl implements SubscriptionService {
 
+    public static final int MAX_TOP_LIMIT = 100;
+    public static final int MAX_PAGE_LIMIT = 500;
+    public static final int MAX_TRENDING_WINDOW_HOURS = 30 * 24;
+    public static final int MAX_DELETE_BATCH_SIZE = 1000;
+    private static final Pattern TRENDING_WINDOW_PATTERN = Pattern.compile("(\\d{1,4})([hd])");
+
     private final SubscriptionRepo subscriptionRepo;
-    private final SubscriptionMapper subscriptionMapper;
-    private final UserServiceImpl userServiceImpl;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SubscriptionHeavyHitters subscriptionHeavyHitters;
+    private final SubscriptionListCache subscriptionListCache;
+    private final SubscriptionCatalog subscriptionCatalog;
+    private final UserService userService;
+    private final SubscriptionWriteCoalescer subscriptionWriteCoalescer;
 
     /**
      * Конструктор класса SubscriptionServiceImpl.
      *
      * @param subscriptionRepo Репозиторий для работы с подписками.
-     * @param subscriptionMapper Маппер для преобразования между Subscription и SubscriptionEntity.
-     * @param userServiceImpl Сервис для работы с пользователями.
+     * @param eventPublisher Публикатор событий создания и удаления подписок.
+     * @param subscriptionHeavyHitters Приближенный топ подписок в памяти.
+     * @param subscriptionListCache Кэш списков подписок пользователей.
+     * @param subscriptionCatalog Словарь имен подписок.
+     * @param userService Сервис пользователей для проверки существования пользователей при пакетном чтении.
+     * @param subscriptionWriteCoalescer Объединение одновременных созданий подписок в пачки, если включено.
      */
-    public SubscriptionServiceImpl(SubscriptionRepo subscriptionRepo, SubscriptionMapper subscriptionMapper, UserServiceImpl userServiceImpl, View error) {
+    public SubscriptionServiceImpl(SubscriptionRepo subscriptionRepo,
+                                   View error,
+                                   ApplicationEventPublisher eventPublisher,
+                                   SubscriptionHeavyHitters subscriptionHeavyHitters,
+                                   SubscriptionListCache subscriptionListCache,
+                                   SubscriptionCatalog subscriptionCatalog,
+                                   UserService userService,
+                                   SubscriptionWriteCoalescer subscriptionWriteCoalescer) {
         this.subscriptionRepo = subscriptionRepo;
-        this.subscriptionMapper = subscriptionMapper;
-        this.userServiceImpl = userServiceImpl;
+        this.eventPublisher = eventPublisher;
+        this.subscriptionHeavyHitters = subscriptionHeavyHitters;
+        this.subscriptionListCache = subscriptionListCache;
+        this.subscriptionCatalog = subscriptionCatalog;
+        this.userService = userService;
+        this.subscriptionWriteCoalescer = subscriptionWriteCoalescer;
         log.info("SubscriptionServiceImpl initialized");
     }
 
@@ -50,36 +97,158 @@ public class SubscriptionServiceImpl implements SubscriptionService {
      * @throws NoSuchElementException Если подписка с указанным ID не найдена.
      */
     @Override
+    @Transactional(readOnly = true)
     public SubscriptionEntity getSubscriptionById(Long subscriptionId) {
         log.debug("Fetching subscription by id {}", subscriptionId);
-        return this.subscriptionRepo.findById(subscriptionId)
+        SubscriptionEntity subscriptionEntity = this.subscriptionRepo.findById(subscriptionId)
                 .orElseThrow(()->new NoSuchElementException("Subscription with id " + subscriptionId + " not found."));
+        this.subscriptionCatalog.decode(subscriptionEntity);
+        return subscriptionEntity;
     }
 
     /**
-     * Получает подписку по имени и пользователю.
+     * Получает подписку по имени и пользователю. Имена сравниваются без учета регистра и пробелов по краям.
      *
      * @param name Имя подписки.
      * @param userEntity Пользователь, которому принадлежит подписка.
      * @return Optional<SubscriptionEntity> Подписка, найденная по имени и пользователю, или Optional.empty(), если подписка не найдена.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<SubscriptionEntity> getSubscriptionByUserIdAndName(String name, UserEntity userEntity) {
         log.debug("Searching for subscription named {} under user {}", name, userEntity.getUsername());
-        return this.subscriptionRepo.findByNameAndUser(name, userEntity);
+        Optional<SubscriptionEntity> subscriptionEntity = this.subscriptionCatalog.findId(name)
+                .flatMap(catalogId -> this.subscriptionRepo.findByCatalogIdAndUser(catalogId, userEntity));
+        subscriptionEntity.ifPresent(this.subscriptionCatalog::decode);
+        return subscriptionEntity;
     }
 
     /**
-     * Получает список подписок по ID пользователя.
+     * Получает список подписок по ID пользователя через кэш списков подписок.
      *
      * @param userId ID пользователя.
      * @return List<Subscription> Список подписок пользователя.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Subscription> getSubscriptionsByUserId(Long userId) {
+        return this.subscriptionListCache.get(userId, this::loadSubscriptionsByUserId);
+    }
+
+    /**
+     * Получает подписки нескольких пользователей через кэши пользователей и списков подписок.
+     * Недостающее в кэшах читается одним запросом ... = ANY(?) на таблицу, в одной транзакции.
+     *
+     * @param userIds ID пользователей (от 1 до {@value UserServiceImpl#MAX_GET_BATCH_SIZE});
+     *                повторы учитываются один раз.
+     * @return UserSubscriptionsBatch Подписки найденных пользователей в порядке запроса и ID, которых нет в БД.
+     * @throws InvalidElementDataException Если список ID пуст, слишком велик или содержит пустые ID.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserSubscriptionsBatch getSubscriptionsByUserIds(List<Long> userIds) {
+        UserBatch userBatch = this.userService.getUsersByIds(userIds);
+        List<Long> foundIds = userBatch.users().stream().map(User::id).toList();
+        Map<Long, List<Subscription>> subscriptions = foundIds.isEmpty()
+                ? Map.of() : this.subscriptionListCache.getAll(foundIds, this::loadSubscriptionsByUserIds);
+        List<UserSubscriptions> users = new ArrayList<>(foundIds.size());
+        for (Long userId : foundIds) {
+            users.add(UserSubscriptions.builder()
+                    .user(userId)
+                    .subscriptions(subscriptions.getOrDefault(userId, List.of()))
+                    .build());
+        }
+        return UserSubscriptionsBatch.builder()
+                .users(users)
+                .missingIds(userBatch.missingIds())
+                .build();
+    }
+
+    /**
+     * Читает подписки пользователей одним запросом и раскладывает по пользователям;
+     * пользователь без подписок получает пустой список.
+     */
+    private Map<Long, List<Subscription>> loadSubscriptionsByUserIds(Set<Long> userIds) {
+        log.debug("Fetching subscriptions of {} users", userIds.size());
+        Map<Long, List<Subscription>> subscriptions = new HashMap<>();
+        userIds.forEach(userId -> subscriptions.put(userId, new ArrayList<>()));
+        for (Subscription subscription : this.subscriptionCatalog.toSubscriptions(
+                this.subscriptionRepo.findRowsByUserIds(userIds))) {
+            subscriptions.get(subscription.user()).add(subscription);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Получает ETag списка подписок пользователя, не загружая сами подписки из БД.
+     * Если список есть в кэше, ETag считается по нему, иначе одним агрегатным запросом.
+     *
+     * @param userId ID пользователя.
+     * @return String ETag, совпадающий с ETag списка из {@link #getSubscriptionsByUserId(Long)} в том же состоянии.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getSubscriptionsETagByUserId(Long userId) {
+        if (this.subscriptionListCache.isEnabled()) {
+            return SubscriptionListETag.of(getSubscriptionsByUserId(userId)).value();
+        }
+        log.debug("Fetching subscription list stamp by userId {}", userId);
+        return SubscriptionListETag.of(this.subscriptionRepo.findListStampByUserId(userId)).value();
+    }
+
+    /**
+     * Читает подписки проекцией прямо в строки, без сущностей и их снимков для проверки изменений.
+     */
+    private List<Subscription> loadSubscriptionsByUserId(Long userId) {
         log.debug("Fetching subscriptions by userId {}", userId);
-        List<SubscriptionEntity> subscriptionEntities = this.subscriptionRepo.findByUserId(userId);
-        return subscriptionMapper.toDto(subscriptionEntities);
+        return this.subscriptionCatalog.toSubscriptions(this.subscriptionRepo.findRowsByUserId(userId));
+    }
+
+    /**
+     * Получает страницу подписок пользователя с пагинацией по ключу (keyset).
+     * Страница по created_at читается одним диапазоном индекса (user_id, created_at, id),
+     * страница по имени - подписками пользователя, упорядоченными по имени из справочника.
+     *
+     * @param userId ID пользователя.
+     * @param limit  Размер страницы (от 1 до {@value #MAX_PAGE_LIMIT}).
+     * @param sort   Сортировка: name или created_at.
+     * @param cursor Курсор из предыдущей страницы или null для первой страницы.
+     * @return SubscriptionPage Страница подписок и курсор следующей страницы.
+     * @throws InvalidElementDataException Если параметры страницы некорректны.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SubscriptionPage getSubscriptionsPageByUserId(Long userId, int limit, String sort, String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter limit must be between 1 and %d, got %d", MAX_PAGE_LIMIT, limit));
+        }
+        SubscriptionPageCursor.Sort pageSort = SubscriptionPageCursor.Sort.fromParameter(sort);
+        SubscriptionPageCursor after = cursor == null || cursor.isEmpty()
+                ? null : SubscriptionPageCursor.decode(cursor, pageSort);
+        log.debug("Fetching page of {} subscriptions by userId {} sorted by {}", limit, userId, sort);
+        List<SubscriptionRow> rows = switch (pageSort) {
+            case NAME -> subscriptionRepo.findRowsPageByUserIdOrderByName(userId,
+                    after == null ? null : after.name(), limit + 1);
+            case CREATED_AT -> after == null
+                    ? subscriptionRepo.findFirstPageByUserIdOrderByCreatedAt(userId, limit + 1)
+                    : subscriptionRepo.findPageByUserIdOrderByCreatedAt(userId, after.createdAt(), after.id(), limit + 1);
+        };
+        boolean hasNextPage = rows.size() > limit;
+        if (hasNextPage) {
+            rows = rows.subList(0, limit);
+        }
+        List<Subscription> items = this.subscriptionCatalog.toSubscriptions(rows);
+        String nextCursor = null;
+        if (hasNextPage) {
+            SubscriptionRow last = rows.get(limit - 1);
+            nextCursor = new SubscriptionPageCursor(pageSort, last.id(), items.get(limit - 1).name(), last.createdAt())
+                    .encode();
+        }
+        return SubscriptionPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     /**
@@ -88,57 +257,205 @@ public class SubscriptionServiceImpl implements SubscriptionService {
      * @return List<String> Список имен трех самых популярных подписок.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<String> findTopThreeSubscriptions() {
         log.debug("Fetching top three subscription");
         return subscriptionRepo.findTopThreeSubscriptions();
     }
 
     /**
-     * Создает новую подписку для пользователя.
+     * Получает список самых популярных подписок.
+     * Читает только индекс по счетчикам subscription_name_counts, поэтому стоимость зависит от limit,
+     * а не от размера таблицы подписок.
+     *
+     * @param limit Количество подписок в результате (от 1 до {@value #MAX_TOP_LIMIT}).
+     * @return List<String> Список имен самых популярных подписок, отсортированный по имени.
+     * @throws InvalidElementDataException Если limit вне допустимого диапазона.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findTopSubscriptions(int limit) {
+        if (limit < 1 || limit > MAX_TOP_LIMIT) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter limit must be between 1 and %d, got %d", MAX_TOP_LIMIT, limit));
+        }
+        log.debug("Fetching top {} subscriptions", limit);
+        return subscriptionRepo.findTopSubscriptions(limit);
+    }
+
+    /**
+     * Получает список самых популярных подписок, созданных за последнее окно времени.
+     * Суммирует только корзины, попадающие в окно; граница окна округляется вниз до границы корзины.
+     *
+     * @param window Окно в формате {@code <число>h} или {@code <число>d}, например 1h, 24h, 7d.
+     * @param limit  Количество подписок в результате (от 1 до {@value #MAX_TOP_LIMIT}).
+     * @return List<String> Список имен подписок по убыванию количества созданий за окно.
+     * @throws InvalidElementDataException Если окно или limit заданы некорректно.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findTrendingSubscriptions(String window, int limit) {
+        if (limit < 1 || limit > MAX_TOP_LIMIT) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter limit must be between 1 and %d, got %d", MAX_TOP_LIMIT, limit));
+        }
+        int hours = parseWindowHours(window);
+        log.debug("Fetching top {} subscriptions trending for the last {} hours", limit, hours);
+        return subscriptionRepo.findTrendingSubscriptions(hours, limit);
+    }
+
+    /**
+     * Получает приближенный топ подписок из скетча в памяти, без обращения к БД.
+     *
+     * @param limit Количество подписок в результате (от 1 до {@value #MAX_TOP_LIMIT}).
+     * @return ApproximateTopSubscriptions Оценки по убыванию количества и границы ошибки оценок.
+     * @throws InvalidElementDataException Если limit вне допустимого диапазона.
+     */
+    @Override
+    public ApproximateTopSubscriptions findApproximateTopSubscriptions(int limit) {
+        if (limit < 1 || limit > MAX_TOP_LIMIT) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter limit must be between 1 and %d, got %d", MAX_TOP_LIMIT, limit));
+        }
+        log.debug("Estimating top {} subscriptions", limit);
+        return subscriptionHeavyHitters.top(limit);
+    }
+
+    /**
+     * Получает бинарный скетч изменений подписок, накопленных этим узлом.
+     *
+     * @return byte[] Скетч для слияния на других узлах.
+     */
+    @Override
+    public byte[] getTopSubscriptionsSketch() {
+        return subscriptionHeavyHitters.localSketch();
+    }
+
+    /**
+     * Сливает скетч другого узла с приближенным топом этого узла: скетч заменяет полученный от того же узла ранее,
+     * поэтому повторное слияние ничего не меняет.
+     *
+     * @param sketch Скетч, полученный через {@link #getTopSubscriptionsSketch()} на другом узле.
+     * @throws InvalidElementDataException Если скетч поврежден или несовместим.
+     */
+    @Override
+    public void mergeTopSubscriptionsSketch(byte[] sketch) {
+        try {
+            if (subscriptionHeavyHitters.mergePeerSketch(sketch)) {
+                log.info("Merged peer subscription sketch of {} bytes", sketch.length);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidElementDataException("Invalid subscription sketch: " + e.getMessage());
+        }
+    }
+
+    private int parseWindowHours(String window) {
+        Matcher matcher = window == null ? null : TRENDING_WINDOW_PATTERN.matcher(window);
+        if (matcher == null || !matcher.matches()) {
+            throw new InvalidElementDataException("Parameter window must look like 1h, 24h or 7d, got " + window);
+        }
+        long hours = Long.parseLong(matcher.group(1)) * ("d".equals(matcher.group(2)) ? 24 : 1);
+        if (hours < 1 || hours > MAX_TRENDING_WINDOW_HOURS) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter window must be between 1h and %dd, got %s",
+                            MAX_TRENDING_WINDOW_HOURS / 24, window));
+        }
+        return (int) hours;
+    }
+
+    /**
+     * Создает новую подписку для пользователя одним запросом: проверка пользователя и вставка
+     * с ON CONFLICT DO NOTHING выполняются в одном SQL-выражении. Имя переводится в id справочника через словарь,
+     * подписка и ответ получают написание имени из справочника. При включенном
+     * {@link SubscriptionWriteCoalescer} вставка записывается в пачке с одновременными созданиями.
      *
      * @param subscription DTO с данными подписки.
      * @param userId ID пользователя, для которого создается подписка.
      * @return Subscription DTO созданной подписки.
-     * @throws InvalidElementDataException Если данные подписки невалидны.
-     * @throws DuplicateKeyException Если подписка с указанным именем уже существует для данного пользователя.
+     * @throws InvalidElementDataException Если данные подписки невалидны или подписка с указанным именем
+     *                                     уже существует для данного пользователя.
+     * @throws NoSuchElementException Если пользователь с указанным ID не найден.
      */
     @Override
     public Subscription createSubscription(Subscription subscription, Long userId) {
-        UserEntity userEntity = userServiceImpl.getUserById(userId);
-        if (subscription == null || subscription.name() == null || subscription.name().isEmpty()) {
+        if (subscription == null || subscription.name() == null || subscription.name().isBlank()) {
             throw new InvalidElementDataException("Subscription.name cannot be empty or missing");
-        } else if (getSubscriptionByUserIdAndName(subscription.name(), userEntity).isPresent()) {
-            throw new InvalidElementDataException(
-                    String.format("Attempted duplicate subscription creation for user %s: %s",
-                            userEntity.getUsername(), subscription.name()));
         }
-        SubscriptionEntity subscriptionEntity = new SubscriptionEntity(subscription.name(), userEntity);
+        SubscriptionCatalogEntry catalogEntry = subscriptionCatalog.resolve(subscription.name());
+        SubscriptionInsertResult result;
         try {
-            subscriptionRepo.save(subscriptionEntity);
-            log.info("Created new subscription with name {}", subscription.name());
-            return subscriptionMapper.toDto(subscriptionEntity);
-        } catch (DuplicateKeyException e) {
-            throw new DuplicateKeyException("Subscription already exists", e);
+            result = subscriptionWriteCoalescer.isEnabled()
+                    ? subscriptionWriteCoalescer.insertIfAbsent(userId, catalogEntry.id())
+                    : subscriptionRepo.insertIfAbsent(userId, catalogEntry.id());
+        } catch (DataIntegrityViolationException e) {
+            // Пользователь удален между проверкой в запросе и проверкой внешнего ключа
+            if (isForeignKeyViolation(e)) {
+                throw userNotFound(userId);
+            }
+            throw e;
+        }
+        if (!result.userFound()) {
+            throw userNotFound(userId);
+        } else if (!result.created()) {
+            throw new InvalidElementDataException(
+                    String.format("Attempted duplicate subscription creation for user %s: %s",
+                            userId, subscription.name()));
         }
+        eventPublisher.publishEvent(new SubscriptionCreatedEvent(userId, result.subscriptionId(), catalogEntry.name()));
+        log.info("Created new subscription with name {}", catalogEntry.name());
+        return Subscription.builder()
+                .id(result.subscriptionId())
+                .name(catalogEntry.name())
+                .user(userId)
+                .build();
+    }
+
+    private static NoSuchElementException userNotFound(Long userId) {
+        String errorMessage = "User not found with id: " + userId;
+        log.error(errorMessage);
+        return new NoSuchElementException(errorMessage);
+    }
+
+    private static boolean isForeignKeyViolation(DataIntegrityViolationException e) {
+        return e.getMostSpecificCause() instanceof SQLException sqlException
+                && "23503".equals(sqlException.getSQLState());
     }
 
     /**
-     * Удаляет подписку пользователя.
+     * Удаляет подписку пользователя одним запросом DELETE ... WHERE user_id = ? AND id = ?,
+     * без предварительной загрузки подписки.
      *
      * @param userId ID пользователя.
      * @param subscriptionId ID подписки.
-     * @throws OptimisticLockingFailureException Если не удалось удалить подписку из-за конкурентного изменения.
+     * @throws NoSuchElementException Если у пользователя нет подписки с указанным ID.
      */
     @Override
-    @Transactional
     public void deleteSubscription(Long userId, Long subscriptionId) {
-        try {
-            SubscriptionEntity subscriptionEntity = this.getSubscriptionById(subscriptionId);
-            subscriptionRepo.deleteByUserIdAndId(userId, subscriptionEntity.getId());
-            log.info("Deleted subscription with userId {} and subscriptionId {}", userId, subscriptionId);
-        } catch (OptimisticLockingFailureException e) {
-            throw new OptimisticLockingFailureException("Failed to delete subscription due to concurrent modification"
-                    , e);
+        String name = subscriptionRepo.deleteByUserIdAndId(userId, subscriptionId)
+                .orElseThrow(() -> new NoSuchElementException(
+                        "Subscription with id " + subscriptionId + " not found for user " + userId));
+        eventPublisher.publishEvent(new SubscriptionDeletedEvent(userId, subscriptionId, name));
+        log.info("Deleted subscription with userId {} and subscriptionId {}", userId, subscriptionId);
+    }
+
+    /**
+     * Удаляет несколько подписок пользователя одним запросом DELETE ... WHERE id = ANY(?).
+     *
+     * @param userId ID пользователя.
+     * @param subscriptionIds ID подписок (от 1 до {@value #MAX_DELETE_BATCH_SIZE}).
+     * @return List<Long> ID удаленных подписок; чужие и отсутствующие ID пропускаются.
+     * @throws InvalidElementDataException Если список ID пуст или слишком велик.
+     */
+    @Override
+    public List<Long> deleteSubscriptions(Long userId, List<Long> subscriptionIds) {
+        if (subscriptionIds == null || subscriptionIds.isEmpty() || subscriptionIds.size() > MAX_DELETE_BATCH_SIZE) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter ids must contain between 1 and %d ids", MAX_DELETE_BATCH_SIZE));
         }
+        List<Subscription> deleted = subscriptionRepo.deleteByUserIdAndIds(userId, subscriptionIds);
+        deleted.forEach(subscription -> eventPublisher.publishEvent(
+                new SubscriptionDeletedEvent(userId, subscription.id(), subscription.name())));
+        log.info("Deleted {} of {} subscriptions for userId {}", deleted.size(), subscriptionIds.size(), userId);
+        return deleted.stream().map(Subscription::id).toList();
     }
 }
@@ -0,0 +1,286 @@
+package ru.tms.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.tms.config.SubscriptionWriteCoalescerProperties;
+import ru.tms.repo.SubscriptionBatchInsertRow;
+import ru.tms.repo.SubscriptionInsertResult;
+import ru.tms.repo.SubscriptionRepo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Объединяет одновременные создания подписок в пачки: создания, пришедшие в течение maxDelay от первого
+ * (или до maxBatchSize), записывает один поток одним многострочным INSERT ... ON CONFLICT ... RETURNING,
+ * то есть одной фиксацией вместо фиксации на каждое создание.
+ * <p>
+ * Каждый вызывающий получает свой результат: id созданной подписки, признак дубликата или отсутствия
+ * пользователя. Повтор той же пары (пользователь, имя) внутри пачки получает дубликат. Если запрос пачки
+ * завершился ошибкой (например, пользователя удалили между проверкой и вставкой), создания пачки
+ * записываются по одному, и ошибку получают только те, кого она касается. При заполненной очереди
+ * и после остановки создание выполняется отдельным запросом в потоке вызывающего.
+ */
+@Slf4j
+@Component
+public class SubscriptionWriteCoalescer {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final SubscriptionRepo subscriptionRepo;
+    private final BlockingQueue<Request> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final DistributionSummary batchSize;
+    private final Timer queueDelay;
+    private final Counter bypassed;
+    private final Thread worker;
+    private volatile boolean running;
+
+    public SubscriptionWriteCoalescer(SubscriptionWriteCoalescerProperties properties,
+                                      SubscriptionRepo subscriptionRepo, MeterRegistry meterRegistry) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.maxBatchSize = properties.maxBatchSize();
+        this.maxDelayNanos = properties.maxDelay().toNanos();
+        if (!properties.enabled()) {
+            this.queue = null;
+            this.batchSize = null;
+            this.queueDelay = null;
+            this.bypassed = null;
+            this.worker = null;
+            log.info("SubscriptionWriteCoalescer initialized, enabled: false");
+            return;
+        }
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.batchSize = DistributionSummary.builder("subscription.write.coalescer.batch.size")
+                .description("Subscription creates written by one coalesced statement")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueDelay = Timer.builder("subscription.write.coalescer.queue.delay")
+                .description("Time a subscription create waits in the queue before its batch is written")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.bypassed = Counter.builder("subscription.write.coalescer.bypassed")
+                .description("Subscription creates written alone because the queue was full or stopped")
+                .register(meterRegistry);
+        Gauge.builder("subscription.write.coalescer.queue.size", this.queue, Collection::size)
+                .description("Subscription creates waiting to be written")
+                .register(meterRegistry);
+        this.running = true;
+        this.worker = Thread.ofPlatform()
+                .name("subscription-write-coalescer")
+                .daemon(true)
+                .start(this::run);
+        log.info("SubscriptionWriteCoalescer initialized, enabled: true, max batch size {}, max delay {}",
+                this.maxBatchSize, properties.maxDelay());
+    }
+
+    public boolean isEnabled() {
+        return this.queue != null;
+    }
+
+    /**
+     * Ставит создание подписки в очередь.
+     *
+     * @param userId    ID пользователя.
+     * @param catalogId ID имени подписки в справочнике.
+     * @return Результат вставки, как у {@link SubscriptionRepo#insertIfAbsent(Long, Integer)}; завершается
+     * с ошибкой, если запись не удалась.
+     */
+    public CompletableFuture<SubscriptionInsertResult> submit(Long userId, Integer catalogId) {
+        if (this.queue == null) {
+            return insertAlone(userId, catalogId);
+        }
+        Request request = new Request(userId, catalogId, System.nanoTime(), new CompletableFuture<>());
+        if (!this.running || !this.queue.offer(request)) {
+            this.bypassed.increment();
+            return insertAlone(userId, catalogId);
+        }
+        // Остановка могла забрать остаток очереди раньше, чем сюда попал этот запрос
+        if (!this.running && this.queue.remove(request)) {
+            this.bypassed.increment();
+            return insertAlone(userId, catalogId);
+        }
+        return request.result();
+    }
+
+    /**
+     * Ставит создание подписки в очередь и ждет результата.
+     *
+     * @see #submit(Long, Integer)
+     */
+    public SubscriptionInsertResult insertIfAbsent(Long userId, Integer catalogId) {
+        try {
+            return submit(userId, catalogId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Новые создания больше не ставятся в очередь; уже поставленные дописываются. Остаток очереди
+     * дописывается здесь только после выхода потока записи, чтобы не писать одновременно с ним.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (this.worker == null) {
+            return;
+        }
+        this.running = false;
+        this.worker.join(STOP_TIMEOUT);
+        if (this.worker.isAlive()) {
+            // Поток пишет пачку дольше STOP_TIMEOUT: после прерывания он дописывает собранное и выходит
+            this.worker.interrupt();
+            this.worker.join(STOP_TIMEOUT);
+        }
+        List<Request> batch = new ArrayList<>(this.maxBatchSize);
+        if (this.worker.isAlive()) {
+            log.warn("SubscriptionWriteCoalescer worker did not stop in {}, failing {} queued creates",
+                    STOP_TIMEOUT.multipliedBy(2), this.queue.size());
+            IllegalStateException stopped = new IllegalStateException("SubscriptionWriteCoalescer stopped");
+            while (this.queue.drainTo(batch, this.maxBatchSize) > 0) {
+                batch.forEach(request -> request.result().completeExceptionally(stopped));
+                batch.clear();
+            }
+            return;
+        }
+        while (this.queue.drainTo(batch, this.maxBatchSize) > 0) {
+            write(batch);
+        }
+        log.info("SubscriptionWriteCoalescer stopped");
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(this.maxBatchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                Request first = this.queue.poll(POLL_INTERVAL.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(first, batch);
+            } catch (InterruptedException e) {
+                // Собранная пачка дописывается до восстановления флага прерывания, остаток очереди допишет stop()
+                write(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            write(batch);
+        }
+    }
+
+    /**
+     * Добирает пачку до maxBatchSize, пока не истечет maxDelay от постановки первого создания в очередь.
+     * Пока пишется предыдущая пачка, очередь наполняется, и следующая пачка набирается без ожидания.
+     */
+    private void collect(Request first, List<Request> batch) throws InterruptedException {
+        long deadline = first.enqueuedAt() + this.maxDelayNanos;
+        while (batch.size() < this.maxBatchSize) {
+            this.queue.drainTo(batch, this.maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= this.maxBatchSize || remaining <= 0) {
+                return;
+            }
+            Request next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Request> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        for (Request request : batch) {
+            this.queueDelay.record(startedAt - request.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        this.batchSize.record(batch.size());
+        try {
+            complete(batch, this.subscriptionRepo.insertAllIfAbsent(
+                    batch.stream().map(Request::userId).toList(),
+                    batch.stream().map(Request::catalogId).toList()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+            } else {
+                log.warn("Coalesced insert of {} subscriptions failed, writing them one by one: {}",
+                        batch.size(), e.getMessage());
+                for (Request request : batch) {
+                    insertAlone(request.userId(), request.catalogId())
+                            .whenComplete((result, error) -> {
+                                if (error != null) {
+                                    request.result().completeExceptionally(error);
+                                } else {
+                                    request.result().complete(result);
+                                }
+                            });
+                }
+            }
+        } catch (Error e) {
+            batch.forEach(request -> request.result().completeExceptionally(e));
+            throw e;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Строки запроса пачки - по строке на найденного пользователя и по строке на вставленную подписку.
+     * Вставленный id отдается первому созданию с такой парой, повторы пары получают дубликат.
+     */
+    private static void complete(List<Request> batch, List<SubscriptionBatchInsertRow> rows) {
+        Set<Long> owners = new HashSet<>();
+        Map<Key, Long> inserted = new HashMap<>();
+        for (SubscriptionBatchInsertRow row : rows) {
+            owners.add(row.userId());
+            if (row.subscriptionId() != null) {
+                inserted.put(new Key(row.userId(), row.catalogId()), row.subscriptionId());
+            }
+        }
+        for (Request request : batch) {
+            boolean userFound = owners.contains(request.userId());
+            Long subscriptionId = userFound ? inserted.remove(new Key(request.userId(), request.catalogId())) : null;
+            request.result().complete(new SubscriptionInsertResult(userFound, subscriptionId));
+        }
+    }
+
+    private CompletableFuture<SubscriptionInsertResult> insertAlone(Long userId, Integer catalogId) {
+        try {
+            return CompletableFuture.completedFuture(this.subscriptionRepo.insertIfAbsent(userId, catalogId));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private record Request(Long userId, Integer catalogId, long enqueuedAt,
+                           CompletableFuture<SubscriptionInsertResult> result) {
+    }
+
+    private record Key(Long userId, Integer catalogId) {
+    }
+}
@@ -1,14 +1,18 @@
 package ru.tms.services;
 
 import ru.tms.dto.User;
+import ru.tms.dto.UserBatch;
 import ru.tms.entity.UserEntity;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserService {
 
     UserEntity getUserById(Long userId);
 
+    UserBatch getUsersByIds(List<Long> userIds);
+
     Optional<UserEntity> getUserByUsername(String username);
 
     User createUser(User user);
@@ -16,4 +20,6 @@ public interface UserService {
     User updateUser(Long userId, User user);
 
     void deleteUser(Long userId);
+
+    List<Long> deleteUsers(List<Long> userIds);
 }
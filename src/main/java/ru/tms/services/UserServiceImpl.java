@@ -1,49 +1,110 @@
 package ru.tms.services;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
-import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.tms.cache.UserCache;
 import ru.tms.dto.User;
+import ru.tms.dto.UserBatch;
 import ru.tms.entity.UserEntity;
+import ru.tms.events.UserDeletedEvent;
+import ru.tms.events.UserUpdatedEvent;
 import ru.tms.exceptions.InvalidElementDataException;
-import ru.tms.mappers.UserMapper;
 import ru.tms.repo.UserRepo;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Реализация сервиса для управления пользователями.
  */
 @Slf4j
 @Service
+@Timed(value = "service.invocations", histogram = true)
 public class UserServiceImpl implements UserService {
 
+    public static final int MAX_DELETE_BATCH_SIZE = 1000;
+    public static final int MAX_GET_BATCH_SIZE = 1000;
+
     private final UserRepo userRepo;
-    private final UserMapper userMapper;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Конструктор класса UserServiceImpl.
      *
-     * @param userRepo   Репозиторий для работы с пользователями.
-     * @param userMapper Маппер для преобразования между User и UserEntity.
+     * @param userRepo       Репозиторий для работы с пользователями.
+     * @param userCache      Кэш пользователей по id.
+     * @param eventPublisher Публикация событий изменения пользователей для сброса кэшей.
      */
-    public UserServiceImpl(UserRepo userRepo, UserMapper userMapper) {
+    public UserServiceImpl(UserRepo userRepo, UserCache userCache, ApplicationEventPublisher eventPublisher) {
         this.userRepo = userRepo;
-        this.userMapper = userMapper;
+        this.userCache = userCache;
+        this.eventPublisher = eventPublisher;
         log.info("UserService initialized");
     }
 
     /**
-     * Получает пользователя по его ID.
+     * Получает пользователя по его ID через кэш пользователей.
      *
      * @param userId ID пользователя.
      * @return UserEntity Пользователь, найденный по ID.
      * @throws NoSuchElementException Если пользователь с указанным ID не найден.
      */
     @Override
+    @Transactional(readOnly = true)
     public UserEntity getUserById(Long userId) {
+        return this.userCache.get(userId, this::loadUserById);
+    }
+
+    /**
+     * Получает нескольких пользователей через кэш пользователей. Недостающие в кэше загружаются
+     * одним запросом SELECT ... WHERE id = ANY(?).
+     *
+     * @param userIds ID пользователей (от 1 до {@value #MAX_GET_BATCH_SIZE}); повторы учитываются один раз.
+     * @return UserBatch Найденные пользователи в порядке запроса и ID, которых нет в БД.
+     * @throws InvalidElementDataException Если список ID пуст, слишком велик или содержит пустые ID.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserBatch getUsersByIds(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_GET_BATCH_SIZE
+                || userIds.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter ids must contain between 1 and %d ids", MAX_GET_BATCH_SIZE));
+        }
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        Map<Long, UserEntity> found = this.userCache.getAll(ids, this.userRepo::findByIds);
+        List<User> users = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long userId : ids) {
+            UserEntity userEntity = found.get(userId);
+            if (userEntity != null) {
+                users.add(User.builder().id(userEntity.getId()).username(userEntity.getUsername()).build());
+            } else {
+                missingIds.add(userId);
+            }
+        }
+        log.debug("Found {} of {} users", users.size(), ids.size());
+        return UserBatch.builder()
+                .users(users)
+                .missingIds(missingIds)
+                .build();
+    }
+
+    /**
+     * Загружает пользователя из БД в обход кэша, чтобы изменения шли по актуальной версии сущности.
+     */
+    private UserEntity loadUserById(Long userId) {
         log.debug("Fetching user by id {}", userId);
         return this.userRepo.findById(userId)
                 .orElseThrow(()-> {
@@ -60,80 +121,97 @@ public class UserServiceImpl implements UserService {
      * @return Optional<UserEntity> Пользователь, найденный по имени пользователя, или Optional.empty(), если пользователь не найден.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<UserEntity> getUserByUsername(String username) {
         log.debug("Fetching user by username {}", username);
         return this.userRepo.findByUsername(username);
     }
 
     /**
-     * Создает нового пользователя.
+     * Создает нового пользователя одним запросом INSERT ... ON CONFLICT DO NOTHING, без предварительной проверки имени.
      *
      * @param user DTO с данными пользователя.
      * @return User DTO созданного пользователя.
-     * @throws InvalidElementDataException Если данные пользователя невалидны (например, пустое имя пользователя).
-     * @throws DuplicateKeyException Если пользователь с указанным именем пользователя уже существует.
+     * @throws InvalidElementDataException Если данные пользователя невалидны (например, пустое имя пользователя)
+     *                                     или пользователь с указанным именем уже существует.
      */
     @Override
     public User createUser(User user) {
         if (user == null || user.username() == null || user.username().isEmpty()) {
             throw new InvalidElementDataException("Invalid data when trying to create a user: Username is empty or missing");
-        } else if (getUserByUsername(user.username()).isPresent()) {
-            throw new InvalidElementDataException("User with this username already exists");
-        }
-        try {
-            UserEntity userEntity = new UserEntity(user.username());
-            this.userRepo.save(userEntity);
-            log.info("Successfully created user with username {}", user.username());
-            return this.userMapper.toDto(userEntity);
-        } catch (DuplicateKeyException e) {
-            throw new DuplicateKeyException("Username already exists", e);
         }
+        User createdUser = this.userRepo.insertIfAbsent(user.username())
+                .orElseThrow(() -> new InvalidElementDataException("User with this username already exists"));
+        log.info("Successfully created user with username {}", user.username());
+        return createdUser;
     }
 
     /**
-     * Обновляет существующего пользователя.
+     * Обновляет существующего пользователя одним запросом UPDATE ... RETURNING. Занятость имени проверяет
+     * уникальный индекс, поэтому переименование пользователя в его же текущее имя не считается конфликтом.
      *
      * @param userId ID пользователя, которого нужно обновить.
      * @param user   DTO с новыми данными пользователя.
      * @return User DTO обновленного пользователя.
-     * @throws InvalidElementDataException Если данные пользователя невалидны (например, пустое имя пользователя).
-     * @throws DuplicateKeyException Если пользователь с указанным именем пользователя уже существует.
-     * @throws OptimisticLockingFailureException Если не удалось обновить пользователя из-за конкурентного изменения.
+     * @throws InvalidElementDataException Если данные пользователя невалидны (например, пустое имя пользователя)
+     *                                     или имя занято другим пользователем.
+     * @throws NoSuchElementException Если пользователь с указанным ID не найден.
      */
     @Override
     public User updateUser(Long userId, User user) {
         if (user == null || user.username() == null || user.username().isEmpty()) {
             throw new InvalidElementDataException("Invalid data when updating the user: Username is empty or missing");
-        } else if (this.getUserByUsername(user.username()).isPresent()) {
-            throw new InvalidElementDataException("User with this username already exists");
         }
+        User updatedUser;
         try {
-            UserEntity userEntity = this.getUserById(userId);
-            userEntity.setUsername(user.username());
-            this.userRepo.save(userEntity);
-            log.info("Updated user with id {}", userId);
-            return this.userMapper.toDto(userEntity);
-        } catch (OptimisticLockingFailureException e) {
-            throw new IllegalStateException("Failed to update user due to concurrent modification", e);
+            updatedUser = this.userRepo.updateUsername(userId, user.username())
+                    .orElseThrow(() -> {
+                        String errorMessage = "User not found with id: " + userId;
+                        log.error(errorMessage);
+                        return new NoSuchElementException(errorMessage);
+                    });
         } catch (DuplicateKeyException e) {
-            throw new DuplicateKeyException("Username already exists", e);
+            throw new InvalidElementDataException("User with this username already exists");
         }
+        this.eventPublisher.publishEvent(new UserUpdatedEvent(userId));
+        log.info("Updated user with id {}", userId);
+        return updatedUser;
     }
 
     /**
-     * Удаляет пользователя по его ID.
+     * Удаляет пользователя по его ID одним запросом DELETE без предварительной загрузки.
+     * Подписки пользователя удаляются каскадно в БД.
      *
      * @param userId ID пользователя, которого нужно удалить.
-     * @throws OptimisticLockingFailureException Если не удалось удалить пользователя из-за конкурентного изменения.
+     * @throws NoSuchElementException Если пользователь с указанным ID не найден.
      */
     @Override
     public void deleteUser(Long userId) {
-        try {
-            UserEntity userEntity = this.getUserById(userId);
-            userRepo.delete(userEntity);
-            log.info("Deleted user with id {}", userId);
-        } catch (OptimisticLockingFailureException e) {
-            throw new IllegalStateException("Failed to delete user due to concurrent modification", e);
+        if (userRepo.deleteUserById(userId) == 0) {
+            String errorMessage = "User not found with id: " + userId;
+            log.error(errorMessage);
+            throw new NoSuchElementException(errorMessage);
+        }
+        this.eventPublisher.publishEvent(new UserDeletedEvent(userId));
+        log.info("Deleted user with id {}", userId);
+    }
+
+    /**
+     * Удаляет нескольких пользователей одним запросом DELETE ... WHERE id = ANY(?).
+     *
+     * @param userIds ID пользователей (от 1 до {@value #MAX_DELETE_BATCH_SIZE}).
+     * @return List<Long> ID удаленных пользователей; отсутствующие ID пропускаются.
+     * @throws InvalidElementDataException Если список ID пуст или слишком велик.
+     */
+    @Override
+    public List<Long> deleteUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_DELETE_BATCH_SIZE) {
+            throw new InvalidElementDataException(
+                    String.format("Parameter ids must contain between 1 and %d ids", MAX_DELETE_BATCH_SIZE));
         }
+        List<Long> deletedIds = userRepo.deleteUsersByIds(userIds);
+        deletedIds.forEach(userId -> this.eventPublisher.publishEvent(new UserDeletedEvent(userId)));
+        log.info("Deleted {} of {} users", deletedIds.size(), userIds.size());
+        return deletedIds;
     }
 }
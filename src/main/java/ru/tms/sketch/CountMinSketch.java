@@ -0,0 +1,150 @@
+package ru.tms.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Count-Min Sketch: оценка частот строковых ключей в фиксированном объеме памяти.
+ * <p>
+ * Оценка никогда не меньше истинной частоты (при неотрицательных итоговых частотах) и превышает ее
+ * не более чем на {@code epsilon * totalCount} с вероятностью {@code 1 - delta}.
+ * Хеширование детерминировано, поэтому скетчи одинакового размера с разных узлов можно складывать.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[] table;
+    private long totalCount;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("Sketch depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.table = new long[depth * width];
+    }
+
+    /**
+     * Создает скетч под заданные границы ошибки.
+     *
+     * @param epsilon Относительная погрешность оценки (доля от общего количества).
+     * @param delta   Вероятность выхода оценки за границу погрешности.
+     */
+    public static CountMinSketch withErrorBounds(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("Sketch epsilon and delta must be in (0, 1)");
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(depth, width);
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public double epsilon() {
+        return Math.E / width;
+    }
+
+    public double delta() {
+        return Math.exp(-depth);
+    }
+
+    /**
+     * Максимальное превышение оценки над истинной частотой при текущем общем количестве.
+     */
+    public long maxOverestimate() {
+        return (long) Math.ceil(epsilon() * Math.max(totalCount, 0));
+    }
+
+    public void add(String item, long count) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            table[row * width + bucket(h1, h2, row)] += count;
+        }
+        totalCount += count;
+    }
+
+    public long estimate(String item) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + bucket(h1, h2, row)]);
+        }
+        return Math.max(min, 0);
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot merge sketch %dx%d into %dx%d", other.depth, other.width, depth, width));
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        VarLongs.write(out, totalCount);
+        for (long counter : table) {
+            VarLongs.write(out, counter);
+        }
+    }
+
+    /**
+     * Читает скетч, только если его размер совпадает с ожидаемым: размер приходит от другого узла,
+     * и таблица под него выделяется только после проверки.
+     */
+    static CountMinSketch readFrom(DataInput in, int expectedDepth, int expectedWidth) throws IOException {
+        int depth = in.readInt();
+        int width = in.readInt();
+        if (depth != expectedDepth || width != expectedWidth) {
+            throw new IOException(String.format("Incompatible sketch size %dx%d, expected %dx%d",
+                    depth, width, expectedDepth, expectedWidth));
+        }
+        CountMinSketch sketch = new CountMinSketch(depth, width);
+        sketch.totalCount = VarLongs.read(in);
+        for (int i = 0; i < sketch.table.length; i++) {
+            sketch.table[i] = VarLongs.read(in);
+        }
+        return sketch;
+    }
+
+    private int bucket(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    /**
+     * 64-битный FNV-1a по UTF-8 байтам с финальным перемешиванием (splitmix64).
+     */
+    private static long hash(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,154 @@
+package ru.tms.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Приближенный поиск самых частых ключей: Count-Min Sketch для оценки частот
+ * и ограниченный набор кандидатов в духе Space-Saving (вытесняется кандидат с минимальной оценкой).
+ * <p>
+ * Не потокобезопасен. Поддерживает слияние со скетчем того же размера и компактную бинарную форму.
+ */
+public final class HeavyHitters {
+
+    private static final int FORMAT_MAGIC = 0x48485331; // "HHS1"
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<String, Long> candidates;
+
+    public HeavyHitters(CountMinSketch sketch, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Heavy hitters capacity must be positive");
+        }
+        this.sketch = sketch;
+        this.capacity = capacity;
+        this.candidates = new HashMap<>(capacity * 2);
+    }
+
+    public static HeavyHitters withErrorBounds(double epsilon, double delta, int capacity) {
+        return new HeavyHitters(CountMinSketch.withErrorBounds(epsilon, delta), capacity);
+    }
+
+    public CountMinSketch sketch() {
+        return sketch;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Учитывает изменение частоты ключа; отрицательное значение соответствует удалению.
+     */
+    public void add(String item, long count) {
+        sketch.add(item, count);
+        long estimate = sketch.estimate(item);
+        if (candidates.containsKey(item) || count <= 0) {
+            candidates.computeIfPresent(item, (key, previous) -> estimate);
+        } else {
+            offerCandidate(item, estimate);
+        }
+    }
+
+    public long estimate(String item) {
+        return sketch.estimate(item);
+    }
+
+    /**
+     * Возвращает до {@code k} ключей с наибольшей оценкой частоты, по убыванию оценки.
+     */
+    public List<Map.Entry<String, Long>> top(int k) {
+        List<Map.Entry<String, Long>> estimates = new ArrayList<>(candidates.size());
+        for (String candidate : candidates.keySet()) {
+            long estimate = sketch.estimate(candidate);
+            if (estimate > 0) {
+                estimates.add(Map.entry(candidate, estimate));
+            }
+        }
+        estimates.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        return estimates.size() > k ? new ArrayList<>(estimates.subList(0, k)) : estimates;
+    }
+
+    public void merge(HeavyHitters other) {
+        sketch.merge(other.sketch);
+        Set<String> names = new HashSet<>(candidates.keySet());
+        names.addAll(other.candidates.keySet());
+        candidates.clear();
+        for (String name : names) {
+            offerCandidate(name, sketch.estimate(name));
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_MAGIC);
+            out.writeInt(capacity);
+            sketch.writeTo(out);
+            out.writeInt(candidates.size());
+            for (String candidate : candidates.keySet()) {
+                out.writeUTF(candidate);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Восстанавливает скетч из бинарной формы {@link #toBytes()}. Данные приходят от другого узла, поэтому
+     * размер и емкость берутся у локального скетча shape, а скетч другого размера отклоняется до выделения памяти.
+     *
+     * @param shape Локальный скетч, с которым будет сливаться восстановленный.
+     * @throws IllegalArgumentException Если данные повреждены, имеют неизвестный формат или другой размер.
+     */
+    public static HeavyHitters fromBytes(byte[] data, HeavyHitters shape) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != FORMAT_MAGIC) {
+                throw new IllegalArgumentException("Unknown heavy hitters sketch format");
+            }
+            // Емкость другого узла не используется: набор кандидатов ограничивается локальной
+            in.readInt();
+            HeavyHitters heavyHitters = new HeavyHitters(
+                    CountMinSketch.readFrom(in, shape.sketch.depth(), shape.sketch.width()), shape.capacity);
+            int candidateCount = in.readInt();
+            for (int i = 0; i < candidateCount; i++) {
+                String candidate = in.readUTF();
+                heavyHitters.offerCandidate(candidate, heavyHitters.sketch.estimate(candidate));
+            }
+            return heavyHitters;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed heavy hitters sketch: " + e.getMessage(), e);
+        }
+    }
+
+    private void offerCandidate(String item, long estimate) {
+        if (candidates.size() < capacity) {
+            candidates.put(item, estimate);
+            return;
+        }
+        Map.Entry<String, Long> weakest = null;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (weakest == null || candidate.getValue() < weakest.getValue()) {
+                weakest = candidate;
+            }
+        }
+        if (weakest != null && estimate > weakest.getValue()) {
+            candidates.remove(weakest.getKey());
+            candidates.put(item, estimate);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ru.tms.sketch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.tms.config.HeavyHittersProperties;
+import ru.tms.dto.ApproximateTopSubscriptions;
+import ru.tms.dto.SubscriptionEstimate;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.events.SubscriptionDeletedEvent;
+import ru.tms.repo.SubscriptionNameCount;
+import ru.tms.repo.SubscriptionRepo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Приближенный топ подписок в памяти узла, без обращения к БД на чтение.
+ * <p>
+ * Состояние состоит из базы, загруженной из subscription_name_counts при старте и периодически,
+ * событий создания/удаления подписок на этом узле после последней загрузки и последних полученных
+ * изменений других узлов. Локальные изменения отдаются в бинарном виде вместе с id узла и эпохой - временем
+ * начала загрузки его базы. Слияние идемпотентно: от каждого узла хранится только последний скетч, он заменяет
+ * предыдущий, и общий топ пересчитывается из базы, локальных изменений и последних скетчей узлов. Свой скетч
+ * и скетч с эпохой раньше эпохи этого узла не сливаются: часть их изменений уже учтена в базе, такой узел
+ * попадет в топ после своей пересборки. Эпохи сравниваются по часам узлов. Записи, совершенные во время
+ * пересборки, могут быть учтены неточно до следующей пересборки.
+ */
+@Slf4j
+@Component
+public class SubscriptionHeavyHitters {
+
+    private static final int EXPORT_MAGIC = 0x53484831; // "SHH1"
+
+    private final SubscriptionRepo subscriptionRepo;
+    private final HeavyHittersProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final Map<UUID, PeerSketch> peers = new HashMap<>();
+
+    private HeavyHitters base;
+    private HeavyHitters local;
+    private HeavyHitters combined;
+    private long epoch;
+    private long changes;
+
+    public SubscriptionHeavyHitters(SubscriptionRepo subscriptionRepo, HeavyHittersProperties properties,
+                                    PlatformTransactionManager transactionManager) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.base = newHeavyHitters();
+        this.local = newHeavyHitters();
+        this.combined = newHeavyHitters();
+        this.epoch = System.currentTimeMillis();
+        log.info("SubscriptionHeavyHitters initialized");
+    }
+
+    /**
+     * Пересобирает скетч из счетчиков subscription_name_counts, сбрасывает локальные изменения и скетчи узлов
+     * с эпохой раньше новой базы.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${user-subscriptions.heavy-hitters.rebuild-interval:10m}",
+            initialDelayString = "${user-subscriptions.heavy-hitters.rebuild-interval:10m}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        HeavyHitters seeded = newHeavyHitters();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<SubscriptionNameCount> counts = subscriptionRepo.streamSubscriptionNameCounts()) {
+                counts.forEach(count -> seeded.add(count.getName(), count.getSubscriptionCount()));
+            }
+        });
+        synchronized (this) {
+            base = seeded;
+            local = newHeavyHitters();
+            epoch = startedAt;
+            changes = 0;
+            peers.values().removeIf(peer -> peer.epoch() < startedAt);
+            recombine();
+        }
+        log.info("Rebuilt subscription heavy hitters from {} subscriptions", seeded.sketch().totalCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onSubscriptionCreated(SubscriptionCreatedEvent event) {
+        local.add(event.name(), 1);
+        combined.add(event.name(), 1);
+        changes++;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onSubscriptionDeleted(SubscriptionDeletedEvent event) {
+        local.add(event.name(), -1);
+        combined.add(event.name(), -1);
+        changes++;
+    }
+
+    /**
+     * Возвращает до {@code limit} самых популярных подписок по убыванию оценки вместе с границами ошибки.
+     */
+    public synchronized ApproximateTopSubscriptions top(int limit) {
+        CountMinSketch sketch = combined.sketch();
+        List<SubscriptionEstimate> estimates = combined.top(limit).stream()
+                .map(entry -> SubscriptionEstimate.builder()
+                        .name(entry.getKey())
+                        .estimatedCount(entry.getValue())
+                        .build())
+                .toList();
+        return ApproximateTopSubscriptions.builder()
+                .subscriptions(estimates)
+                .totalCount(sketch.totalCount())
+                .maxOverestimate(sketch.maxOverestimate())
+                .epsilon(sketch.epsilon())
+                .confidence(1 - sketch.delta())
+                .build();
+    }
+
+    /**
+     * Бинарная форма изменений, накопленных этим узлом с последней пересборки, с id узла, эпохой
+     * и числом изменений с начала эпохи (упорядочивает скетчи одной эпохи).
+     */
+    public synchronized byte[] localSketch() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(EXPORT_MAGIC);
+            out.writeLong(nodeId.getMostSignificantBits());
+            out.writeLong(nodeId.getLeastSignificantBits());
+            out.writeLong(epoch);
+            out.writeLong(changes);
+            out.write(local.toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Заменяет изменения другого узла, полученные через {@link #localSketch()}, и пересчитывает топ.
+     * Повторное слияние того же скетча ничего не меняет.
+     *
+     * @return true, если скетч принят; false, если это свой скетч, скетч старше уже полученного от этого
+     * узла или старше базы этого узла.
+     * @throws IllegalArgumentException Если данные повреждены или скетч другого размера.
+     */
+    public synchronized boolean mergePeerSketch(byte[] data) {
+        UUID peerId;
+        long peerEpoch;
+        long peerChanges;
+        byte[] sketch;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != EXPORT_MAGIC) {
+                throw new IllegalArgumentException("Unknown subscription sketch format");
+            }
+            peerId = new UUID(in.readLong(), in.readLong());
+            peerEpoch = in.readLong();
+            peerChanges = in.readLong();
+            sketch = in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed subscription sketch: " + e.getMessage(), e);
+        }
+        HeavyHitters peer = HeavyHitters.fromBytes(sketch, local);
+        PeerSketch previous = peers.get(peerId);
+        if (peerId.equals(nodeId) || peerEpoch < epoch
+                || (previous != null && previous.isNewerThan(peerEpoch, peerChanges))) {
+            log.debug("Skipped subscription sketch of node {} with epoch {}", peerId, peerEpoch);
+            return false;
+        }
+        peers.put(peerId, new PeerSketch(peerEpoch, peerChanges, peer));
+        recombine();
+        return true;
+    }
+
+    private void recombine() {
+        HeavyHitters recombined = newHeavyHitters();
+        recombined.merge(base);
+        recombined.merge(local);
+        peers.values().forEach(peer -> recombined.merge(peer.sketch()));
+        combined = recombined;
+    }
+
+    private HeavyHitters newHeavyHitters() {
+        return HeavyHitters.withErrorBounds(properties.epsilon(), properties.delta(), properties.capacity());
+    }
+
+    private record PeerSketch(long epoch, long changes, HeavyHitters sketch) {
+
+        boolean isNewerThan(long otherEpoch, long otherChanges) {
+            return epoch > otherEpoch || (epoch == otherEpoch && changes > otherChanges);
+        }
+    }
+}
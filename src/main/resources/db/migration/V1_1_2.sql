@@ -0,0 +1,73 @@
+SET search_path TO user_subscriptions;
+
+-- Счетчик подписок по имени, чтобы топ не требовал GROUP BY по всей таблице subscriptions
+CREATE TABLE user_subscriptions.subscription_name_counts (
+   name VARCHAR(255) PRIMARY KEY,
+   subscription_count BIGINT NOT NULL
+);
+CREATE INDEX idx_subscription_name_counts_count_name
+    ON user_subscriptions.subscription_name_counts (subscription_count DESC, name);
+
+INSERT INTO user_subscriptions.subscription_name_counts (name, subscription_count)
+SELECT name, COUNT(*) FROM user_subscriptions.subscriptions GROUP BY name;
+
+-- Счетчик поддерживается в той же транзакции, что и изменение subscriptions,
+-- в том числе при каскадном удалении подписок вместе с пользователем
+CREATE FUNCTION user_subscriptions.subscription_name_counts_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_subscriptions.subscription_name_counts AS c (name, subscription_count)
+    VALUES (NEW.name, 1)
+    ON CONFLICT (name) DO UPDATE SET subscription_count = c.subscription_count + 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION user_subscriptions.subscription_name_counts_on_delete() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE user_subscriptions.subscription_name_counts
+    SET subscription_count = subscription_count - 1
+    WHERE name = OLD.name;
+    DELETE FROM user_subscriptions.subscription_name_counts
+    WHERE name = OLD.name AND subscription_count <= 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION user_subscriptions.subscription_name_counts_on_update() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.name IS DISTINCT FROM OLD.name THEN
+        UPDATE user_subscriptions.subscription_name_counts
+        SET subscription_count = subscription_count - 1
+        WHERE name = OLD.name;
+        DELETE FROM user_subscriptions.subscription_name_counts
+        WHERE name = OLD.name AND subscription_count <= 0;
+        INSERT INTO user_subscriptions.subscription_name_counts AS c (name, subscription_count)
+        VALUES (NEW.name, 1)
+        ON CONFLICT (name) DO UPDATE SET subscription_count = c.subscription_count + 1;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION user_subscriptions.subscription_name_counts_on_truncate() RETURNS TRIGGER AS $$
+BEGIN
+    TRUNCATE TABLE user_subscriptions.subscription_name_counts;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_subscription_name_counts_insert
+    AFTER INSERT ON user_subscriptions.subscriptions
+    FOR EACH ROW EXECUTE FUNCTION user_subscriptions.subscription_name_counts_on_insert();
+
+CREATE TRIGGER trg_subscription_name_counts_delete
+    AFTER DELETE ON user_subscriptions.subscriptions
+    FOR EACH ROW EXECUTE FUNCTION user_subscriptions.subscription_name_counts_on_delete();
+
+CREATE TRIGGER trg_subscription_name_counts_update
+    AFTER UPDATE OF name ON user_subscriptions.subscriptions
+    FOR EACH ROW EXECUTE FUNCTION user_subscriptions.subscription_name_counts_on_update();
+
+CREATE TRIGGER trg_subscription_name_counts_truncate
+    AFTER TRUNCATE ON user_subscriptions.subscriptions
+    FOR EACH STATEMENT EXECUTE FUNCTION user_subscriptions.subscription_name_counts_on_truncate();
@@ -0,0 +1,42 @@
+SET search_path TO user_subscriptions;
+
+-- Количество созданных подписок по имени в разрезе временных корзин.
+-- Новые подписки попадают в часовые корзины (HOUR), устаревшие часовые корзины
+-- сворачиваются фоновой задачей в суточные (DAY), а суточные удаляются по истечении срока хранения
+CREATE TABLE user_subscriptions.subscription_name_buckets (
+   granularity VARCHAR(4) NOT NULL,
+   bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+   name VARCHAR(255) NOT NULL,
+   subscription_count BIGINT NOT NULL,
+   PRIMARY KEY (granularity, bucket_start, name)
+);
+
+INSERT INTO user_subscriptions.subscription_name_buckets (granularity, bucket_start, name, subscription_count)
+SELECT 'HOUR', date_trunc('hour', created_at), name, COUNT(*)
+FROM user_subscriptions.subscriptions
+WHERE created_at IS NOT NULL
+GROUP BY date_trunc('hour', created_at), name;
+
+CREATE FUNCTION user_subscriptions.subscription_name_buckets_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_subscriptions.subscription_name_buckets AS b (granularity, bucket_start, name, subscription_count)
+    VALUES ('HOUR', date_trunc('hour', COALESCE(NEW.created_at, LOCALTIMESTAMP)), NEW.name, 1)
+    ON CONFLICT (granularity, bucket_start, name) DO UPDATE SET subscription_count = b.subscription_count + 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION user_subscriptions.subscription_name_buckets_on_truncate() RETURNS TRIGGER AS $$
+BEGIN
+    TRUNCATE TABLE user_subscriptions.subscription_name_buckets;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_subscription_name_buckets_insert
+    AFTER INSERT ON user_subscriptions.subscriptions
+    FOR EACH ROW EXECUTE FUNCTION user_subscriptions.subscription_name_buckets_on_insert();
+
+CREATE TRIGGER trg_subscription_name_buckets_truncate
+    AFTER TRUNCATE ON user_subscriptions.subscriptions
+    FOR EACH STATEMENT EXECUTE FUNCTION user_subscriptions.subscription_name_buckets_on_truncate();
@@ -0,0 +1,8 @@
+SET search_path TO user_subscriptions;
+
+-- Постраничная выдача по (created_at, id) требует заполненного created_at
+ALTER TABLE user_subscriptions.subscriptions ALTER COLUMN created_at SET DEFAULT LOCALTIMESTAMP;
+
+UPDATE user_subscriptions.subscriptions
+SET created_at = COALESCE(updated_at, LOCALTIMESTAMP)
+WHERE created_at IS NULL;
@@ -0,0 +1,7 @@
+-- Индексы для постраничной выдачи подписок пользователя: каждая страница читается одним диапазоном индекса.
+-- CONCURRENTLY не блокирует запись в subscriptions, поэтому Flyway выполняет скрипт вне транзакции.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_subscriptions_user_name
+    ON user_subscriptions.subscriptions (user_id, name);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_subscriptions_user_created_id
+    ON user_subscriptions.subscriptions (user_id, created_at, id);
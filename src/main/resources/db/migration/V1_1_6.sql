@@ -0,0 +1,58 @@
+SET search_path TO user_subscriptions;
+
+-- Счетчики и корзины обновляются один раз на оператор по агрегату измененных строк,
+-- а не на каждую строку: массовая загрузка делает одно обновление на имя подписки.
+-- Имена обрабатываются по порядку, чтобы конкурентные загрузки брали блокировки счетчиков в одном порядке.
+CREATE OR REPLACE FUNCTION user_subscriptions.subscription_name_counts_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_subscriptions.subscription_name_counts AS c (name, subscription_count)
+    SELECT name, COUNT(*) FROM new_rows GROUP BY name ORDER BY name
+    ON CONFLICT (name) DO UPDATE SET subscription_count = c.subscription_count + EXCLUDED.subscription_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_subscriptions.subscription_name_counts_on_delete() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE user_subscriptions.subscription_name_counts c
+    SET subscription_count = c.subscription_count - removed.subscription_count
+    FROM (SELECT name, COUNT(*) AS subscription_count FROM old_rows GROUP BY name) removed
+    WHERE c.name = removed.name;
+    DELETE FROM user_subscriptions.subscription_name_counts c
+    USING (SELECT DISTINCT name FROM old_rows) removed
+    WHERE c.name = removed.name AND c.subscription_count <= 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_subscriptions.subscription_name_buckets_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_subscriptions.subscription_name_buckets AS b (granularity, bucket_start, name, subscription_count)
+    SELECT 'HOUR', date_trunc('hour', COALESCE(created_at, LOCALTIMESTAMP)), name, COUNT(*)
+    FROM new_rows
+    GROUP BY date_trunc('hour', COALESCE(created_at, LOCALTIMESTAMP)), name
+    ORDER BY 2, 3
+    ON CONFLICT (granularity, bucket_start, name)
+    DO UPDATE SET subscription_count = b.subscription_count + EXCLUDED.subscription_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER trg_subscription_name_counts_insert ON user_subscriptions.subscriptions;
+DROP TRIGGER trg_subscription_name_counts_delete ON user_subscriptions.subscriptions;
+DROP TRIGGER trg_subscription_name_buckets_insert ON user_subscriptions.subscriptions;
+
+CREATE TRIGGER trg_subscription_name_counts_insert
+    AFTER INSERT ON user_subscriptions.subscriptions
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION user_subscriptions.subscription_name_counts_on_insert();
+
+CREATE TRIGGER trg_subscription_name_counts_delete
+    AFTER DELETE ON user_subscriptions.subscriptions
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION user_subscriptions.subscription_name_counts_on_delete();
+
+CREATE TRIGGER trg_subscription_name_buckets_insert
+    AFTER INSERT ON user_subscriptions.subscriptions
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION user_subscriptions.subscription_name_buckets_on_insert();
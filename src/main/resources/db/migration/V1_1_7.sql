@@ -0,0 +1,154 @@
+SET search_path TO user_subscriptions;
+
+-- Миграция не должна вставать в очередь за долгими транзакциями, блокируя всех, кто придет после нее
+SET LOCAL lock_timeout = '10s';
+
+-- Счетчики блокируются до конца миграции, чтобы слияние написаний не разошлось с конкурентными изменениями;
+-- таблицы небольшие (строка на имя), поэтому блокировка короткая
+LOCK TABLE user_subscriptions.subscription_name_counts, user_subscriptions.subscription_name_buckets
+    IN SHARE ROW EXCLUSIVE MODE;
+
+-- Справочник имен подписок: подписки ссылаются на него целочисленным id вместо повторения строки.
+-- normalized_name - ключ сравнения (без пробелов по краям, в нижнем регистре),
+-- name - написание, которое отдает API
+CREATE TABLE user_subscriptions.subscription_catalog (
+   id INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+   normalized_name VARCHAR(255) NOT NULL,
+   name VARCHAR(255) NOT NULL
+);
+CREATE UNIQUE INDEX idx_subscription_catalog_normalized_name
+    ON user_subscriptions.subscription_catalog (normalized_name);
+
+CREATE FUNCTION user_subscriptions.subscription_catalog_normalize(p_name VARCHAR) RETURNS VARCHAR AS $$
+    SELECT lower(btrim(p_name))
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Id имени в справочнике; имя, которого еще нет, добавляется в написании без пробелов по краям
+CREATE FUNCTION user_subscriptions.subscription_catalog_id(p_name VARCHAR) RETURNS INTEGER AS $$
+DECLARE
+    found_id INTEGER;
+BEGIN
+    SELECT id INTO found_id FROM user_subscriptions.subscription_catalog
+    WHERE normalized_name = user_subscriptions.subscription_catalog_normalize(p_name);
+    IF found_id IS NULL THEN
+        INSERT INTO user_subscriptions.subscription_catalog (normalized_name, name)
+        VALUES (user_subscriptions.subscription_catalog_normalize(p_name), btrim(p_name))
+        ON CONFLICT (normalized_name) DO NOTHING
+        RETURNING id INTO found_id;
+    END IF;
+    IF found_id IS NULL THEN
+        -- Имя одновременно добавила другая транзакция
+        SELECT id INTO found_id FROM user_subscriptions.subscription_catalog
+        WHERE normalized_name = user_subscriptions.subscription_catalog_normalize(p_name);
+    END IF;
+    RETURN found_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Справочник заполняется по счетчикам (строка на каждое написание): из написаний одного имени
+-- выбирается самое частое
+INSERT INTO user_subscriptions.subscription_catalog (normalized_name, name)
+SELECT DISTINCT ON (user_subscriptions.subscription_catalog_normalize(name))
+       user_subscriptions.subscription_catalog_normalize(name), btrim(name)
+FROM user_subscriptions.subscription_name_counts
+ORDER BY user_subscriptions.subscription_catalog_normalize(name), subscription_count DESC, name;
+
+-- Без значения по умолчанию и без проверки существующих строк: только изменение метаданных
+ALTER TABLE user_subscriptions.subscriptions ADD COLUMN catalog_id INTEGER;
+ALTER TABLE user_subscriptions.subscriptions
+    ADD CONSTRAINT fk_subscriptions_catalog FOREIGN KEY (catalog_id)
+    REFERENCES user_subscriptions.subscription_catalog (id) NOT VALID;
+
+-- Писатели, передающие имя вместо catalog_id, получают id справочника автоматически. В name записывается
+-- написание из справочника: по нему индекс (user_id, name) отдает страницы по имени, а уникальный индекс
+-- (name, user_id) не пропускает вторую подписку на то же имя, пока V1_1_8 не построит (user_id, catalog_id)
+CREATE FUNCTION user_subscriptions.subscriptions_catalog_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.catalog_id IS NULL THEN
+        NEW.catalog_id := user_subscriptions.subscription_catalog_id(NEW.name);
+    END IF;
+    SELECT cat.name INTO NEW.name FROM user_subscriptions.subscription_catalog cat WHERE cat.id = NEW.catalog_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_subscriptions_catalog_insert
+    BEFORE INSERT ON user_subscriptions.subscriptions
+    FOR EACH ROW EXECUTE FUNCTION user_subscriptions.subscriptions_catalog_on_insert();
+
+-- Счетчики и корзины ведутся по имени из справочника. Строки, которые V1_1_8 еще не перевела на catalog_id,
+-- находятся в справочнике по своему имени (все существующие имена уже в справочнике)
+CREATE OR REPLACE FUNCTION user_subscriptions.subscription_name_counts_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_subscriptions.subscription_name_counts AS c (name, subscription_count)
+    SELECT cat.name, COUNT(*)
+    FROM new_rows r
+    JOIN user_subscriptions.subscription_catalog cat ON cat.id = r.catalog_id
+    GROUP BY cat.name ORDER BY cat.name
+    ON CONFLICT (name) DO UPDATE SET subscription_count = c.subscription_count + EXCLUDED.subscription_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_subscriptions.subscription_name_counts_on_delete() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE user_subscriptions.subscription_name_counts c
+    SET subscription_count = c.subscription_count - removed.subscription_count
+    FROM (SELECT cat.name, COUNT(*) AS subscription_count
+          FROM old_rows r
+          JOIN user_subscriptions.subscription_catalog cat
+            ON cat.id = COALESCE(r.catalog_id, user_subscriptions.subscription_catalog_id(r.name))
+          GROUP BY cat.name) removed
+    WHERE c.name = removed.name;
+    DELETE FROM user_subscriptions.subscription_name_counts c
+    USING (SELECT DISTINCT cat.name
+           FROM old_rows r
+           JOIN user_subscriptions.subscription_catalog cat
+             ON cat.id = COALESCE(r.catalog_id, user_subscriptions.subscription_catalog_id(r.name))) removed
+    WHERE c.name = removed.name AND c.subscription_count <= 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_subscriptions.subscription_name_buckets_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_subscriptions.subscription_name_buckets AS b (granularity, bucket_start, name, subscription_count)
+    SELECT 'HOUR', date_trunc('hour', COALESCE(r.created_at, LOCALTIMESTAMP)), cat.name, COUNT(*)
+    FROM new_rows r
+    JOIN user_subscriptions.subscription_catalog cat ON cat.id = r.catalog_id
+    GROUP BY date_trunc('hour', COALESCE(r.created_at, LOCALTIMESTAMP)), cat.name
+    ORDER BY 2, 3
+    ON CONFLICT (granularity, bucket_start, name)
+    DO UPDATE SET subscription_count = b.subscription_count + EXCLUDED.subscription_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Имя в subscriptions больше не меняется; заполнение catalog_id в V1_1_8 счетчики не затрагивает
+DROP TRIGGER trg_subscription_name_counts_update ON user_subscriptions.subscriptions;
+DROP FUNCTION user_subscriptions.subscription_name_counts_on_update();
+
+-- Счетчики и корзины других написаний того же имени сливаются в имя справочника
+WITH merged AS (
+    DELETE FROM user_subscriptions.subscription_name_counts n
+    USING user_subscriptions.subscription_catalog cat
+    WHERE cat.normalized_name = user_subscriptions.subscription_catalog_normalize(n.name)
+      AND n.name <> cat.name
+    RETURNING cat.name, n.subscription_count
+)
+INSERT INTO user_subscriptions.subscription_name_counts AS c (name, subscription_count)
+SELECT name, SUM(subscription_count) FROM merged GROUP BY name
+ON CONFLICT (name) DO UPDATE SET subscription_count = c.subscription_count + EXCLUDED.subscription_count;
+
+WITH merged AS (
+    DELETE FROM user_subscriptions.subscription_name_buckets b
+    USING user_subscriptions.subscription_catalog cat
+    WHERE cat.normalized_name = user_subscriptions.subscription_catalog_normalize(b.name)
+      AND b.name <> cat.name
+    RETURNING b.granularity, b.bucket_start, cat.name, b.subscription_count
+)
+INSERT INTO user_subscriptions.subscription_name_buckets AS b (granularity, bucket_start, name, subscription_count)
+SELECT granularity, bucket_start, name, SUM(subscription_count) FROM merged
+GROUP BY granularity, bucket_start, name
+ON CONFLICT (granularity, bucket_start, name)
+DO UPDATE SET subscription_count = b.subscription_count + EXCLUDED.subscription_count;
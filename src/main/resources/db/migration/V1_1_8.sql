@@ -0,0 +1,78 @@
+-- Перевод существующих подписок на справочник без длительных блокировок subscriptions:
+-- заполнение идет пачками по диапазонам страниц с фиксацией после каждой пачки, индексы и ограничения
+-- строятся CONCURRENTLY и проверяются отдельно от добавления. Поэтому скрипт выполняется вне транзакции
+-- (V1_1_8.sql.conf). Прерванную миграцию можно повторить: каждый шаг пропускает уже выполненную работу,
+-- а индекс, который не достроился, удаляется и строится заново.
+
+-- Написания одного имени у одного пользователя теперь одна подписка: остается самая ранняя.
+-- Слияние идет до заполнения: после него уникальный индекс (name, user_id) не дает заполнению
+-- и новым вставкам (триггер trg_subscriptions_catalog_insert) повторить пару
+DELETE FROM user_subscriptions.subscriptions s
+USING user_subscriptions.subscriptions earlier
+WHERE earlier.user_id = s.user_id
+  AND user_subscriptions.subscription_catalog_normalize(earlier.name)
+      = user_subscriptions.subscription_catalog_normalize(s.name)
+  AND earlier.id < s.id;
+
+-- Имя заменяется написанием из справочника: name остается ключом сортировки страниц по имени
+DO $$
+DECLARE
+    batch_pages CONSTANT BIGINT := 1000;
+    first_page BIGINT := 0;
+BEGIN
+    -- Размер таблицы пересчитывается на каждой итерации: новые страницы могут добавиться во время заполнения
+    WHILE first_page < pg_relation_size('user_subscriptions.subscriptions') / current_setting('block_size')::BIGINT LOOP
+        UPDATE user_subscriptions.subscriptions s
+        SET catalog_id = cat.id, name = cat.name
+        FROM user_subscriptions.subscription_catalog cat
+        WHERE s.ctid >= format('(%s,0)', first_page)::tid
+          AND s.ctid < format('(%s,0)', first_page + batch_pages)::tid
+          AND (s.catalog_id IS NULL OR s.name <> cat.name)
+          AND cat.normalized_name = user_subscriptions.subscription_catalog_normalize(s.name);
+        COMMIT;
+        first_page := first_page + batch_pages;
+    END LOOP;
+END;
+$$;
+
+-- Имена, появившиеся в subscriptions после заполнения справочника в V1_1_7 (если такие есть)
+UPDATE user_subscriptions.subscriptions
+SET catalog_id = user_subscriptions.subscription_catalog_id(name)
+WHERE catalog_id IS NULL;
+UPDATE user_subscriptions.subscriptions s
+SET name = cat.name
+FROM user_subscriptions.subscription_catalog cat
+WHERE cat.id = s.catalog_id
+  AND s.name <> cat.name;
+
+-- Прерванное построение CONCURRENTLY оставляет недействительный индекс, который IF NOT EXISTS пропустил бы.
+-- DROP INDEX CONCURRENTLY нельзя выполнить в блоке DO; удаление недействительного индекса - только изменение
+-- каталога, поэтому блокировка таблицы короткая
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_index i
+               WHERE i.indexrelid = to_regclass('user_subscriptions.idx_subscriptions_user_catalog')
+                 AND NOT i.indisvalid) THEN
+        PERFORM set_config('lock_timeout', '10s', true);
+        DROP INDEX user_subscriptions.idx_subscriptions_user_catalog;
+    END IF;
+END;
+$$;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_subscriptions_user_catalog
+    ON user_subscriptions.subscriptions (user_id, catalog_id);
+
+-- NOT NULL без полного сканирования под ACCESS EXCLUSIVE: проверенное ограничение CHECK позволяет
+-- SET NOT NULL пропустить проверку строк
+ALTER TABLE user_subscriptions.subscriptions DROP CONSTRAINT IF EXISTS chk_subscriptions_catalog_id_not_null;
+ALTER TABLE user_subscriptions.subscriptions
+    ADD CONSTRAINT chk_subscriptions_catalog_id_not_null CHECK (catalog_id IS NOT NULL) NOT VALID;
+ALTER TABLE user_subscriptions.subscriptions VALIDATE CONSTRAINT chk_subscriptions_catalog_id_not_null;
+ALTER TABLE user_subscriptions.subscriptions ALTER COLUMN catalog_id SET NOT NULL;
+ALTER TABLE user_subscriptions.subscriptions DROP CONSTRAINT chk_subscriptions_catalog_id_not_null;
+
+ALTER TABLE user_subscriptions.subscriptions VALIDATE CONSTRAINT fk_subscriptions_catalog;
+
+-- Уникальность теперь по (user_id, catalog_id). Индекс (user_id, name) из V1_1_5 остается:
+-- страницы по имени читаются по нему одним диапазоном
+DROP INDEX CONCURRENTLY IF EXISTS user_subscriptions.idx_user_subscriptions_name_user;
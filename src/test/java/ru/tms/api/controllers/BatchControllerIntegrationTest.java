@@ -0,0 +1,169 @@
+package ru.tms.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.dto.BatchOperation;
+import ru.tms.dto.BatchRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+public class BatchControllerIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('testUser', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub1', 1, 0)");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @Test
+    @DisplayName("Должен корректно выполнить пакет разных операций в одной транзакции")
+    void executeBatch_AllOperationsSucceed_CommitsAndReturnsIds() throws Exception {
+        // Arrange
+        BatchRequest request = new BatchRequest(BatchRequest.Mode.ALL_OR_NOTHING, List.of(
+                BatchOperation.builder().type(BatchOperation.Type.CREATE_USER).username("newUser").build(),
+                BatchOperation.builder().type(BatchOperation.Type.UPDATE_USERNAME).userId(1L).username("renamedUser").build(),
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("Sub2").build(),
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("Sub3").build(),
+                BatchOperation.builder().type(BatchOperation.Type.REMOVE_SUBSCRIPTION).userId(1L).subscriptionId(1L).build()));
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(true))
+                .andExpect(jsonPath("$.results", hasSize(5)))
+                .andExpect(jsonPath("$.results[0].status").value("OK"))
+                .andExpect(jsonPath("$.results[0].id").value(2))
+                .andExpect(jsonPath("$.results[2].status").value("OK"))
+                .andExpect(jsonPath("$.results[4].id").value(1));
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.name FROM user_subscriptions.subscriptions s " +
+                        "JOIN user_subscriptions.subscription_catalog c ON c.id = s.catalog_id " +
+                        "WHERE s.user_id = 1 ORDER BY c.name", String.class);
+        assertThat(names).containsExactly("Sub2", "Sub3");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT username FROM user_subscriptions.users WHERE id = 1", String.class)).isEqualTo("renamedUser");
+    }
+
+    @Test
+    @DisplayName("Должен корректно откатить весь пакет при ошибке в режиме ALL_OR_NOTHING")
+    void executeBatch_AllOrNothingWithFailure_RollsBackEverything() throws Exception {
+        // Arrange
+        BatchRequest request = new BatchRequest(null, List.of(
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("Sub2").build(),
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("sub1").build(),
+                BatchOperation.builder().type(BatchOperation.Type.REMOVE_SUBSCRIPTION).userId(1L).subscriptionId(1L).build()));
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.committed").value(false))
+                .andExpect(jsonPath("$.results[0].status").value("ROLLED_BACK"))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[2].status").value("SKIPPED"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_subscriptions.subscriptions", Long.class)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно зафиксировать удачные операции и пропустить неудачные в режиме BEST_EFFORT")
+    void executeBatch_BestEffortWithFailures_CommitsSucceededOperations() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('takenName', 0)");
+        BatchRequest request = new BatchRequest(BatchRequest.Mode.BEST_EFFORT, List.of(
+                BatchOperation.builder().type(BatchOperation.Type.UPDATE_USERNAME).userId(1L).username("takenName").build(),
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("Sub2").build(),
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(999L).name("Sub2").build(),
+                BatchOperation.builder().type(BatchOperation.Type.REMOVE_SUBSCRIPTION).userId(2L).subscriptionId(1L).build()));
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(true))
+                .andExpect(jsonPath("$.results[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[0].message").value("User with this username already exists"))
+                .andExpect(jsonPath("$.results[1].status").value("OK"))
+                .andExpect(jsonPath("$.results[2].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[2].message").value("User not found with id: 999"))
+                .andExpect(jsonPath("$.results[3].status").value("FAILED"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_subscriptions.subscriptions WHERE user_id = 1", Long.class)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при пустом пакете")
+    void executeBatch_EmptyOperations_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,150 @@
+package ru.tms.api.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"spring.flyway.enabled=true"})
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+public class ExportControllerIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, updated_at, version) " +
+                "VALUES ('oldUser', '2020-01-01 00:00:00', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, updated_at, version) " +
+                "VALUES ('newUser', '2020-01-01 00:00:00', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, updated_at, version) " +
+                "VALUES ('emptyUser', '2020-01-01 00:00:00', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, updated_at, version) " +
+                "VALUES ('Sub1', 1, '2020-01-01 00:00:00', '2020-01-01 00:00:00', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, updated_at, version) " +
+                "VALUES ('Sub2', 2, '2020-01-01 00:00:00', '2020-01-01 00:00:00', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, updated_at, version) " +
+                "VALUES ('Sub3', 2, '2020-01-02 00:00:00', '2024-06-01 00:00:00', 0)");
+    }
+
+    @Test
+    @DisplayName("Должен корректно выгрузить всех пользователей с подписками в NDJSON")
+    void exportUsers_All_StreamsNdjson() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/user-subscriptions/v1/exports"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // Assert
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        JsonNode newUser = objectMapper.readTree(lines[1]);
+        assertThat(newUser.get("username").asText()).isEqualTo("newUser");
+        assertThat(newUser.get("subscriptions")).hasSize(2);
+        assertThat(newUser.get("subscriptions").get(0).get("name").asText()).isEqualTo("Sub2");
+        assertThat(newUser.get("subscriptions").get(1).get("name").asText()).isEqualTo("Sub3");
+        assertThat(objectMapper.readTree(lines[2]).get("subscriptions")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Должен корректно выгрузить только измененных пользователей в gzip")
+    void exportUsers_SinceWithGzip_StreamsChangedUsersCompressed() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/user-subscriptions/v1/exports")
+                        .param("since", "2024-01-01T00:00:00")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] compressed = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        String body;
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(1);
+        JsonNode user = objectMapper.readTree(lines[0]);
+        assertThat(user.get("username").asText()).isEqualTo("newUser");
+        assertThat(user.get("subscriptions")).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при невалидном since")
+    void exportUsers_InvalidSince_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/exports").param("since", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+}
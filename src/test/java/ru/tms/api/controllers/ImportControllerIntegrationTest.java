@@ -0,0 +1,145 @@
+package ru.tms.api.controllers;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"spring.flyway.enabled=true"})
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+public class ImportControllerIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('testUser', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Netflix', 1, 0)");
+    }
+
+    @Test
+    @DisplayName("Должен корректно импортировать NDJSON и вернуть отклоненные строки")
+    void importSubscriptions_Ndjson_CreatesUsersAndSubscriptions() throws Exception {
+        // Arrange
+        String body = """
+                {"username":"testUser","subscriptions":["Netflix","Spotify"]}
+                {"username":"alice","subscriptions":["Netflix","Netflix"]}
+                {"username":"bob"}
+                {broken
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/imports")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.linesRead", is(4)))
+                .andExpect(jsonPath("$.rowsStaged", is(5)))
+                .andExpect(jsonPath("$.usersCreated", is(2)))
+                .andExpect(jsonPath("$.subscriptionsCreated", is(2)))
+                .andExpect(jsonPath("$.rejectedCount", is(3)))
+                .andExpect(jsonPath("$.rejects", hasSize(3)))
+                .andExpect(jsonPath("$.rejects[0].line", is(1)))
+                .andExpect(jsonPath("$.rejects[0].reason", is("Subscription Netflix already exists for user testUser")))
+                .andExpect(jsonPath("$.rejects[1].line", is(2)))
+                .andExpect(jsonPath("$.rejects[1].reason", is("Subscription Netflix for user alice is repeated in import")))
+                .andExpect(jsonPath("$.rejects[2].line", is(4)));
+
+        List<String> subscriptions = jdbcTemplate.queryForList(
+                "SELECT u.username || ':' || c.name FROM user_subscriptions.subscriptions s " +
+                        "JOIN user_subscriptions.subscription_catalog c ON c.id = s.catalog_id " +
+                        "JOIN user_subscriptions.users u ON u.id = s.user_id ORDER BY u.username, c.name", String.class);
+        assertThat(subscriptions).containsExactly("alice:Netflix", "testUser:Netflix", "testUser:Spotify");
+        Long netflixCount = jdbcTemplate.queryForObject("SELECT subscription_count " +
+                "FROM user_subscriptions.subscription_name_counts WHERE name = 'Netflix'", Long.class);
+        assertThat(netflixCount).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно импортировать CSV повторно без дубликатов")
+    void importSubscriptions_CsvTwice_IsIdempotent() throws Exception {
+        // Arrange
+        String body = "username,subscription\ncarol,Prime\ncarol,Hulu\ndave,Prime\n";
+
+        // Act
+        mockMvc.perform(post("/user-subscriptions/v1/imports").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usersCreated", is(2)))
+                .andExpect(jsonPath("$.subscriptionsCreated", is(3)));
+
+        // Assert
+        mockMvc.perform(post("/user-subscriptions/v1/imports").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usersCreated", is(0)))
+                .andExpect(jsonPath("$.subscriptionsCreated", is(0)))
+                .andExpect(jsonPath("$.rejectedCount", is(3)));
+        Long primeCount = jdbcTemplate.queryForObject("SELECT subscription_count " +
+                "FROM user_subscriptions.subscription_name_counts WHERE name = 'Prime'", Long.class);
+        assertThat(primeCount).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при неподдерживаемом формате")
+    void importSubscriptions_UnsupportedContentType_ReturnsUnsupportedMediaType() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/imports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
@@ -0,0 +1,156 @@
+package ru.tms.api.controllers;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.dto.Subscription;
+import ru.tms.services.SubscriptionService;
+
+import java.time.Duration;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.flyway.enabled=true", "spring.main.web-application-type=reactive"})
+@AutoConfigureWebTestClient
+@Testcontainers
+@ActiveProfiles("test")
+public class ReactiveReadControllerIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("user-subscriptions.reactive.url", () -> "r2dbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName());
+        registry.add("user-subscriptions.reactive.username", postgres::getUsername);
+        registry.add("user-subscriptions.reactive.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private Flyway flyway;
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('testUser', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES " +
+                "('Netflix', 1, 0), ('Spotify', 1, 0), ('YouTube', 1, 0)");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть пользователя")
+    void getUserById_ExistingId_ReturnsUser() {
+        // Act & Assert
+        webTestClient.get().uri("/user-subscriptions/v1/users/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.username").isEqualTo("testUser");
+    }
+
+    @Test
+    @DisplayName("Должен корректно не найти пользователя")
+    void getUserById_NonExistingId_ReturnsNotFound() {
+        // Act & Assert
+        webTestClient.get().uri("/user-subscriptions/v1/users/999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("User not found with id: 999");
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть подписки пользователя так же, как блокирующий путь чтения")
+    void getSubscriptionByUserId_ExistingId_MatchesBlockingReadPath() {
+        // Arrange
+        Subscription[] expected = subscriptionService.getSubscriptionsByUserId(1L).toArray(Subscription[]::new);
+
+        // Act & Assert
+        webTestClient.get().uri("/user-subscriptions/v1/users/1/subscriptions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Subscription.class)
+                .hasSize(3)
+                .contains(expected);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть пустую коллекцию для несуществующего пользователя")
+    void getSubscriptionByUserId_NonExistingId_ReturnsEmptyList() {
+        // Act & Assert
+        webTestClient.get().uri("/user-subscriptions/v1/users/999/subscriptions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Subscription.class)
+                .hasSize(0);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть топ подписок")
+    void findTopSubscriptions_DefaultLimit_ReturnsTopThree() {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES " +
+                "('Netflix', 2, 0), ('Spotify', 2, 0), ('Apple Music', 2, 0)");
+
+        // Act & Assert
+        webTestClient.get().uri("/user-subscriptions/v1/subscriptions/top")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0]").isEqualTo("Apple Music")
+                .jsonPath("$[1]").isEqualTo("Netflix")
+                .jsonPath("$[2]").isEqualTo("Spotify");
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при недопустимом limit")
+    void findTopSubscriptions_InvalidLimit_ReturnsBadRequest() {
+        // Act & Assert
+        webTestClient.get().uri("/user-subscriptions/v1/subscriptions/top?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
@@ -20,6 +21,8 @@ import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.tms.dto.Subscription;
+import ru.tms.jobs.SubscriptionBucketCompactionJob;
+import ru.tms.sketch.SubscriptionHeavyHitters;
 import ru.tms.services.SubscriptionService;
 
 import java.time.Duration;
@@ -29,6 +32,7 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -68,6 +72,12 @@ public class SubscriptionControllerIntegrationTest {
     @Autowired
     private Flyway flyway;
 
+    @Autowired
+    private SubscriptionBucketCompactionJob compactionJob;
+
+    @Autowired
+    private SubscriptionHeavyHitters heavyHitters;
+
     @AfterEach
     void cleanUp() {
         jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
@@ -96,6 +106,69 @@ public class SubscriptionControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].name").value("TestSubscription"));
     }
 
+    @Test
+    @DisplayName("Должен вернуть 304 по ETag списка подписок, пока список не изменился")
+    void getSubscriptionByUserId_IfNoneMatch_ReturnsNotModifiedUntilChanged() throws Exception {
+        // Arrange
+        String eTag = mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        jdbcTemplate.execute("DELETE FROM user_subscriptions.subscriptions WHERE catalog_id = " +
+                "(SELECT id FROM user_subscriptions.subscription_catalog WHERE name = 'Sub3')");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub4', 1, 0)");
+        mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$", hasSize(4)));
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть подписки постранично по курсору")
+    void getSubscriptionPageByUserId_WithCursor_ReturnsAllPages() throws Exception {
+        // Act & Assert
+        String firstPage = mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions")
+                        .param("limit", "3").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].name", is("Sub1")))
+                .andExpect(jsonPath("$.items[2].name", is("Sub3")))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions")
+                        .param("limit", "3").param("sort", "name").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("TestSubscription")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        String createdAtPage = mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions")
+                        .param("limit", "2").param("sort", "created_at"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.items[1].id", is(2)))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions")
+                        .param("limit", "2").param("sort", "created_at")
+                        .param("cursor", objectMapper.readTree(createdAtPage).get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(3)))
+                .andExpect(jsonPath("$.items[1].id", is(4)));
+
+        mockMvc.perform(get("/user-subscriptions/v1/users/1/subscriptions")
+                        .param("limit", "2").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Должен корректно вернуть топ 3 подписки")
     void findTopThreeSubscriptions_ReturnsTopSubscriptions() throws Exception {
@@ -123,6 +196,128 @@ public class SubscriptionControllerIntegrationTest {
                 .andExpect(jsonPath("$[2]", is(expectedNames.get(2))));
     }
 
+    @Test
+    @DisplayName("Должен корректно вернуть топ N подписок с учетом удалений")
+    void findTopSubscriptions_WithLimit_ReflectsDeletes() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser2', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser3', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub1', 2, 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub1', 3, 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub2', 2, 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub3', 3, 0)");
+
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/top").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", is("Sub1")));
+
+        jdbcTemplate.execute("DELETE FROM user_subscriptions.users WHERE id = 3");
+        mockMvc.perform(delete("/user-subscriptions/v1/users/2/subscriptions/7"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/top").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is("Sub1")))
+                .andExpect(jsonPath("$[1]", is("Sub2")));
+        Long sub1Count = jdbcTemplate.queryForObject("SELECT subscription_count " +
+                "FROM user_subscriptions.subscription_name_counts WHERE name = 'Sub1'", Long.class);
+        assertThat(sub1Count).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при недопустимом limit")
+    void findTopSubscriptions_InvalidLimit_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/top").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть приближенный топ подписок с границами ошибки")
+    void findApproximateTopSubscriptions_AfterCreates_ReturnsEstimates() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser2', 0)");
+        heavyHitters.rebuild();
+        Subscription newSubscription = Subscription.builder().name("Sub1").user(2L).build();
+        mockMvc.perform(post("/user-subscriptions/v1/users/2/subscriptions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newSubscription)))
+                .andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/top")
+                        .param("mode", "approximate").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscriptions", hasSize(1)))
+                .andExpect(jsonPath("$.subscriptions[0].name", is("Sub1")))
+                .andExpect(jsonPath("$.subscriptions[0].estimatedCount", is(2)))
+                .andExpect(jsonPath("$.totalCount", is(5)))
+                .andExpect(jsonPath("$.maxOverestimate").isNumber());
+
+        byte[] sketch = mockMvc.perform(get("/user-subscriptions/v1/subscriptions/top/sketch"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/user-subscriptions/v1/subscriptions/top/sketch")
+                            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                            .content(sketch))
+                    .andExpect(status().isNoContent());
+        }
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/top")
+                        .param("mode", "approximate").param("limit", "1"))
+                .andExpect(jsonPath("$.subscriptions[0].estimatedCount", is(2)))
+                .andExpect(jsonPath("$.totalCount", is(5)));
+        mockMvc.perform(post("/user-subscriptions/v1/subscriptions/top/sketch")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть трендовые подписки с учетом окна и сворачивания корзин")
+    void findTrendingSubscriptions_WithWindow_MergesHourlyAndDailyBuckets() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser2', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser3', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, version)" +
+                " VALUES ('OldSub', 2, LOCALTIMESTAMP - interval '3 days', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, version)" +
+                " VALUES ('OldSub', 3, LOCALTIMESTAMP - interval '3 days', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, version)" +
+                " VALUES ('AncientSub', 2, LOCALTIMESTAMP - interval '20 days', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, created_at, version)" +
+                " VALUES ('AncientSub', 3, LOCALTIMESTAMP - interval '20 days', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub1', 2, 0)");
+        compactionJob.compact();
+
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/trending")
+                        .param("window", "1h").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", is("Sub1")));
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/trending")
+                        .param("window", "7d").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is("OldSub")))
+                .andExpect(jsonPath("$[1]", is("Sub1")));
+        Long hourlyBuckets = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_subscriptions.subscription_name_buckets" +
+                " WHERE granularity = 'HOUR' AND name IN ('OldSub', 'AncientSub')", Long.class);
+        assertThat(hourlyBuckets).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при некорректном окне трендовых подписок")
+    void findTrendingSubscriptions_InvalidWindow_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/subscriptions/trending").param("window", "1w"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Должен корректно создать новую подписку")
     void createSubscription_ValidSubscription_ReturnsCreatedSubscription() throws Exception {
@@ -138,8 +333,9 @@ public class SubscriptionControllerIntegrationTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.name").value("NewSubscription"));
 
-        int count = jdbcTemplate.queryForObject("SELECT COUNT(*) " +
-                        "FROM user_subscriptions.subscriptions WHERE user_id = ? AND name = ?"
+        int count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_subscriptions.subscriptions s " +
+                        "JOIN user_subscriptions.subscription_catalog c ON c.id = s.catalog_id " +
+                        "WHERE s.user_id = ? AND c.name = ?"
                 , Integer.class, 1L, "NewSubscription");
         assertThat(count).isEqualTo(1);
     }
@@ -158,6 +354,53 @@ public class SubscriptionControllerIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("Должен корректно отклонить повторную подписку и подписку несуществующему пользователю")
+    void createSubscription_DuplicateOrMissingUser_ReturnsBadRequestOrNotFound() throws Exception {
+        // Arrange
+        String duplicateJson = objectMapper.writeValueAsString(Subscription.builder().name("Sub1").user(1L).build());
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/users/1/subscriptions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(duplicateJson))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/user-subscriptions/v1/users/999/subscriptions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(duplicateJson))
+                .andExpect(status().isNotFound());
+
+        Long sub1Count = jdbcTemplate.queryForObject("SELECT subscription_count " +
+                "FROM user_subscriptions.subscription_name_counts WHERE name = 'Sub1'", Long.class);
+        assertThat(sub1Count).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно сравнивать имена подписок без учета регистра и пробелов по краям")
+    void createSubscription_OtherSpellingOfExistingName_UsesCatalogName() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('otherUser', 0)");
+        String otherSpellingJson = objectMapper.writeValueAsString(Subscription.builder().name("  sub1 ").build());
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/users/1/subscriptions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(otherSpellingJson))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/user-subscriptions/v1/users/2/subscriptions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(otherSpellingJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Sub1")));
+
+        Long sub1Count = jdbcTemplate.queryForObject("SELECT subscription_count " +
+                "FROM user_subscriptions.subscription_name_counts WHERE name = 'Sub1'", Long.class);
+        assertThat(sub1Count).isEqualTo(2L);
+        mockMvc.perform(get("/user-subscriptions/v1/users/2/subscriptions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Sub1")));
+    }
+
     @Test
     @DisplayName("Должен корректно удалить существующую подписку")
     void deleteSubscription_ExistingSubscription_ReturnsNoContent() throws Exception {
@@ -169,6 +412,41 @@ public class SubscriptionControllerIntegrationTest {
         assertThat(count).isEqualTo(0);
     }
 
+    @Test
+    @DisplayName("Должен корректно не удалить подписку другого пользователя")
+    void deleteSubscription_OtherUsersSubscription_ReturnsNotFound() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser', 0)");
+
+        // Act & Assert
+        mockMvc.perform(delete("/user-subscriptions/v1/users/2/subscriptions/1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/user-subscriptions/v1/users/1/subscriptions/999"))
+                .andExpect(status().isNotFound());
+        int count = jdbcTemplate
+                .queryForObject("SELECT COUNT(*) FROM user_subscriptions.subscriptions WHERE id = ?", Integer.class, 1L);
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен корректно удалить несколько подписок пользователя одним запросом")
+    void deleteSubscriptions_MixedIds_ReturnsDeletedIds() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) VALUES ('Sub4', 2, 0)");
+
+        // Act & Assert
+        mockMvc.perform(delete("/user-subscriptions/v1/users/1/subscriptions").param("ids", "1,2,5,999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        List<Long> remaining = jdbcTemplate.queryForList(
+                "SELECT id FROM user_subscriptions.subscriptions ORDER BY id", Long.class);
+        assertThat(remaining).containsExactly(3L, 4L, 5L);
+        Long testSubscriptionCount = jdbcTemplate.queryForObject("SELECT COUNT(*) " +
+                "FROM user_subscriptions.subscription_name_counts WHERE name IN ('TestSubscription', 'Sub1')", Long.class);
+        assertThat(testSubscriptionCount).isEqualTo(0L);
+    }
+
     @Test
     @DisplayName("Должен корректно вернуть пустую коллекцию для несуществующего пользователя")
     void getSubscriptionByUserId_NonExistingId_ReturnsEmptyList() throws Exception {
@@ -178,5 +456,34 @@ public class SubscriptionControllerIntegrationTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(0)));
     }
-}
 
+    @Test
+    @DisplayName("Должен корректно вернуть подписки нескольких пользователей, сгруппированные по пользователю")
+    void getSubscriptionsByUserIds_MixedIds_ReturnsGroupedSubscriptionsAndMissingIds() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('withoutSubscriptions', 0)");
+
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/users/subscriptions:batchGet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\": [2, 1, 999]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(2)))
+                .andExpect(jsonPath("$.users[0].user").value(2))
+                .andExpect(jsonPath("$.users[0].subscriptions", hasSize(0)))
+                .andExpect(jsonPath("$.users[1].user").value(1))
+                .andExpect(jsonPath("$.users[1].subscriptions", hasSize(4)))
+                .andExpect(jsonPath("$.missingIds", hasSize(1)))
+                .andExpect(jsonPath("$.missingIds[0]").value(999));
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при пустом списке пользователей")
+    void getSubscriptionsByUserIds_EmptyIds_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/user-subscriptions/v1/users/subscriptions:batchGet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+}
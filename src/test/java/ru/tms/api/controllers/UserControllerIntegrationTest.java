@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
@@ -23,8 +24,10 @@ import ru.tms.dto.User;
 import ru.tms.services.UserService;
 
 import java.time.Duration;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -96,6 +99,29 @@ public class UserControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Должен вернуть 304 по ETag пользователя, пока пользователь не изменился")
+    void getUserById_IfNoneMatch_ReturnsNotModifiedUntilUpdated() throws Exception {
+        // Arrange
+        mockMvc.perform(get("/user-subscriptions/v1/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/user-subscriptions/v1/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(User.builder().username("renamedUser").build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/user-subscriptions/v1/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.username").value("renamedUser"));
+    }
+
     @Test
     @DisplayName("Должен корректно создать пользователя")
     void createUser_ValidUser_ReturnsCreatedUser() throws Exception {
@@ -147,6 +173,28 @@ public class UserControllerIntegrationTest {
         assertThat(username).isEqualTo("updatedUser");
     }
 
+    @Test
+    @DisplayName("Должен корректно сохранить текущее имя и отклонить имя другого пользователя")
+    void updateUser_SameOrTakenUsername_ReturnsOkOrBadRequest() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser', 0)");
+        String sameNameJson = objectMapper.writeValueAsString(User.builder().username("testUser").build());
+        String takenNameJson = objectMapper.writeValueAsString(User.builder().username("anotherUser").build());
+
+        // Act & Assert
+        mockMvc.perform(put("/user-subscriptions/v1/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(sameNameJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("testUser"));
+        mockMvc.perform(put("/user-subscriptions/v1/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(takenNameJson))
+                .andExpect(status().isBadRequest());
+        String username = jdbcTemplate.queryForObject("SELECT username FROM user_subscriptions.users WHERE id = 1", String.class);
+        assertThat(username).isEqualTo("testUser");
+    }
+
     @Test
     @DisplayName("Должен корректно упасть в ошибку при обновлении пользователя")
     void updateUser_NonExistingUser_ReturnsNotFound() throws Exception {
@@ -177,4 +225,37 @@ public class UserControllerIntegrationTest {
         mockMvc.perform(delete("/user-subscriptions/v1/users/999"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DisplayName("Должен корректно удалить нескольких пользователей одним запросом")
+    void deleteUsers_MixedIds_ReturnsDeletedIds() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser', 0)");
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('thirdUser', 0)");
+
+        // Act & Assert
+        mockMvc.perform(delete("/user-subscriptions/v1/users").param("ids", "1,3,999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        List<Long> remaining = jdbcTemplate.queryForList(
+                "SELECT id FROM user_subscriptions.users ORDER BY id", Long.class);
+        assertThat(remaining).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть нескольких пользователей и перечислить ненайденные id")
+    void getUsersByIds_MixedIds_ReturnsUsersAndMissingIds() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('anotherUser', 0)");
+
+        // Act & Assert
+        mockMvc.perform(get("/user-subscriptions/v1/users").param("ids", "2,999,1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(2)))
+                .andExpect(jsonPath("$.users[0].id").value(2))
+                .andExpect(jsonPath("$.users[0].username").value("anotherUser"))
+                .andExpect(jsonPath("$.users[1].id").value(1))
+                .andExpect(jsonPath("$.missingIds", hasSize(1)))
+                .andExpect(jsonPath("$.missingIds[0]").value(999));
+    }
 }
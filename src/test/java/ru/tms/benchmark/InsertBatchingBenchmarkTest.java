@@ -0,0 +1,155 @@
+package ru.tms.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.cache.SubscriptionCatalog;
+import ru.tms.repo.SubscriptionRepo;
+import ru.tms.services.BatchServiceImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Создание 100 000 подписок теми запросами, которыми пишет сервис: по одной строке через insertIfAbsent
+ * (POST /users/{id}/subscriptions) против многострочного insertAllIfAbsent пачками по
+ * {@value BatchServiceImpl#MAX_BATCH_OPERATIONS} (POST /batch и объединение одновременных созданий).
+ * Сущности на запись не используются, поэтому пакетная вставка Hibernate здесь не участвует.
+ * Для каждого пути печатаются время, строки в секунду и число SQL-запросов.
+ * Запуск: mvn test -Pbenchmark -Dtest=InsertBatchingBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.flyway.enabled=true"})
+@Testcontainers
+@ActiveProfiles("test")
+public class InsertBatchingBenchmarkTest {
+
+    private static final int USERS = 1000;
+    private static final int SUBSCRIPTIONS_PER_USER = 100;
+    private static final int SUBSCRIPTIONS = USERS * SUBSCRIPTIONS_PER_USER;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private SubscriptionRepo subscriptionRepo;
+
+    @Autowired
+    private SubscriptionCatalog subscriptionCatalog;
+
+    private List<Long> userIds;
+    private List<Integer> catalogIds;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+        jdbcTemplate.update("INSERT INTO user_subscriptions.users (username, version) " +
+                "SELECT 'owner-' || n, 0 FROM generate_series(1, ?) AS n", USERS);
+        userIds = jdbcTemplate.queryForList("SELECT id FROM user_subscriptions.users ORDER BY id", Long.class);
+        catalogIds = new ArrayList<>(SUBSCRIPTIONS_PER_USER);
+        for (int n = 1; n <= SUBSCRIPTIONS_PER_USER; n++) {
+            catalogIds.add(subscriptionCatalog.resolve("sub-" + n).id());
+        }
+    }
+
+    @Test
+    @DisplayName("Замер создания 100 000 подписок: INSERT на строку против многострочного INSERT пачками")
+    void createSubscriptions_RowByRowVersusMultiRow() {
+        Result rowByRow = measure("row by row", pairs -> {
+            for (int i = 0; i < pairs.userIds().size(); i++) {
+                subscriptionRepo.insertIfAbsent(pairs.userIds().get(i), pairs.catalogIds().get(i));
+            }
+            return pairs.userIds().size();
+        });
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY;");
+        Result multiRow = measure("multi-row", pairs -> {
+            int statements = 0;
+            for (int from = 0; from < pairs.userIds().size(); from += BatchServiceImpl.MAX_BATCH_OPERATIONS) {
+                int to = Math.min(from + BatchServiceImpl.MAX_BATCH_OPERATIONS, pairs.userIds().size());
+                subscriptionRepo.insertAllIfAbsent(pairs.userIds().subList(from, to),
+                        pairs.catalogIds().subList(from, to));
+                statements++;
+            }
+            return statements;
+        });
+
+        print(rowByRow, multiRow);
+        assertThat(multiRow.statements()).isEqualTo(SUBSCRIPTIONS / BatchServiceImpl.MAX_BATCH_OPERATIONS);
+        assertThat(multiRow.totalMillis()).isLessThan(rowByRow.totalMillis());
+    }
+
+    private Result measure(String name, ToIntFunction<Pairs> write) {
+        List<Long> pairUserIds = new ArrayList<>(SUBSCRIPTIONS);
+        List<Integer> pairCatalogIds = new ArrayList<>(SUBSCRIPTIONS);
+        for (Long userId : userIds) {
+            for (Integer catalogId : catalogIds) {
+                pairUserIds.add(userId);
+                pairCatalogIds.add(catalogId);
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        int statements = write.applyAsInt(new Pairs(pairUserIds, pairCatalogIds));
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM user_subscriptions.subscriptions", Long.class))
+                .isEqualTo(SUBSCRIPTIONS);
+        return new Result(name, elapsedNanos / 1_000_000,
+                SUBSCRIPTIONS / (elapsedNanos / 1_000_000_000.0), statements);
+    }
+
+    private static void print(Result... results) {
+        System.out.printf("%n%-12s %10s %12s %12s%n", "path", "total ms", "rows/s", "statements");
+        for (Result result : results) {
+            System.out.printf("%-12s %10d %12.0f %12d%n", result.name(), result.totalMillis(),
+                    result.rowsPerSecond(), result.statements());
+        }
+    }
+
+    private record Pairs(List<Long> userIds, List<Integer> catalogIds) {
+    }
+
+    private record Result(String name, long totalMillis, double rowsPerSecond, long statements) {
+    }
+}
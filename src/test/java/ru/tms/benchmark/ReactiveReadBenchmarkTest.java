@@ -0,0 +1,214 @@
+package ru.tms.benchmark;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.ClientSubscriptionsApp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение чтений через MVC и JDBC с чтениями через WebFlux и R2DBC на одной БД.
+ * Клиенты в замкнутом цикле ходят в GET /users/{id}, GET /users/{id}/subscriptions и GET /subscriptions/top;
+ * для каждого стека печатаются пропускная способность, p50, p99 и число соединений с БД по pg_stat_activity
+ * (среднее и пиковое число открытых и выполняющих запрос соединений).
+ * Реактивный узел запускается с профилем reactive, как в развертывании: пул Hikari в нем сокращен до двух соединений.
+ * Запуск: mvn test -Pbenchmark -Dtest=ReactiveReadBenchmarkTest
+ */
+@Tag("benchmark")
+@Testcontainers
+public class ReactiveReadBenchmarkTest {
+
+    private static final int USERS = 1000;
+    private static final int SUBSCRIPTIONS_PER_USER = 5;
+    private static final int CONCURRENT_CLIENTS = 1000;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(50);
+
+    private static final String CONNECTIONS_SQL = """
+            SELECT count(*) AS opened, count(*) FILTER (WHERE state = 'active') AS active
+            FROM pg_stat_activity WHERE datname = current_database() AND pid <> pg_backend_pid()""";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .withCommand("postgres", "-c", "max_connections=300")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    private static HttpClient httpClient;
+    private static JdbcTemplate monitor;
+
+    @BeforeAll
+    static void setUp() {
+        httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        monitor = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(),
+                postgres.getUsername(), postgres.getPassword()));
+    }
+
+    @Test
+    @DisplayName("Замер чтений: MVC и JDBC против WebFlux и R2DBC")
+    void readEndpoints_MvcVersusWebFlux() throws Exception {
+        Result mvc = run("mvc + jdbc", true, "test");
+        Result reactive = run("webflux + r2dbc", false, "test", "reactive");
+
+        print(mvc, reactive);
+        assertThat(reactive.errors()).isZero();
+        assertThat(reactive.peakOpened()).isLessThanOrEqualTo(mvc.peakOpened());
+    }
+
+    private Result run(String name, boolean seed, String... profiles) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ClientSubscriptionsApp.class)
+                .profiles(profiles)
+                .run(
+                        "--server.port=0",
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.datasource.url=" + postgres.getJdbcUrl() + "?currentSchema=user_subscriptions",
+                        "--spring.datasource.username=test",
+                        "--spring.datasource.password=test",
+                        "--user-subscriptions.reactive.url=r2dbc:postgresql://" + postgres.getHost() + ":"
+                                + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/test",
+                        "--user-subscriptions.reactive.username=test",
+                        "--user-subscriptions.reactive.password=test")) {
+            if (seed) {
+                seed(context.getBean(JdbcTemplate.class));
+            }
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            drive(port, WARMUP);
+            return measure(name, port);
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO user_subscriptions.users (username, version) " +
+                "SELECT 'user-' || i, 0 FROM generate_series(1, ?) AS i", USERS);
+        jdbcTemplate.update("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) " +
+                "SELECT 'sub-' || (u.id * 7 + s) % 50, u.id, 0 " +
+                "FROM user_subscriptions.users u, generate_series(1, ?) AS s", SUBSCRIPTIONS_PER_USER);
+    }
+
+    private Result measure(String name, int port) throws Exception {
+        List<long[]> samples = new ArrayList<>();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> samples.add(monitor.queryForObject(CONNECTIONS_SQL,
+                        (rs, rowNum) -> new long[]{rs.getLong("opened"), rs.getLong("active")})),
+                0, SAMPLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        long startedAt = System.nanoTime();
+        Load load;
+        try {
+            load = drive(port, MEASUREMENT);
+        } finally {
+            sampler.shutdown();
+            sampler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long[] latencies = load.latencies();
+        Arrays.sort(latencies);
+        return new Result(name, latencies.length, load.errors(), latencies.length / seconds,
+                latencies.length == 0 ? 0 : latencies[latencies.length / 2] / 1e6,
+                latencies.length == 0 ? 0 : latencies[(int) (latencies.length * 0.99)] / 1e6,
+                samples.stream().mapToLong(sample -> sample[0]).average().orElse(0),
+                samples.stream().mapToLong(sample -> sample[0]).max().orElse(0),
+                samples.stream().mapToLong(sample -> sample[1]).average().orElse(0),
+                samples.stream().mapToLong(sample -> sample[1]).max().orElse(0));
+    }
+
+    private Load drive(int port, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<List<Long>>> clients = new ArrayList<>(CONCURRENT_CLIENTS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < CONCURRENT_CLIENTS; client++) {
+                int clientId = client;
+                clients.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>();
+                    for (long i = clientId; System.nanoTime() < deadline; i += CONCURRENT_CLIENTS) {
+                        HttpRequest request = HttpRequest.newBuilder(uri(port, i))
+                                .timeout(Duration.ofSeconds(60))
+                                .GET()
+                                .build();
+                        long requestStartedAt = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request,
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies.add(System.nanoTime() - requestStartedAt);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+        }
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> client : clients) {
+            all.addAll(client.get());
+        }
+        return new Load(all.stream().mapToLong(Long::longValue).toArray(), errors.get());
+    }
+
+    private static URI uri(int port, long i) {
+        long userId = i % USERS + 1;
+        String path = switch ((int) (i % 3)) {
+            case 0 -> "/users/" + userId;
+            case 1 -> "/users/" + userId + "/subscriptions";
+            default -> "/subscriptions/top";
+        };
+        return URI.create("http://localhost:" + port + "/user-subscriptions/v1" + path);
+    }
+
+    private static void print(Result... results) {
+        System.out.printf("%n%d clients%n", CONCURRENT_CLIENTS);
+        System.out.printf("%-16s %9s %7s %10s %8s %8s %10s %10s %10s %10s%n", "stack", "requests", "errors",
+                "req/s", "p50 ms", "p99 ms", "conn avg", "conn max", "active avg", "active max");
+        for (Result result : results) {
+            System.out.printf("%-16s %9d %7d %10.1f %8.1f %8.1f %10.1f %10d %10.1f %10d%n", result.name(),
+                    result.requests(), result.errors(), result.throughput(), result.p50Millis(), result.p99Millis(),
+                    result.meanOpened(), result.peakOpened(), result.meanActive(), result.peakActive());
+        }
+    }
+
+    private record Load(long[] latencies, long errors) {
+    }
+
+    private record Result(String name, long requests, long errors, double throughput, double p50Millis,
+                          double p99Millis, double meanOpened, long peakOpened, double meanActive, long peakActive) {
+    }
+}
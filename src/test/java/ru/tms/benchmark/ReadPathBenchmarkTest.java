@@ -0,0 +1,181 @@
+package ru.tms.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.cache.SubscriptionCatalog;
+import ru.tms.dto.Subscription;
+import ru.tms.entity.SubscriptionEntity;
+import ru.tms.mappers.SubscriptionMapper;
+import ru.tms.repo.SubscriptionRepo;
+import ru.tms.services.SubscriptionService;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение чтения списка подписок через сущности (как было: транзакция на запись, загрузка SubscriptionEntity
+ * с пользователем, снимки для проверки изменений, SubscriptionMapper) с чтением проекцией в транзакции только
+ * для чтения. Операция включает сериализацию ответа в JSON. Для каждого пути печатаются задержка, байты,
+ * выделенные потоком, и сущности, загруженные Hibernate, в расчете на операцию. Кэш списков в профиле test выключен.
+ * Запуск: mvn test -Pbenchmark -Dtest=ReadPathBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.flyway.enabled=true"})
+@Testcontainers
+@ActiveProfiles("test")
+public class ReadPathBenchmarkTest {
+
+    private static final int WARMUP_OPERATIONS = 2000;
+    private static final int MEASURED_OPERATIONS = 5000;
+    private static final int SUBSCRIPTIONS_PER_USER = 50;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private SubscriptionRepo subscriptionRepo;
+
+    @Autowired
+    private SubscriptionMapper subscriptionMapper;
+
+    @Autowired
+    private SubscriptionCatalog subscriptionCatalog;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long serializedBytes;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('owner', 0)");
+        jdbcTemplate.update("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) " +
+                "SELECT 'sub-' || n, 1, 0 FROM generate_series(1, ?) AS n", SUBSCRIPTIONS_PER_USER);
+    }
+
+    @Test
+    @DisplayName("Замер чтения списка подписок: сущности и маппер против проекции в транзакции только для чтения")
+    void getSubscriptionsByUserId_EntitiesVersusProjection() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        Result entities = measure("entities + mapper", i -> readWrite.execute(status -> {
+            List<SubscriptionEntity> subscriptionEntities = subscriptionRepo.findByUserId(1L);
+            subscriptionCatalog.decode(subscriptionEntities);
+            return subscriptionMapper.toDto(subscriptionEntities);
+        }));
+        Result projection = measure("read-only projection", i -> subscriptionService.getSubscriptionsByUserId(1L));
+
+        print(entities, projection);
+        assertThat(serializedBytes).isPositive();
+        assertThat(projection.entityLoadsPerOperation()).isZero();
+        assertThat(projection.allocatedBytesPerOperation()).isLessThan(entities.allocatedBytesPerOperation());
+    }
+
+    private Result measure(String name, IntFunction<List<Subscription>> operation) {
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            serialize(operation.apply(i));
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long entityLoadsBefore = statistics.getEntityLoadCount();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        long[] latencies = new long[MEASURED_OPERATIONS];
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            long startedAt = System.nanoTime();
+            serialize(operation.apply(i));
+            latencies[i] = System.nanoTime() - startedAt;
+        }
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long entityLoads = statistics.getEntityLoadCount() - entityLoadsBefore;
+        Arrays.sort(latencies);
+        return new Result(name,
+                Arrays.stream(latencies).average().orElse(0) / 1_000,
+                latencies[latencies.length / 2] / 1_000.0,
+                latencies[(int) (latencies.length * 0.99)] / 1_000.0,
+                (double) allocated / MEASURED_OPERATIONS,
+                (double) entityLoads / MEASURED_OPERATIONS);
+    }
+
+    private void serialize(List<Subscription> subscriptions) {
+        try {
+            this.serializedBytes += objectMapper.writeValueAsBytes(subscriptions).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void print(Result... results) {
+        System.out.printf("%n%-24s %10s %10s %10s %14s %14s%n",
+                "path", "mean us", "p50 us", "p99 us", "alloc B/op", "entities/op");
+        for (Result result : results) {
+            System.out.printf("%-24s %10.1f %10.1f %10.1f %14.0f %14.1f%n", result.name(), result.meanMicros(),
+                    result.p50Micros(), result.p99Micros(), result.allocatedBytesPerOperation(),
+                    result.entityLoadsPerOperation());
+        }
+    }
+
+    private record Result(String name, double meanMicros, double p50Micros, double p99Micros,
+                          double allocatedBytesPerOperation, double entityLoadsPerOperation) {
+    }
+}
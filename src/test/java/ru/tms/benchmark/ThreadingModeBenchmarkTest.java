@@ -0,0 +1,215 @@
+package ru.tms.benchmark;
+
+import eu.rekawek.toxiproxy.Proxy;
+import eu.rekawek.toxiproxy.ToxiproxyClient;
+import eu.rekawek.toxiproxy.model.ToxicDirection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.ToxiproxyContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.ClientSubscriptionsApp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение режима платформенных потоков Tomcat с режимом виртуальных потоков при задержке ответов БД.
+ * Приложение поднимается дважды на одной БД, между ними и Postgres стоит Toxiproxy с задержкой ответов.
+ * Клиенты в замкнутом цикле ходят в GET /users/{id}, GET /users/{id}/subscriptions и GET /subscriptions/top;
+ * для каждого режима печатаются пропускная способность, p50, p99 и число ошибок.
+ * Запуск: mvn test -Pbenchmark -Dtest=ThreadingModeBenchmarkTest
+ */
+@Tag("benchmark")
+@Testcontainers
+public class ThreadingModeBenchmarkTest {
+
+    private static final int USERS = 1000;
+    private static final int SUBSCRIPTIONS_PER_USER = 5;
+    private static final int CONCURRENT_CLIENTS = 800;
+    private static final int DB_LATENCY_MILLIS = 20;
+    private static final int DB_LATENCY_JITTER_MILLIS = 10;
+    private static final int POOL_SIZE = 40;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .withNetwork(network)
+            .withNetworkAliases("postgres")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @Container
+    static ToxiproxyContainer toxiproxy = new ToxiproxyContainer("ghcr.io/shopify/toxiproxy:2.5.0")
+            .withNetwork(network);
+
+    private static Proxy postgresProxy;
+    private static HttpClient httpClient;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        ToxiproxyClient client = new ToxiproxyClient(toxiproxy.getHost(), toxiproxy.getControlPort());
+        postgresProxy = client.createProxy("postgres", "0.0.0.0:8666", "postgres:5432");
+        httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        network.close();
+    }
+
+    @Test
+    @DisplayName("Замер чтений на платформенных потоках против виртуальных потоков с ограничением обращений к БД")
+    void readEndpoints_PlatformThreadsVersusVirtualThreads() throws Exception {
+        Result platform = run("platform threads", false, true);
+        Result virtual = run("virtual threads", true, false);
+
+        print(platform, virtual);
+        assertThat(virtual.errors()).isZero();
+        assertThat(virtual.requests()).isPositive();
+    }
+
+    private Result run(String name, boolean virtualThreads, boolean seed) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ClientSubscriptionsApp.class)
+                .profiles("test")
+                .run(
+                        "--server.port=0",
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:postgresql://" + toxiproxy.getHost() + ":"
+                                + toxiproxy.getMappedPort(8666) + "/test?currentSchema=user_subscriptions",
+                        "--spring.datasource.username=test",
+                        "--spring.datasource.password=test",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE)) {
+            if (seed) {
+                seed(context.getBean(JdbcTemplate.class));
+            }
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            postgresProxy.toxics().latency("latency", ToxicDirection.DOWNSTREAM, DB_LATENCY_MILLIS)
+                    .setJitter(DB_LATENCY_JITTER_MILLIS);
+            try {
+                drive(port, WARMUP);
+                return measure(name, port);
+            } finally {
+                postgresProxy.toxics().get("latency").remove();
+            }
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO user_subscriptions.users (username, version) " +
+                "SELECT 'user-' || i, 0 FROM generate_series(1, ?) AS i", USERS);
+        jdbcTemplate.update("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) " +
+                "SELECT 'sub-' || (u.id * 7 + s) % 50, u.id, 0 " +
+                "FROM user_subscriptions.users u, generate_series(1, ?) AS s", SUBSCRIPTIONS_PER_USER);
+    }
+
+    private Result measure(String name, int port) throws Exception {
+        long startedAt = System.nanoTime();
+        Load load = drive(port, MEASUREMENT);
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long[] latencies = load.latencies();
+        Arrays.sort(latencies);
+        return new Result(name, latencies.length, load.errors(), latencies.length / seconds,
+                latencies.length == 0 ? 0 : latencies[latencies.length / 2] / 1e6,
+                latencies.length == 0 ? 0 : latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private Load drive(int port, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<List<Long>>> clients = new ArrayList<>(CONCURRENT_CLIENTS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < CONCURRENT_CLIENTS; client++) {
+                int clientId = client;
+                clients.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>();
+                    for (long i = clientId; System.nanoTime() < deadline; i += CONCURRENT_CLIENTS) {
+                        HttpRequest request = HttpRequest.newBuilder(uri(port, i))
+                                .timeout(Duration.ofSeconds(60))
+                                .GET()
+                                .build();
+                        long requestStartedAt = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request,
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies.add(System.nanoTime() - requestStartedAt);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+        }
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> client : clients) {
+            all.addAll(client.get());
+        }
+        return new Load(all.stream().mapToLong(Long::longValue).toArray(), errors.get());
+    }
+
+    private static URI uri(int port, long i) {
+        long userId = i % USERS + 1;
+        String path = switch ((int) (i % 3)) {
+            case 0 -> "/users/" + userId;
+            case 1 -> "/users/" + userId + "/subscriptions";
+            default -> "/subscriptions/top";
+        };
+        return URI.create("http://localhost:" + port + "/user-subscriptions/v1" + path);
+    }
+
+    private static void print(Result... results) {
+        System.out.printf("%n%d clients, %d ms +- %d ms DB latency, pool %d%n",
+                CONCURRENT_CLIENTS, DB_LATENCY_MILLIS, DB_LATENCY_JITTER_MILLIS, POOL_SIZE);
+        System.out.printf("%-20s %10s %10s %12s %10s %10s%n", "mode", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-20s %10d %10d %12.1f %10.1f %10.1f%n", result.name(), result.requests(),
+                    result.errors(), result.throughput(), result.p50Millis(), result.p99Millis());
+        }
+    }
+
+    private record Load(long[] latencies, long errors) {
+    }
+
+    private record Result(String name, long requests, long errors, double throughput,
+                          double p50Millis, double p99Millis) {
+    }
+}
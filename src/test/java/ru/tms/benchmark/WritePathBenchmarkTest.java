@@ -0,0 +1,173 @@
+package ru.tms.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+import ru.tms.entity.SubscriptionEntity;
+import ru.tms.entity.UserEntity;
+import ru.tms.repo.SubscriptionRepo;
+import ru.tms.repo.UserRepo;
+import ru.tms.services.SubscriptionService;
+import ru.tms.services.UserService;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение записи через проверку и save (как было) с записью одним SQL-запросом.
+ * Для каждого пути печатаются задержка операции и время удержания соединения из пула на операцию.
+ * Запуск: mvn test -Pbenchmark -Dtest=WritePathBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.flyway.enabled=true"})
+@Testcontainers
+@ActiveProfiles("test")
+public class WritePathBenchmarkTest {
+
+    private static final int WARMUP_OPERATIONS = 300;
+    private static final int MEASURED_OPERATIONS = 3000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private SubscriptionRepo subscriptionRepo;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.users (username, version) VALUES ('owner', 0)");
+    }
+
+    @Test
+    @DisplayName("Замер создания пользователя: проверка и save против INSERT ... ON CONFLICT")
+    void createUser_CheckThenActVersusSingleStatement() {
+        Result checkThenAct = measure("createUser check-then-act", i -> {
+            String username = "legacy-user-" + i;
+            if (userRepo.findByUsername(username).isEmpty()) {
+                userRepo.save(new UserEntity(username));
+            }
+        });
+        Result singleStatement = measure("createUser single statement", i ->
+                userService.createUser(User.builder().username("user-" + i).build()));
+
+        print(checkThenAct, singleStatement);
+        assertThat(singleStatement.acquisitionsPerOperation()).isLessThan(checkThenAct.acquisitionsPerOperation());
+    }
+
+    @Test
+    @DisplayName("Замер создания подписки: чтение пользователя, проверка и save против одного INSERT")
+    void createSubscription_CheckThenActVersusSingleStatement() {
+        Result checkThenAct = measure("createSubscription check-then-act", i -> {
+            UserEntity owner = userRepo.findById(1L).orElseThrow();
+            String name = "legacy-sub-" + i;
+            if (subscriptionService.getSubscriptionByUserIdAndName(name, owner).isEmpty()) {
+                subscriptionRepo.save(new SubscriptionEntity(name, owner));
+            }
+        });
+        Result singleStatement = measure("createSubscription single statement", i ->
+                subscriptionService.createSubscription(Subscription.builder().name("sub-" + i).build(), 1L));
+
+        print(checkThenAct, singleStatement);
+        assertThat(singleStatement.acquisitionsPerOperation()).isLessThan(checkThenAct.acquisitionsPerOperation());
+    }
+
+    private Result measure(String name, IntConsumer operation) {
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            operation.accept(-1 - i);
+        }
+        Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+        long usageCountBefore = usage.count();
+        double usageNanosBefore = usage.totalTime(TimeUnit.NANOSECONDS);
+        long acquireCountBefore = acquire.count();
+
+        long[] latencies = new long[MEASURED_OPERATIONS];
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            long startedAt = System.nanoTime();
+            operation.accept(i);
+            latencies[i] = System.nanoTime() - startedAt;
+        }
+
+        double holdNanos = usage.totalTime(TimeUnit.NANOSECONDS) - usageNanosBefore;
+        long acquisitions = acquire.count() - acquireCountBefore;
+        assertThat(usage.count() - usageCountBefore).isEqualTo(acquisitions);
+        Arrays.sort(latencies);
+        return new Result(name,
+                Arrays.stream(latencies).average().orElse(0) / 1_000,
+                latencies[latencies.length / 2] / 1_000.0,
+                latencies[(int) (latencies.length * 0.99)] / 1_000.0,
+                (double) acquisitions / MEASURED_OPERATIONS,
+                holdNanos / MEASURED_OPERATIONS / 1_000);
+    }
+
+    private static void print(Result... results) {
+        System.out.printf("%n%-36s %10s %10s %10s %14s %14s%n",
+                "path", "mean us", "p50 us", "p99 us", "conn/op", "conn hold us/op");
+        for (Result result : results) {
+            System.out.printf("%-36s %10.1f %10.1f %10.1f %14.2f %14.1f%n", result.name(), result.meanMicros(),
+                    result.p50Micros(), result.p99Micros(), result.acquisitionsPerOperation(), result.holdMicrosPerOperation());
+        }
+    }
+
+    private record Result(String name, double meanMicros, double p50Micros, double p99Micros,
+                          double acquisitionsPerOperation, double holdMicrosPerOperation) {
+    }
+}
@@ -0,0 +1,138 @@
+package ru.tms.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import ru.tms.config.SubscriptionListCacheProperties;
+import ru.tms.dto.Subscription;
+import ru.tms.events.SubscriptionCreatedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SubscriptionListCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final List<Runnable> pendingRefreshes = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SubscriptionListCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SubscriptionListCache(
+                new SubscriptionListCacheProperties(true, DataSize.ofKilobytes(1), Duration.ofMinutes(1), Duration.ofMinutes(10)),
+                new SimpleMeterRegistry(), nanos::get, pendingRefreshes::add);
+    }
+
+    @Test
+    @DisplayName("Должен корректно отдавать устаревший список, пока идет одна фоновая перезагрузка")
+    void get_StaleEntry_ServesStaleAndRefreshesOnce() {
+        // Arrange
+        cache.get(1L, this::load);
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        // Act
+        List<Subscription> first = cache.get(1L, this::load);
+        List<Subscription> second = cache.get(1L, this::load);
+
+        // Assert
+        assertThat(first).extracting(Subscription::name).containsExactly("Sub-1");
+        assertThat(second).extracting(Subscription::name).containsExactly("Sub-1");
+        assertThat(pendingRefreshes).hasSize(1);
+        pendingRefreshes.remove(0).run();
+        assertThat(cache.get(1L, this::load)).extracting(Subscription::name).containsExactly("Sub-2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Должен корректно отбросить результат перезагрузки, если запись была сброшена")
+    void get_InvalidatedDuringRefresh_DiscardsRefreshResult() {
+        // Arrange
+        cache.get(1L, this::load);
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.get(1L, this::load);
+
+        // Act
+        cache.onSubscriptionCreated(new SubscriptionCreatedEvent(1L, 5L, "Sub"));
+        List<Subscription> reloaded = cache.get(1L, this::load);
+        pendingRefreshes.remove(0).run();
+
+        // Assert
+        assertThat(reloaded).extracting(Subscription::name).containsExactly("Sub-2");
+        assertThat(cache.get(1L, this::load)).extracting(Subscription::name).containsExactly("Sub-2");
+    }
+
+    @Test
+    @DisplayName("Должен корректно загрузить одной пачкой только списки, которых нет в кэше")
+    void getAll_PartlyCached_LoadsMissingInOneBatch() {
+        // Arrange
+        cache.get(1L, this::load);
+        List<Set<Long>> batches = new ArrayList<>();
+
+        // Act
+        Map<Long, List<Subscription>> result = cache.getAll(List.of(1L, 2L, 3L), userIds -> {
+            batches.add(userIds);
+            return loadAll(userIds);
+        });
+
+        // Assert
+        assertThat(batches).containsExactly(Set.of(2L, 3L));
+        assertThat(result.get(1L)).extracting(Subscription::name).containsExactly("Sub-1");
+        assertThat(result).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(cache.get(2L, this::load)).isEqualTo(result.get(2L));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Должен корректно не класть в кэш пачку, во время загрузки которой был сброс")
+    void getAll_InvalidatedDuringLoad_DoesNotCacheBatch() {
+        // Act
+        cache.getAll(List.of(1L), userIds -> {
+            Map<Long, List<Subscription>> loaded = loadAll(userIds);
+            cache.onSubscriptionCreated(new SubscriptionCreatedEvent(1L, 5L, "Sub"));
+            return loaded;
+        });
+        List<Subscription> reloaded = cache.get(1L, this::load);
+
+        // Assert
+        assertThat(reloaded).extracting(Subscription::name).containsExactly("Sub-2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Должен корректно оценить объем списка в байтах по количеству и длине имен")
+    void weigh_Subscriptions_GrowsWithCountAndNameLength() {
+        // Arrange
+        List<Subscription> shortNames = List.of(new Subscription(1L, "a", 1L));
+        List<Subscription> longNames = List.of(new Subscription(1L, "a".repeat(100), 1L),
+                new Subscription(2L, "b".repeat(100), 1L));
+
+        // Act & Assert
+        assertThat(SubscriptionListCache.weigh(List.of())).isEqualTo(SubscriptionListCache.LIST_OVERHEAD_BYTES);
+        assertThat(SubscriptionListCache.weigh(shortNames)).isEqualTo(SubscriptionListCache.LIST_OVERHEAD_BYTES
+                + SubscriptionListCache.SUBSCRIPTION_OVERHEAD_BYTES + 2);
+        assertThat(SubscriptionListCache.weigh(longNames)).isEqualTo(SubscriptionListCache.LIST_OVERHEAD_BYTES
+                + 2 * SubscriptionListCache.SUBSCRIPTION_OVERHEAD_BYTES + 400);
+    }
+
+    private List<Subscription> load(Long userId) {
+        int version = loads.incrementAndGet();
+        return List.of(new Subscription((long) version, "Sub-" + version, userId));
+    }
+
+    private Map<Long, List<Subscription>> loadAll(Set<Long> userIds) {
+        Map<Long, List<Subscription>> loaded = new HashMap<>();
+        userIds.forEach(userId -> loaded.put(userId, load(userId)));
+        return loaded;
+    }
+}
@@ -0,0 +1,213 @@
+package ru.tms.jdbc;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+import ru.tms.dto.User;
+import ru.tms.services.UserService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Основная БД и потоковая реплика в контейнерах. Проигрывание WAL на реплике ставится на паузу,
+ * чтобы отставание было детерминированным: запись видна в основной БД и не видна на реплике.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReadReplicaRoutingIntegrationTest {
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyFileToContainer(MountableFile.forClasspathResource("replication/primary-init.sh"),
+                    "/docker-entrypoint-initdb.d/primary-init.sh")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    // Базовая копия основной БД с recovery-настройками (-R); повторяется, пока основная БД не начнет принимать соединения
+    @Container
+    static GenericContainer<?> replica = new GenericContainer<>("postgres:15-alpine")
+            .withNetwork(network)
+            .withEnv("PGPASSWORD", "test")
+            .withExposedPorts(5432)
+            .withCommand("sh", "-c", """
+                    until su-exec postgres pg_basebackup -h primary -U test -D "$PGDATA" -X stream -R; do
+                      rm -rf "$PGDATA"/*; sleep 1;
+                    done
+                    chmod 0700 "$PGDATA"
+                    exec su-exec postgres postgres""")
+            .dependsOn(primary)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read-only connections.*\\s", 1)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("user-subscriptions.read-replicas.enabled", () -> "true");
+        // Отставание проверяется паузой проигрывания, а не порогом
+        registry.add("user-subscriptions.read-replicas.max-lag", () -> "1h");
+        registry.add("user-subscriptions.read-replicas.check-interval", () -> "200ms");
+        registry.add("user-subscriptions.read-replicas.replicas[0].name", () -> "replica-1");
+        registry.add("user-subscriptions.read-replicas.replicas[0].url", ReadReplicaRoutingIntegrationTest::replicaUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        flyway.migrate();
+        awaitReplicaCatchUp();
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        RequestContextHolder.resetRequestAttributes();
+        if (replica.isRunning()) {
+            executeOnReplica("SELECT pg_wal_replay_resume()");
+        }
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Чтение: транзакция только для чтения идет на реплику и не видит еще не проигранную запись")
+    void readOnlyTransaction_ReadsFromReplica() throws Exception {
+        executeOnReplica("SELECT pg_wal_replay_pause()");
+        Long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO user_subscriptions.users (username, version) VALUES ('lagging', 0) RETURNING id", Long.class);
+
+        mockMvc.perform(get("/user-subscriptions/v1/users/" + userId)).andExpect(status().isNotFound());
+
+        executeOnReplica("SELECT pg_wal_replay_resume()");
+        awaitReplicaCatchUp();
+        mockMvc.perform(get("/user-subscriptions/v1/users/" + userId)).andExpect(status().isOk());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Чтение после записи: после записи запрос читает из основной БД, даже если реплика отстает")
+    void readAfterWrite_InSameRequest_ReadsFromPrimary() throws SQLException {
+        executeOnReplica("SELECT pg_wal_replay_pause()");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        User created = userService.createUser(User.builder().username("readAfterWrite").build());
+
+        assertThat(userService.getUserById(created.id()).getUsername()).isEqualTo("readAfterWrite");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Отказ реплики: недоступная реплика исключается из чтения, чтения идут в основную БД")
+    void replicaDown_ReadsFallBackToPrimary() throws Exception {
+        ReplicaPool replicaPool = dataSource.unwrap(ReadReplicaRoutingDataSource.class).getReplicas().get(0);
+        assertThat(replicaPool.isHealthy()).isTrue();
+        Long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO user_subscriptions.users (username, version) VALUES ('fallback', 0) RETURNING id", Long.class);
+
+        replica.stop();
+        await(() -> !replicaPool.isHealthy(), Duration.ofSeconds(15));
+
+        mockMvc.perform(get("/user-subscriptions/v1/users/" + userId)).andExpect(status().isOk());
+        assertThat(replicaPool.getLastError()).isNotNull();
+    }
+
+    private static String replicaUrl() {
+        return String.format("jdbc:postgresql://%s:%d/test?currentSchema=user_subscriptions",
+                replica.getHost(), replica.getMappedPort(5432));
+    }
+
+    private static void executeOnReplica(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(replicaUrl(), "test", "test");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private void awaitReplicaCatchUp() throws SQLException {
+        String primaryLsn = jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+        try (Connection connection = DriverManager.getConnection(replicaUrl(), "test", "test");
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT pg_wal_lsn_diff(pg_last_wal_replay_lsn(), ?::pg_lsn) >= 0")) {
+            statement.setString(1, primaryLsn);
+            await(() -> {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() && resultSet.getBoolean(1);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, Duration.ofSeconds(30));
+        }
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Condition not met within %s", timeout).isLessThan(deadline);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.tms.jdbc;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementStatisticsTest {
+
+    @Test
+    @DisplayName("Должен вернуть операторы по убыванию наибольшего времени с вызывающим методом самого медленного выполнения")
+    void top_SeveralStatements_ReturnsSlowestFirst() {
+        // Arrange
+        StatementStatistics statistics = new StatementStatistics(100);
+        statistics.record("select u", 5, () -> "UserRepo.findById");
+        statistics.record("select u", 40, () -> "UserRepo.findByUsername");
+        statistics.record("select u", 15, () -> "UserRepo.findAll");
+        statistics.record("delete s", 25, () -> "SubscriptionRepo.deleteByUserIdAndId");
+
+        // Act
+        List<StatementStatistics.StatementSummary> top = statistics.top(1);
+
+        // Assert
+        assertThat(top).singleElement().satisfies(summary -> {
+            assertThat(summary.sql()).isEqualTo("select u");
+            assertThat(summary.count()).isEqualTo(3);
+            assertThat(summary.totalMillis()).isEqualTo(60);
+            assertThat(summary.meanMillis()).isEqualTo(20.0);
+            assertThat(summary.maxMillis()).isEqualTo(40);
+            assertThat(summary.slowestCaller()).isEqualTo("UserRepo.findByUsername");
+        });
+    }
+
+    @Test
+    @DisplayName("Должен вычислять вызывающий метод только для нового самого медленного выполнения")
+    void record_NotSlowest_DoesNotResolveCaller() {
+        // Arrange
+        StatementStatistics statistics = new StatementStatistics(100);
+        AtomicInteger resolved = new AtomicInteger();
+        statistics.record("select u", 30, () -> "first" + resolved.incrementAndGet());
+
+        // Act
+        statistics.record("select u", 10, () -> "second" + resolved.incrementAndGet());
+        statistics.record("select u", 30, () -> "third" + resolved.incrementAndGet());
+
+        // Assert
+        assertThat(resolved).hasValue(1);
+        assertThat(statistics.top(10).get(0).slowestCaller()).isEqualTo("first1");
+    }
+
+    @Test
+    @DisplayName("Не должен учитывать новые тексты операторов сверх предела, но должен учитывать известные")
+    void record_LimitReached_IgnoresNewStatements() {
+        // Arrange
+        StatementStatistics statistics = new StatementStatistics(1);
+        statistics.record("select u", 1, () -> "a");
+
+        // Act
+        statistics.record("select s", 100, () -> "b");
+        statistics.record("select u", 2, () -> "c");
+
+        // Assert
+        assertThat(statistics.top(10)).extracting(StatementStatistics.StatementSummary::sql)
+                .containsExactly("select u");
+        assertThat(statistics.top(10).get(0).count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,125 @@
+package ru.tms.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.random.RandomGenerator;
+
+/**
+ * Профиль нагрузки из loadtest.properties, поверх которого накладываются системные свойства loadtest.*.
+ *
+ * @param seed                 Зерно генератора: одинаковое зерно дает одинаковые данные и последовательность операций.
+ * @param users                Сколько пользователей создается перед прогоном.
+ * @param subscriptionsPerUser Сколько подписок создается каждому пользователю перед прогоном.
+ * @param targetRps            Запланированная интенсивность запросов в секунду.
+ * @param warmup               Длительность прогрева, задержки которого не учитываются.
+ * @param duration             Длительность замера.
+ * @param maxInFlight          Предел одновременных запросов; при его достижении отправка ждет,
+ *                             а ожидание входит в задержку запроса.
+ * @param mix                  Веса операций.
+ * @param budgets              Бюджеты задержки по операциям.
+ */
+record LoadProfile(long seed,
+                   int users,
+                   int subscriptionsPerUser,
+                   int targetRps,
+                   Duration warmup,
+                   Duration duration,
+                   int maxInFlight,
+                   Map<Operation, Integer> mix,
+                   Map<Operation, LatencyBudget> budgets) {
+
+    private static final String RESOURCE = "/loadtest.properties";
+    private static final String PREFIX = "loadtest.";
+
+    enum Operation {
+        READ_USER("read-user"),
+        READ_SUBSCRIPTIONS("read-subscriptions"),
+        TOP("top"),
+        CREATE("create"),
+        DELETE("delete");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        String key() {
+            return this.key;
+        }
+    }
+
+    record LatencyBudget(Duration p50, Duration p99) {
+    }
+
+    static LoadProfile load() {
+        Properties properties = new Properties();
+        try (InputStream in = LoadProfile.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + " not found on the test classpath");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(PREFIX))
+                .forEach(name -> properties.setProperty(name, System.getProperty(name)));
+
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        Map<Operation, LatencyBudget> budgets = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            int weight = Integer.parseInt(properties.getProperty(PREFIX + "mix." + operation.key(), "0"));
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+            budgets.put(operation, new LatencyBudget(
+                    duration(properties, "budget." + operation.key() + ".p50"),
+                    duration(properties, "budget." + operation.key() + ".p99")));
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalStateException("loadtest.mix.* must give at least one operation a positive weight");
+        }
+        return new LoadProfile(
+                Long.parseLong(required(properties, "seed")),
+                Integer.parseInt(required(properties, "users")),
+                Integer.parseInt(required(properties, "subscriptions-per-user")),
+                Integer.parseInt(required(properties, "target-rps")),
+                duration(properties, "warmup"),
+                duration(properties, "duration"),
+                Integer.parseInt(required(properties, "max-in-flight")),
+                mix,
+                budgets);
+    }
+
+    Operation pick(RandomGenerator random) {
+        int total = this.mix.values().stream().mapToInt(Integer::intValue).sum();
+        int point = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : this.mix.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable: weights sum to " + total);
+    }
+
+    private static Duration duration(Properties properties, String key) {
+        return DurationStyle.detectAndParse(required(properties, key));
+    }
+
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(PREFIX + key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Missing load test property " + PREFIX + key);
+        }
+        return value.trim();
+    }
+}
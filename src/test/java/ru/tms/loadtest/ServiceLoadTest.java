@@ -0,0 +1,268 @@
+package ru.tms.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.tms.loadtest.LoadProfile.LatencyBudget;
+import ru.tms.loadtest.LoadProfile.Operation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный прогон сервиса смесью чтений, созданий, удалений и топа с заданной интенсивностью.
+ * <p>
+ * Модель открытая: i-й запрос запланирован на startedAt + i / targetRps и отправляется из отдельного виртуального
+ * потока, не дожидаясь ответов на предыдущие. Задержка считается от запланированного, а не от фактического
+ * времени отправки, поэтому остановки сервиса и генератора попадают в гистограмму (поправка на coordinated omission).
+ * Прогон падает, если p50 или p99 какой-либо операции превышает бюджет из loadtest.properties или были ошибки.
+ * Распределения задержек пишутся в target/loadtest/*.hgrm.
+ * Запуск: mvn test -Pload-test [-Dloadtest.target-rps=1000 -Dloadtest.duration=2m]
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.flyway.enabled=true", "spring.jpa.show-sql=false",
+                "user-subscriptions.user-cache.enabled=true", "user-subscriptions.subscription-list-cache.enabled=true"})
+@Testcontainers
+@ActiveProfiles("test")
+public class ServiceLoadTest {
+
+    private static final String BASE_PATH = "/user-subscriptions/v1";
+    private static final Path REPORT_DIR = Path.of("target", "loadtest");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final AtomicLong createdNames = new AtomicLong();
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+    }
+
+    @Test
+    @DisplayName("Нагрузка смесью операций укладывается в бюджеты задержек")
+    void mixedLoad_TargetRps_StaysWithinLatencyBudgets() throws Exception {
+        LoadProfile profile = LoadProfile.load();
+        Random random = new Random(profile.seed());
+        flyway.migrate();
+        Deque<long[]> deletable = seed(profile, random);
+
+        drive(profile, profile.warmup(), random, deletable);
+        Run run = drive(profile, profile.duration(), random, deletable);
+
+        List<String> violations = report(profile, run);
+        assertThat(violations).isEmpty();
+    }
+
+    /**
+     * Создает одинаковый для одного зерна набор данных: пользователей с подписками из 50 имен
+     * и очередь пар (пользователь, подписка) для удалений в перемешанном порядке.
+     */
+    private Deque<long[]> seed(LoadProfile profile, Random random) {
+        jdbcTemplate.update("INSERT INTO user_subscriptions.users (username, version) " +
+                "SELECT 'user-' || i, 0 FROM generate_series(1, ?) AS i", profile.users());
+        jdbcTemplate.update("INSERT INTO user_subscriptions.subscriptions (name, user_id, version) " +
+                "SELECT 'sub-' || (u.id * 7 + s) % 50, u.id, 0 " +
+                "FROM user_subscriptions.users u, generate_series(1, ?) AS s " +
+                "ORDER BY u.id, s", profile.subscriptionsPerUser());
+        List<long[]> subscriptions = jdbcTemplate.query(
+                "SELECT user_id, id FROM user_subscriptions.subscriptions ORDER BY id",
+                (rs, rowNum) -> new long[]{rs.getLong("user_id"), rs.getLong("id")});
+        Collections.shuffle(subscriptions, random);
+        return new ConcurrentLinkedDeque<>(subscriptions);
+    }
+
+    private Run drive(LoadProfile profile, Duration duration, Random random, Deque<long[]> deletable)
+            throws InterruptedException {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+        Semaphore inFlight = new Semaphore(profile.maxInFlight());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.targetRps();
+        long requests = duration.toNanos() / intervalNanos;
+        long startedAt = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long intendedAt = startedAt + i * intervalNanos;
+                for (long wait = intendedAt - System.nanoTime(); wait > 0; wait = intendedAt - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = profile.pick(random);
+                long[] toDelete = operation == Operation.DELETE ? deletable.pollFirst() : null;
+                if (operation == Operation.DELETE && toDelete == null) {
+                    operation = Operation.CREATE;
+                }
+                long userId = toDelete != null ? toDelete[0] : 1 + random.nextInt(profile.users());
+                HttpRequest request = request(operation, userId, toDelete);
+                Operation scheduled = operation;
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        send(scheduled, request, intendedAt, latencies.get(scheduled), errors.get(scheduled),
+                                deletable);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new Run(latencies, errors, requests, (System.nanoTime() - startedAt) / 1e9);
+    }
+
+    private HttpRequest request(Operation operation, long userId, long[] toDelete) {
+        HttpRequest.Builder builder = switch (operation) {
+            case READ_USER -> HttpRequest.newBuilder(uri("/users/" + userId)).GET();
+            case READ_SUBSCRIPTIONS -> HttpRequest.newBuilder(uri("/users/" + userId + "/subscriptions")).GET();
+            case TOP -> HttpRequest.newBuilder(uri("/subscriptions/top")).GET();
+            case CREATE -> HttpRequest.newBuilder(uri("/users/" + userId + "/subscriptions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                            "{\"name\":\"load-%d\",\"user\":%d}", createdNames.incrementAndGet(), userId)));
+            case DELETE -> HttpRequest.newBuilder(uri("/users/" + toDelete[0] + "/subscriptions/" + toDelete[1]))
+                    .DELETE();
+        };
+        return builder.timeout(Duration.ofSeconds(60)).build();
+    }
+
+    private void send(Operation operation, HttpRequest request, long intendedAt, Histogram latencies,
+                      LongAdder errors, Deque<long[]> deletable) {
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedAt));
+            if (response.statusCode() / 100 != 2) {
+                errors.increment();
+            } else if (operation == Operation.CREATE) {
+                JsonNode created = objectMapper.readTree(response.body());
+                deletable.addLast(new long[]{created.get("user").asLong(), created.get("id").asLong()});
+            }
+        } catch (IOException e) {
+            errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.increment();
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + BASE_PATH + path);
+    }
+
+    private List<String> report(LoadProfile profile, Run run) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        List<String> violations = new ArrayList<>();
+        System.out.printf("%ntarget %d req/s, sent %d requests, achieved %.1f req/s over %.1f s%n",
+                profile.targetRps(), run.requests(), run.requests() / run.seconds(), run.seconds());
+        System.out.printf("%-20s %8s %7s %9s %9s %9s %9s %9s %18s%n", "operation", "count", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "budget p50/p99 ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = run.latencies().get(operation);
+            long errors = run.errors().get(operation).sum();
+            LatencyBudget budget = profile.budgets().get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            double p50 = histogram.getValueAtPercentile(50) / 1000.0;
+            double p99 = histogram.getValueAtPercentile(99) / 1000.0;
+            System.out.printf("%-20s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %8d / %-8d%n", operation.key(),
+                    histogram.getTotalCount(), errors, p50, histogram.getValueAtPercentile(90) / 1000.0, p99,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0,
+                    budget.p50().toMillis(), budget.p99().toMillis());
+            if (p50 > budget.p50().toMillis()) {
+                violations.add(String.format("%s p50 %.2f ms exceeds budget %d ms", operation.key(), p50,
+                        budget.p50().toMillis()));
+            }
+            if (p99 > budget.p99().toMillis()) {
+                violations.add(String.format("%s p99 %.2f ms exceeds budget %d ms", operation.key(), p99,
+                        budget.p99().toMillis()));
+            }
+            if (errors > 0) {
+                violations.add(String.format("%s failed %d of %d requests", operation.key(), errors,
+                        histogram.getTotalCount()));
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    REPORT_DIR.resolve(operation.key() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        return violations;
+    }
+
+    private record Run(Map<Operation, Histogram> latencies, Map<Operation, LongAdder> errors,
+                       long requests, double seconds) {
+    }
+}
@@ -0,0 +1,90 @@
+package ru.tms.repo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+public class SubscriptionCatalogRepoIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private SubscriptionCatalogRepo subscriptionCatalogRepo;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscription_catalog RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+    }
+
+    @Test
+    @DisplayName("Должен корректно добавить новое имя в пустой справочник и вернуть его")
+    void resolve_NewNameInEmptyCatalog_InsertsAndReturnsEntry() {
+        // Act
+        SubscriptionCatalogEntry entry = subscriptionCatalogRepo.resolve(" Netflix ");
+
+        // Assert
+        assertThat(entry.name()).isEqualTo("Netflix");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_subscriptions.subscription_catalog", Long.class)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть существующее имя для другого написания, не добавляя строку")
+    void resolve_ExistingNameOtherSpelling_ReturnsSameEntry() {
+        // Arrange
+        SubscriptionCatalogEntry existing = subscriptionCatalogRepo.resolve("Netflix");
+        subscriptionCatalogRepo.resolve("Spotify");
+
+        // Act
+        SubscriptionCatalogEntry entry = subscriptionCatalogRepo.resolve("netflix ");
+
+        // Assert
+        assertThat(entry).isEqualTo(existing);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_subscriptions.subscription_catalog", Long.class)).isEqualTo(2L);
+    }
+}
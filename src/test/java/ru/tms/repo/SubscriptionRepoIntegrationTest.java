@@ -0,0 +1,115 @@
+package ru.tms.repo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+public class SubscriptionRepoIntegrationTest {
+
+    private static final int USERS = 200;
+    private static final int SUBSCRIPTIONS_PER_USER = 50;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2)
+                    .withStartupTimeout(Duration.ofSeconds(60)));
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "?currentSchema=user_subscriptions");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private SubscriptionRepo subscriptionRepo;
+
+    private Long userId;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscriptions RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.users RESTART IDENTITY CASCADE;");
+        jdbcTemplate.execute("TRUNCATE TABLE user_subscriptions.subscription_catalog RESTART IDENTITY CASCADE;");
+    }
+
+    @BeforeEach
+    void setUp() {
+        flyway.migrate();
+        jdbcTemplate.update("INSERT INTO user_subscriptions.users (username, version) " +
+                "SELECT 'owner-' || n, 0 FROM generate_series(1, ?) AS n", USERS);
+        // Справочник заполняется в порядке, обратном алфавитному: порядок catalog_id не совпадает с порядком имен
+        jdbcTemplate.update("INSERT INTO user_subscriptions.subscription_catalog (normalized_name, name) " +
+                "SELECT 'sub-' || lpad(n::text, 3, '0'), 'Sub-' || lpad(n::text, 3, '0') " +
+                "FROM generate_series(?, 1, -1) AS n", SUBSCRIPTIONS_PER_USER);
+        jdbcTemplate.execute("INSERT INTO user_subscriptions.subscriptions (catalog_id, user_id, created_at, updated_at, version) " +
+                "SELECT c.id, u.id, LOCALTIMESTAMP, LOCALTIMESTAMP, 0 " +
+                "FROM user_subscriptions.users u CROSS JOIN user_subscriptions.subscription_catalog c");
+        jdbcTemplate.execute("ANALYZE user_subscriptions.subscriptions");
+        userId = jdbcTemplate.queryForObject("SELECT min(id) FROM user_subscriptions.users", Long.class);
+    }
+
+    @Test
+    @DisplayName("Должен корректно читать страницы по имени одним диапазоном индекса (user_id, name) без сортировки")
+    void findRowsPageByUserIdOrderByName_Plan_IndexRangeScanWithoutSort() {
+        // Act
+        String firstPage = explain(SubscriptionRepoCustomImpl.SELECT_PAGE_ORDER_BY_NAME_SQL, userId, 10);
+        String nextPage = explain(SubscriptionRepoCustomImpl.SELECT_PAGE_AFTER_NAME_SQL, userId, "Sub-010", 10);
+
+        // Assert
+        assertThat(firstPage).contains("idx_subscriptions_user_name").doesNotContain("Sort");
+        assertThat(nextPage).contains("idx_subscriptions_user_name").doesNotContain("Sort");
+        assertThat(firstPage).doesNotContain("subscription_catalog");
+        assertThat(nextPage).doesNotContain("subscription_catalog");
+    }
+
+    @Test
+    @DisplayName("Должен корректно отдавать страницы по имени из справочника, а не по порядку catalog_id")
+    void findRowsPageByUserIdOrderByName_NextPage_ContinuesAfterName() {
+        // Act
+        List<SubscriptionRow> firstPage = subscriptionRepo.findRowsPageByUserIdOrderByName(userId, null, 2);
+        List<SubscriptionRow> nextPage = subscriptionRepo.findRowsPageByUserIdOrderByName(userId, "Sub-002", 2);
+
+        // Assert
+        assertThat(firstPage).extracting(row -> catalogName(row.catalogId())).containsExactly("Sub-001", "Sub-002");
+        assertThat(nextPage).extracting(row -> catalogName(row.catalogId())).containsExactly("Sub-003", "Sub-004");
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    private String catalogName(Integer catalogId) {
+        return jdbcTemplate.queryForObject("SELECT name FROM user_subscriptions.subscription_catalog WHERE id = ?",
+                String.class, catalogId);
+    }
+}
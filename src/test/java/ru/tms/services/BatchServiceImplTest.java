@@ -0,0 +1,142 @@
+package ru.tms.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.tms.cache.SubscriptionCatalog;
+import ru.tms.dto.BatchOperation;
+import ru.tms.dto.BatchOperationResult;
+import ru.tms.dto.BatchRequest;
+import ru.tms.dto.BatchResult;
+import ru.tms.dto.Subscription;
+import ru.tms.dto.User;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.events.SubscriptionDeletedEvent;
+import ru.tms.jdbc.JdbcSavepoints;
+import ru.tms.repo.SubscriptionBatchInsertRow;
+import ru.tms.repo.SubscriptionCatalogEntry;
+import ru.tms.repo.SubscriptionRepo;
+import ru.tms.repo.UserRepo;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class BatchServiceImplTest {
+
+    @Mock
+    private UserRepo userRepo;
+
+    @Mock
+    private SubscriptionRepo subscriptionRepo;
+
+    @Mock
+    private SubscriptionCatalog subscriptionCatalog;
+
+    @Mock
+    private JdbcSavepoints savepoints;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BatchServiceImpl batchService;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new BatchServiceImpl(userRepo, subscriptionRepo, subscriptionCatalog, savepoints,
+                eventPublisher, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Должен корректно выполнить подряд идущие операции одного типа одним запросом")
+    void execute_ConsecutiveOperations_GroupsIntoOneStatementPerType() {
+        // Arrange
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(subscriptionCatalog.resolve("Sub1")).thenReturn(new SubscriptionCatalogEntry(7, "Sub1"));
+        when(subscriptionCatalog.resolve("Sub2")).thenReturn(new SubscriptionCatalogEntry(8, "Sub2"));
+        when(subscriptionRepo.insertAllIfAbsent(List.of(1L, 1L), List.of(7, 8))).thenReturn(List.of(
+                new SubscriptionBatchInsertRow(1L, 10L, 7), new SubscriptionBatchInsertRow(1L, 11L, 8)));
+        when(subscriptionRepo.deleteByUserIdAndIds(1L, List.of(3L, 4L))).thenReturn(List.of(
+                new Subscription(3L, "Sub3", 1L)));
+
+        // Act
+        BatchResult result = batchService.execute(new BatchRequest(BatchRequest.Mode.ALL_OR_NOTHING, List.of(
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("Sub1").build(),
+                BatchOperation.builder().type(BatchOperation.Type.ADD_SUBSCRIPTION).userId(1L).name("Sub2").build(),
+                BatchOperation.builder().type(BatchOperation.Type.REMOVE_SUBSCRIPTION).userId(1L).subscriptionId(3L).build(),
+                BatchOperation.builder().type(BatchOperation.Type.REMOVE_SUBSCRIPTION).userId(1L).subscriptionId(4L).build())));
+
+        // Assert
+        assertThat(result.committed()).isFalse();
+        assertThat(result.results()).extracting(BatchOperationResult::status).containsExactly(
+                BatchOperationResult.Status.ROLLED_BACK, BatchOperationResult.Status.ROLLED_BACK,
+                BatchOperationResult.Status.ROLLED_BACK, BatchOperationResult.Status.FAILED);
+        verify(subscriptionRepo, times(1)).insertAllIfAbsent(any(), any());
+        verify(subscriptionRepo, times(1)).deleteByUserIdAndIds(any(), any());
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionCreatedEvent(1L, 10L, "Sub1"));
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionDeletedEvent(1L, 3L, "Sub3"));
+        assertThat(status.isRollbackOnly()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен корректно не начинать транзакцию, если операция неверна в режиме ALL_OR_NOTHING")
+    void execute_AllOrNothingWithInvalidOperation_SkipsEverything() {
+        // Act
+        BatchResult result = batchService.execute(new BatchRequest(null, List.of(
+                BatchOperation.builder().type(BatchOperation.Type.CREATE_USER).username("newUser").build(),
+                BatchOperation.builder().type(BatchOperation.Type.REMOVE_SUBSCRIPTION).userId(1L).build())));
+
+        // Assert
+        assertThat(result.mode()).isEqualTo(BatchRequest.Mode.ALL_OR_NOTHING);
+        assertThat(result.committed()).isFalse();
+        assertThat(result.results()).extracting(BatchOperationResult::status).containsExactly(
+                BatchOperationResult.Status.SKIPPED, BatchOperationResult.Status.FAILED);
+        assertThat(result.results().get(1).message()).isEqualTo("Field BatchOperation.subscriptionId cannot be null");
+        verifyNoInteractions(transactionManager, userRepo, subscriptionRepo);
+    }
+
+    @Test
+    @DisplayName("Должен корректно откатить группу к точке сохранения и повторить ее операции по одной в режиме BEST_EFFORT")
+    void execute_BestEffortGroupFails_RetriesOperationsOneByOne() {
+        // Arrange
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepo.insertAllIfAbsent(List.of("first", "second")))
+                .thenThrow(new DuplicateKeyException("duplicate"));
+        when(userRepo.insertAllIfAbsent(List.of("first"))).thenReturn(List.of(new User(5L, "first")));
+        when(userRepo.insertAllIfAbsent(List.of("second"))).thenThrow(new DuplicateKeyException("duplicate"));
+        when(userRepo.updateUsername(5L, "third")).thenReturn(Optional.empty());
+
+        // Act
+        BatchResult result = batchService.execute(new BatchRequest(BatchRequest.Mode.BEST_EFFORT, List.of(
+                BatchOperation.builder().type(BatchOperation.Type.CREATE_USER).username("first").build(),
+                BatchOperation.builder().type(BatchOperation.Type.CREATE_USER).username("second").build(),
+                BatchOperation.builder().type(BatchOperation.Type.UPDATE_USERNAME).userId(5L).username("third").build())));
+
+        // Assert
+        assertThat(result.committed()).isTrue();
+        assertThat(result.results()).extracting(BatchOperationResult::status).containsExactly(
+                BatchOperationResult.Status.OK, BatchOperationResult.Status.FAILED, BatchOperationResult.Status.FAILED);
+        assertThat(result.results().get(0).id()).isEqualTo(5L);
+        assertThat(result.results().get(2).message()).isEqualTo("User not found with id: 5");
+        verify(savepoints, times(2)).rollbackTo(any());
+        verify(savepoints, times(2)).release(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+}
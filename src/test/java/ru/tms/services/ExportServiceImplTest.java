@@ -0,0 +1,80 @@
+package ru.tms.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tms.repo.ExportRepo;
+import ru.tms.repo.ExportRow;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ExportServiceImplTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    @Mock
+    private ExportRepo exportRepo;
+
+    private ExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportServiceImpl(exportRepo, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Должен корректно выгрузить пользователей с вложенными подписками по строке на пользователя")
+    void exportUsers_Rows_WritesOneLinePerUser() {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        when(exportRepo.streamUsersWithSubscriptions(null)).thenReturn(Stream.of(
+                new ExportRow(1L, "alice", CREATED_AT, CREATED_AT, 10L, "Netflix", CREATED_AT, null),
+                new ExportRow(1L, "alice", CREATED_AT, CREATED_AT, 11L, "Spotify", CREATED_AT, CREATED_AT),
+                new ExportRow(2L, "bob", CREATED_AT, null, null, null, null, null)
+        ).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long users = exportService.exportUsers(null, output);
+
+        // Assert
+        assertThat(users).isEqualTo(2);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"username\":\"alice\",\"createdAt\":\"2024-01-02T03:04:05\",\"updatedAt\":\"2024-01-02T03:04:05\","
+                        + "\"subscriptions\":[{\"id\":10,\"name\":\"Netflix\",\"createdAt\":\"2024-01-02T03:04:05\",\"updatedAt\":null},"
+                        + "{\"id\":11,\"name\":\"Spotify\",\"createdAt\":\"2024-01-02T03:04:05\",\"updatedAt\":\"2024-01-02T03:04:05\"}]}\n"
+                        + "{\"id\":2,\"username\":\"bob\",\"createdAt\":\"2024-01-02T03:04:05\",\"updatedAt\":null,"
+                        + "\"subscriptions\":[]}\n");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен корректно передать фильтр since и ничего не записать при пустой выборке")
+    void exportUsers_NoRows_WritesNothing() {
+        // Arrange
+        when(exportRepo.streamUsersWithSubscriptions(CREATED_AT)).thenReturn(Stream.empty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long users = exportService.exportUsers(CREATED_AT, output);
+
+        // Assert
+        assertThat(users).isZero();
+        assertThat(output.size()).isZero();
+        verify(exportRepo, times(1)).streamUsersWithSubscriptions(CREATED_AT);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.tms.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import ru.tms.dto.ImportReject;
+import ru.tms.dto.ImportResult;
+import ru.tms.events.SubscriptionsImportedEvent;
+import ru.tms.exceptions.InvalidElementDataException;
+import ru.tms.repo.ImportStagingRepo;
+import ru.tms.repo.ImportStagingWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ImportServiceImplTest {
+
+    @Mock
+    private ImportStagingRepo importStagingRepo;
+
+    @Mock
+    private ImportStagingWriter importStagingWriter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new ImportServiceImpl(importStagingRepo, new ObjectMapper(), eventPublisher);
+        lenient().when(importStagingRepo.openWriter()).thenReturn(importStagingWriter);
+    }
+
+    @Test
+    @DisplayName("Должен корректно записать строки NDJSON в промежуточную таблицу и слить их")
+    void importSubscriptions_Ndjson_StagesRowsAndMerges() {
+        // Arrange
+        when(importStagingWriter.finish()).thenReturn(3L);
+        when(importStagingRepo.findDuplicateSubscriptions(ImportServiceImpl.MAX_REPORTED_REJECTS))
+                .thenReturn(List.of());
+        when(importStagingRepo.mergeUsers()).thenReturn(2L);
+        when(importStagingRepo.mergeSubscriptions()).thenReturn(2L);
+
+        // Act
+        ImportResult result = importService.importSubscriptions(input("""
+                {"username":"alice","subscriptions":["Netflix","Spotify"]}
+
+                {"username":"bob"}
+                """), ImportFormat.NDJSON);
+
+        // Assert
+        assertThat(result.linesRead()).isEqualTo(3);
+        assertThat(result.rowsStaged()).isEqualTo(3);
+        assertThat(result.usersCreated()).isEqualTo(2);
+        assertThat(result.subscriptionsCreated()).isEqualTo(2);
+        assertThat(result.rejectedCount()).isZero();
+        assertThat(result.rejects()).isEmpty();
+        verify(importStagingWriter).write(1, "alice", "Netflix");
+        verify(importStagingWriter).write(1, "alice", "Spotify");
+        verify(importStagingWriter).write(3, "bob", null);
+        verify(importStagingWriter).close();
+        verify(eventPublisher).publishEvent(new SubscriptionsImportedEvent(2, 2));
+    }
+
+    @Test
+    @DisplayName("Должен корректно отклонить невалидные строки и учесть повторяющиеся подписки")
+    void importSubscriptions_InvalidAndDuplicateRows_ReportsRejectsByLine() {
+        // Arrange
+        when(importStagingRepo.findDuplicateSubscriptions(ImportServiceImpl.MAX_REPORTED_REJECTS))
+                .thenReturn(List.of(new ImportReject(2, "Subscription Netflix already exists for user alice")));
+        when(importStagingRepo.mergeSubscriptions()).thenReturn(0L);
+
+        // Act
+        ImportResult result = importService.importSubscriptions(input("""
+                {"username":"alice","subscriptions":["Bad",""]}
+                {"username":"alice","subscriptions":["Netflix"]}
+                {not json}
+                {"subscriptions":["Netflix"]}
+                """), ImportFormat.NDJSON);
+
+        // Assert
+        assertThat(result.rejectedCount()).isEqualTo(4);
+        assertThat(result.rejects()).extracting(ImportReject::line).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(result.rejects().get(0).reason()).isEqualTo("Subscription name cannot be blank");
+        assertThat(result.rejects().get(2).reason()).startsWith("Malformed JSON");
+        assertThat(result.rejects().get(3).reason()).isEqualTo("Field username cannot be blank");
+        verify(importStagingWriter, never()).write(1, "alice", "Bad");
+        verify(importStagingWriter).write(2, "alice", "Netflix");
+    }
+
+    @Test
+    @DisplayName("Должен корректно разобрать CSV с заголовком и кавычками")
+    void importSubscriptions_Csv_ParsesHeaderAndQuotedFields() {
+        // Act
+        ImportResult result = importService.importSubscriptions(input(
+                "username,subscription\r\n"
+                        + "alice,Netflix\r\n"
+                        + "\"bob, jr\",\"Prime \"\"Video\"\"\"\n"
+                        + "carol\n"
+                        + "dave,a,b\n"
+                        + "\"eve,Netflix\n"), ImportFormat.CSV);
+
+        // Assert
+        verify(importStagingWriter).write(2, "alice", "Netflix");
+        verify(importStagingWriter).write(3, "bob, jr", "Prime \"Video\"");
+        verify(importStagingWriter).write(4, "carol", null);
+        verify(importStagingWriter, times(3)).write(anyLong(), anyString(), any());
+        assertThat(result.rejects()).extracting(ImportReject::line).containsExactly(5L, 6L);
+        assertThat(result.rejects().get(1).reason()).isEqualTo("Unterminated quoted field");
+    }
+
+    @Test
+    @DisplayName("Должен корректно отклонить слишком длинную строку, не накапливая ее в памяти")
+    void importSubscriptions_TooLongLine_RejectsLine() {
+        // Arrange
+        String longLine = "x".repeat(ImportServiceImpl.MAX_LINE_LENGTH + 10);
+
+        // Act
+        ImportResult result = importService.importSubscriptions(input(longLine + "\nalice\n"), ImportFormat.CSV);
+
+        // Assert
+        assertThat(result.rejects()).containsExactly(
+                new ImportReject(1, "Line is longer than " + ImportServiceImpl.MAX_LINE_LENGTH + " characters"));
+        verify(importStagingWriter).write(2, "alice", null);
+    }
+
+    @Test
+    @DisplayName("Должен корректно ограничить количество возвращаемых отклоненных строк")
+    void importSubscriptions_ManyRejects_CapsReportedRejects() {
+        // Arrange
+        when(importStagingRepo.findDuplicateSubscriptions(anyInt())).thenReturn(List.of());
+        String lines = ",\n".repeat(ImportServiceImpl.MAX_REPORTED_REJECTS + 5);
+
+        // Act
+        ImportResult result = importService.importSubscriptions(input(lines), ImportFormat.CSV);
+
+        // Assert
+        assertThat(result.rejectedCount()).isEqualTo(ImportServiceImpl.MAX_REPORTED_REJECTS + 5);
+        assertThat(result.rejects()).hasSize(ImportServiceImpl.MAX_REPORTED_REJECTS);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть исключение при неподдерживаемом формате")
+    void fromMediaType_UnsupportedType_ThrowsInvalidElementDataException() {
+        // Act & Assert
+        assertThat(ImportFormat.fromMediaType(MediaType.valueOf("text/csv;charset=UTF-8"))).isEqualTo(ImportFormat.CSV);
+        assertThatThrownBy(() -> ImportFormat.fromMediaType(MediaType.APPLICATION_JSON))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessageContaining("application/json");
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -6,15 +6,34 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.unit.DataSize;
+import ru.tms.cache.SubscriptionCatalog;
+import ru.tms.cache.SubscriptionListCache;
+import ru.tms.config.SubscriptionListCacheProperties;
 import ru.tms.dto.Subscription;
+import ru.tms.dto.SubscriptionPage;
+import ru.tms.dto.User;
+import ru.tms.dto.UserBatch;
+import ru.tms.dto.UserSubscriptions;
+import ru.tms.dto.UserSubscriptionsBatch;
 import ru.tms.entity.SubscriptionEntity;
 import ru.tms.entity.UserEntity;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.events.SubscriptionDeletedEvent;
 import ru.tms.exceptions.InvalidElementDataException;
-import ru.tms.mappers.SubscriptionMapper;
+import ru.tms.repo.SubscriptionCatalogEntry;
+import ru.tms.repo.SubscriptionInsertResult;
 import ru.tms.repo.SubscriptionRepo;
+import ru.tms.repo.SubscriptionRow;
+import ru.tms.sketch.SubscriptionHeavyHitters;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,14 +45,30 @@ import static org.mockito.Mockito.*;
 @ActiveProfiles("test")
 public class SubscriptionServiceImplTest {
 
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 0, 0);
+
     @Mock
     private SubscriptionRepo subscriptionRepo;
 
     @Mock
-    private SubscriptionMapper subscriptionMapper;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SubscriptionHeavyHitters subscriptionHeavyHitters;
+
+    @Mock
+    private SubscriptionCatalog subscriptionCatalog;
+
+    @Mock
+    private UserService userService;
 
     @Mock
-    private UserServiceImpl userServiceImpl;
+    private SubscriptionWriteCoalescer subscriptionWriteCoalescer;
+
+    @Spy
+    private SubscriptionListCache subscriptionListCache = new SubscriptionListCache(
+            new SubscriptionListCacheProperties(false, DataSize.ofMegabytes(1), Duration.ofMinutes(1), Duration.ofMinutes(10)),
+            new SimpleMeterRegistry(), Runnable::run);
 
     @InjectMocks
     private SubscriptionServiceImpl subscriptionService;
@@ -85,8 +120,8 @@ public class SubscriptionServiceImplTest {
     @DisplayName("Должен корректно вернуть подписку по полям name, UserEntity")
     void getSubscriptionByUserIdAndName_ExistingSubscription_ReturnsSubscriptionEntity() {
         // Arrange
-        when(subscriptionRepo.findByNameAndUser("TestSubscription", userEntity))
-                .thenReturn(Optional.of(subscriptionEntity));
+        when(subscriptionCatalog.findId("TestSubscription")).thenReturn(Optional.of(7));
+        when(subscriptionRepo.findByCatalogIdAndUser(7, userEntity)).thenReturn(Optional.of(subscriptionEntity));
 
         // Act
         Optional<SubscriptionEntity> result = subscriptionService
@@ -94,14 +129,15 @@ public class SubscriptionServiceImplTest {
 
         // Assert
         assertThat(result).isPresent().contains(subscriptionEntity);
-        verify(subscriptionRepo, times(1)).findByNameAndUser(any(String.class), any(UserEntity.class));
+        verify(subscriptionRepo, times(1)).findByCatalogIdAndUser(any(Integer.class), any(UserEntity.class));
     }
 
     @Test
     @DisplayName("Должен корректно вернуть пустой результат запроса подписки по полям name, UserEntity")
     void getSubscriptionByUserIdAndName_NonExistingSubscription_ReturnsEmptyOptional() {
         // Arrange
-        when(subscriptionRepo.findByNameAndUser("TestSubscription", userEntity)).thenReturn(Optional.empty());
+        when(subscriptionCatalog.findId("TestSubscription")).thenReturn(Optional.of(7));
+        when(subscriptionRepo.findByCatalogIdAndUser(7, userEntity)).thenReturn(Optional.empty());
 
         // Act
         Optional<SubscriptionEntity> result = subscriptionService
@@ -109,23 +145,94 @@ public class SubscriptionServiceImplTest {
 
         // Assert
         assertThat(result).isEmpty();
-        verify(subscriptionRepo, times(1)).findByNameAndUser(any(String.class), any(UserEntity.class));
+        verify(subscriptionRepo, times(1)).findByCatalogIdAndUser(any(Integer.class), any(UserEntity.class));
     }
 
     @Test
     @DisplayName("Должен корректно вернуть список подписок пользователя")
     void getSubscriptionsByUserId_ExistingUserId_ReturnsListOfSubscriptions() {
         // Arrange
-        List<SubscriptionEntity> subscriptionEntities = Collections.singletonList(subscriptionEntity);
-        when(subscriptionRepo.findByUserId(1L)).thenReturn(subscriptionEntities);
-        when(subscriptionMapper.toDto(subscriptionEntities)).thenReturn(Collections.singletonList(subscription));
+        List<SubscriptionRow> rows = List.of(new SubscriptionRow(1L, 7, 1L, CREATED_AT));
+        when(subscriptionRepo.findRowsByUserId(1L)).thenReturn(rows);
+        when(subscriptionCatalog.toSubscriptions(rows)).thenReturn(Collections.singletonList(subscription));
 
         // Act
         List<Subscription> result = subscriptionService.getSubscriptionsByUserId(1L);
 
         // Assert
         assertThat(result).isNotEmpty().contains(subscription);
-        verify(subscriptionRepo, times(1)).findByUserId(any(Long.class));
+        verify(subscriptionRepo, times(1)).findRowsByUserId(any(Long.class));
+        verify(subscriptionRepo, never()).findByUserId(any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть подписки нескольких пользователей одним запросом, сгруппированные по пользователю")
+    void getSubscriptionsByUserIds_MixedIds_ReturnsGroupedSubscriptions() {
+        // Arrange
+        when(userService.getUsersByIds(List.of(2L, 1L, 999L))).thenReturn(UserBatch.builder()
+                .users(List.of(new User(2L, "anotherUser"), new User(1L, "testUser")))
+                .missingIds(List.of(999L))
+                .build());
+        List<SubscriptionRow> rows = List.of(new SubscriptionRow(1L, 7, 1L, CREATED_AT));
+        Subscription owned = new Subscription(1L, "TestSubscription", 1L);
+        when(subscriptionRepo.findRowsByUserIds(Set.of(2L, 1L))).thenReturn(rows);
+        when(subscriptionCatalog.toSubscriptions(rows)).thenReturn(List.of(owned));
+
+        // Act
+        UserSubscriptionsBatch result = subscriptionService.getSubscriptionsByUserIds(List.of(2L, 1L, 999L));
+
+        // Assert
+        assertThat(result.users()).containsExactly(
+                new UserSubscriptions(2L, List.of()),
+                new UserSubscriptions(1L, List.of(owned)));
+        assertThat(result.missingIds()).containsExactly(999L);
+        verify(subscriptionRepo, never()).findRowsByUserId(any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть страницу подписок с курсором следующей страницы")
+    void getSubscriptionsPageByUserId_MoreRowsThanLimit_ReturnsNextCursor() {
+        // Arrange
+        SubscriptionRow firstRow = new SubscriptionRow(1L, 7, 1L, CREATED_AT);
+        SubscriptionRow secondRow = new SubscriptionRow(2L, 8, 1L, CREATED_AT);
+        Subscription second = new Subscription(2L, "ZSubscription", 1L);
+        when(subscriptionRepo.findRowsPageByUserIdOrderByName(1L, null, 2))
+                .thenReturn(List.of(firstRow, secondRow));
+        when(subscriptionCatalog.toSubscriptions(List.of(firstRow))).thenReturn(List.of(subscription));
+        when(subscriptionRepo.findRowsPageByUserIdOrderByName(1L, "TestSubscription", 2))
+                .thenReturn(List.of(secondRow));
+        when(subscriptionCatalog.toSubscriptions(List.of(secondRow))).thenReturn(List.of(second));
+
+        // Act
+        SubscriptionPage firstPage = subscriptionService.getSubscriptionsPageByUserId(1L, 1, "name", null);
+        SubscriptionPage lastPage = subscriptionService
+                .getSubscriptionsPageByUserId(1L, 1, "name", firstPage.nextCursor());
+
+        // Assert
+        assertThat(firstPage.items()).containsExactly(subscription);
+        assertThat(firstPage.nextCursor()).isNotNull();
+        assertThat(lastPage.items()).containsExactly(second);
+        assertThat(lastPage.nextCursor()).isNull();
+        verify(subscriptionRepo, times(1)).findRowsPageByUserIdOrderByName(1L, "TestSubscription", 2);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку для курсора другой сортировки")
+    void getSubscriptionsPageByUserId_CursorOfAnotherSort_ThrowsInvalidElementDataException() {
+        // Arrange
+        SubscriptionRow firstRow = new SubscriptionRow(1L, 7, 1L, CREATED_AT);
+        when(subscriptionRepo.findRowsPageByUserIdOrderByName(1L, null, 2))
+                .thenReturn(List.of(firstRow, new SubscriptionRow(2L, 8, 1L, CREATED_AT)));
+        when(subscriptionCatalog.toSubscriptions(List.of(firstRow))).thenReturn(List.of(subscription));
+        String nameCursor = subscriptionService.getSubscriptionsPageByUserId(1L, 1, "name", null).nextCursor();
+
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.getSubscriptionsPageByUserId(1L, 1, "created_at", nameCursor))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter cursor is malformed or was issued for another sort order");
+        assertThatThrownBy(() -> subscriptionService.getSubscriptionsPageByUserId(1L, 1, "size", null))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter sort must be name or created_at, got size");
     }
 
     @Test
@@ -142,23 +249,110 @@ public class SubscriptionServiceImplTest {
         assertThat(result).isEqualTo(topSubscriptions);
     }
 
+    @Test
+    @DisplayName("Должен корректно вернуть список топ N подписок")
+    void findTopSubscriptions_ValidLimit_ReturnsListOfSubscriptionNames() {
+        // Arrange
+        List<String> topSubscriptions = Arrays.asList("Sub1", "Sub2", "Sub3", "Sub4", "Sub5");
+        when(subscriptionRepo.findTopSubscriptions(5)).thenReturn(topSubscriptions);
+
+        // Act
+        List<String> result = subscriptionService.findTopSubscriptions(5);
+
+        // Assert
+        assertThat(result).isEqualTo(topSubscriptions);
+        verify(subscriptionRepo, times(1)).findTopSubscriptions(5);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при недопустимом limit для топа подписок")
+    void findTopSubscriptions_InvalidLimit_ThrowsInvalidElementDataException() {
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.findTopSubscriptions(0))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter limit must be between 1 and 100, got 0");
+        assertThatThrownBy(() -> subscriptionService.findTopSubscriptions(101))
+                .isInstanceOf(InvalidElementDataException.class);
+        verifyNoInteractions(subscriptionRepo);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть трендовые подписки за окно в сутках")
+    void findTrendingSubscriptions_DayWindow_QueriesWindowInHours() {
+        // Arrange
+        List<String> trending = Arrays.asList("Sub2", "Sub1");
+        when(subscriptionRepo.findTrendingSubscriptions(168, 2)).thenReturn(trending);
+
+        // Act
+        List<String> result = subscriptionService.findTrendingSubscriptions("7d", 2);
+
+        // Assert
+        assertThat(result).isEqualTo(trending);
+        verify(subscriptionRepo, times(1)).findTrendingSubscriptions(168, 2);
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при некорректном окне трендовых подписок")
+    void findTrendingSubscriptions_InvalidWindow_ThrowsInvalidElementDataException() {
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.findTrendingSubscriptions("week", 3))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter window must look like 1h, 24h or 7d, got week");
+        assertThatThrownBy(() -> subscriptionService.findTrendingSubscriptions("31d", 3))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter window must be between 1h and 30d, got 31d");
+        verifyNoInteractions(subscriptionRepo);
+    }
+
     @Test
     @DisplayName("Должен корректно создать подписку")
     void createSubscription_ValidSubscription_ReturnsCreatedSubscription() {
         // Arrange
-        when(userServiceImpl.getUserById(1L)).thenReturn(userEntity);
-        when(subscriptionRepo.findByNameAndUser("TestSubscription", userEntity))
-                .thenReturn(Optional.empty());
-        when(subscriptionMapper.toDto(any(SubscriptionEntity.class))).thenReturn(subscription);
+        when(subscriptionCatalog.resolve("TestSubscription")).thenReturn(new SubscriptionCatalogEntry(7, "TestSubscription"));
+        when(subscriptionRepo.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(true, 5L));
 
         // Act
         Subscription result = subscriptionService.createSubscription(subscription, 1L);
 
         // Assert
-        assertThat(result).isEqualTo(subscription);
-        verify(userServiceImpl, times(1)).getUserById(any(Long.class));
-        verify(subscriptionRepo, times(1)).findByNameAndUser(any(String.class), any(UserEntity.class));
-        verify(subscriptionRepo, times(1)).save(any(SubscriptionEntity.class));
+        assertThat(result).isEqualTo(new Subscription(5L, "TestSubscription", 1L));
+        verify(subscriptionRepo, times(1)).insertIfAbsent(1L, 7);
+        verify(subscriptionRepo, never()).findByCatalogIdAndUser(any(Integer.class), any(UserEntity.class));
+        verify(subscriptionRepo, never()).save(any(SubscriptionEntity.class));
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionCreatedEvent(1L, 5L, "TestSubscription"));
+    }
+
+    @Test
+    @DisplayName("Должен корректно создать подписку через объединение записей в пачки, если оно включено")
+    void createSubscription_CoalescerEnabled_InsertsThroughCoalescer() {
+        // Arrange
+        when(subscriptionCatalog.resolve("TestSubscription")).thenReturn(new SubscriptionCatalogEntry(7, "TestSubscription"));
+        when(subscriptionWriteCoalescer.isEnabled()).thenReturn(true);
+        when(subscriptionWriteCoalescer.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(true, 5L));
+
+        // Act
+        Subscription result = subscriptionService.createSubscription(subscription, 1L);
+
+        // Assert
+        assertThat(result).isEqualTo(new Subscription(5L, "TestSubscription", 1L));
+        verify(subscriptionRepo, never()).insertIfAbsent(any(), any());
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionCreatedEvent(1L, 5L, "TestSubscription"));
+    }
+
+    @Test
+    @DisplayName("Должен корректно создать подписку с написанием имени из справочника")
+    void createSubscription_OtherSpelling_ReturnsCatalogName() {
+        // Arrange
+        when(subscriptionCatalog.resolve(" testsubscription")).thenReturn(new SubscriptionCatalogEntry(7, "TestSubscription"));
+        when(subscriptionRepo.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(true, 5L));
+
+        // Act
+        Subscription result = subscriptionService
+                .createSubscription(Subscription.builder().name(" testsubscription").build(), 1L);
+
+        // Assert
+        assertThat(result).isEqualTo(new Subscription(5L, "TestSubscription", 1L));
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionCreatedEvent(1L, 5L, "TestSubscription"));
     }
 
     @Test
@@ -166,43 +360,125 @@ public class SubscriptionServiceImplTest {
     void createSubscription_NullSubscriptionName_ThrowsInvalidElementDataException() {
         // Arrange
         Subscription invalidSubscription = Subscription.builder().build();
-        when(userServiceImpl.getUserById(1L)).thenReturn(userEntity);
 
         // Act & Assert
         assertThatThrownBy(() -> subscriptionService.createSubscription(invalidSubscription, 1L))
                 .isInstanceOf(InvalidElementDataException.class)
                 .hasMessage("Subscription.name cannot be empty or missing");
-        verify(userServiceImpl, times(1)).getUserById(any(Long.class));
+        verifyNoInteractions(subscriptionRepo);
     }
 
     @Test
     @DisplayName("Должен корректно не создать подписку, из-за наличия такой же подписки на пользователе")
     void createSubscription_DuplicateSubscription_ThrowsInvalidElementDataException() {
         // Arrange
-        when(userServiceImpl.getUserById(1L)).thenReturn(userEntity);
-        when(subscriptionRepo.findByNameAndUser("TestSubscription", userEntity))
-                .thenReturn(Optional.of(subscriptionEntity));
+        when(subscriptionCatalog.resolve("TestSubscription")).thenReturn(new SubscriptionCatalogEntry(7, "TestSubscription"));
+        when(subscriptionRepo.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(true, null));
 
         // Act & Assert
         assertThatThrownBy(() -> subscriptionService.createSubscription(subscription, 1L))
                 .isInstanceOf(InvalidElementDataException.class)
                 .hasMessage(String.format("Attempted duplicate subscription creation for user %s: %s",
-                        userEntity.getUsername(), subscription.name()));
-        verify(userServiceImpl, times(1)).getUserById(any(Long.class));
-        verify(subscriptionRepo, times(1)).findByNameAndUser(any(String.class), any(UserEntity.class));
+                        1L, subscription.name()));
+        verify(subscriptionRepo, times(1)).insertIfAbsent(1L, 7);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Должен корректно не создать подписку несуществующему пользователю")
+    void createSubscription_NonExistingUser_ThrowsNoSuchElementException() {
+        // Arrange
+        when(subscriptionCatalog.resolve("TestSubscription")).thenReturn(new SubscriptionCatalogEntry(7, "TestSubscription"));
+        when(subscriptionRepo.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(false, null));
+
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.createSubscription(subscription, 1L))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("User not found with id: 1");
     }
 
     @Test
     @DisplayName("Должен корректно удалить подписку")
     void deleteSubscription_ExistingSubscription_DeletesSubscription() {
         // Arrange
-        when(subscriptionRepo.findById(1L)).thenReturn(Optional.of(subscriptionEntity));
+        when(subscriptionRepo.deleteByUserIdAndId(1L, 1L)).thenReturn(Optional.of("TestSubscription"));
 
         // Act
         subscriptionService.deleteSubscription(1L, 1L);
 
         // Assert
         verify(subscriptionRepo, times(1)).deleteByUserIdAndId(1L, 1L);
-        verify(subscriptionRepo, times(1)).findById(any(Long.class));
+        verify(subscriptionRepo, never()).findById(any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Должен корректно опубликовать событие об удалении подписки")
+    void deleteSubscription_DeletedRow_PublishesSubscriptionDeletedEvent() {
+        // Arrange
+        when(subscriptionRepo.deleteByUserIdAndId(1L, 1L)).thenReturn(Optional.of("TestSubscription"));
+
+        // Act
+        subscriptionService.deleteSubscription(1L, 1L);
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionDeletedEvent(1L, 1L, "TestSubscription"));
+    }
+
+    @Test
+    @DisplayName("Должен корректно не удалить подписку другого пользователя")
+    void deleteSubscription_NotOwnedSubscription_ThrowsNoSuchElementException() {
+        // Arrange
+        when(subscriptionRepo.deleteByUserIdAndId(2L, 1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.deleteSubscription(2L, 1L))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Subscription with id 1 not found for user 2");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Должен корректно удалить несколько подписок одним запросом")
+    void deleteSubscriptions_SomeOwned_ReturnsDeletedIds() {
+        // Arrange
+        when(subscriptionRepo.deleteByUserIdAndIds(1L, List.of(1L, 2L)))
+                .thenReturn(List.of(Subscription.builder().id(1L).name("TestSubscription").user(1L).build()));
+
+        // Act
+        List<Long> result = subscriptionService.deleteSubscriptions(1L, List.of(1L, 2L));
+
+        // Assert
+        assertThat(result).containsExactly(1L);
+        verify(eventPublisher, times(1)).publishEvent(new SubscriptionDeletedEvent(1L, 1L, "TestSubscription"));
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при удалении слишком большого списка подписок")
+    void deleteSubscriptions_TooManyIds_ThrowsInvalidElementDataException() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= SubscriptionServiceImpl.MAX_DELETE_BATCH_SIZE + 1; id++) {
+            ids.add(id);
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.deleteSubscriptions(1L, ids))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter ids must contain between 1 and 1000 ids");
+        verify(subscriptionRepo, never()).deleteByUserIdAndIds(any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при слиянии поврежденного скетча")
+    void mergeTopSubscriptionsSketch_MalformedSketch_ThrowsInvalidElementDataException() {
+        // Arrange
+        byte[] sketch = {1, 2, 3};
+        doThrow(new IllegalArgumentException("Unknown heavy hitters sketch format"))
+                .when(subscriptionHeavyHitters).mergePeerSketch(sketch);
+
+        // Act & Assert
+        assertThatThrownBy(() -> subscriptionService.mergeTopSubscriptionsSketch(sketch))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Invalid subscription sketch: Unknown heavy hitters sketch format");
     }
 }
@@ -0,0 +1,156 @@
+package ru.tms.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.tms.config.SubscriptionWriteCoalescerProperties;
+import ru.tms.repo.SubscriptionBatchInsertRow;
+import ru.tms.repo.SubscriptionInsertResult;
+import ru.tms.repo.SubscriptionRepo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionWriteCoalescerTest {
+
+    @Mock
+    private SubscriptionRepo subscriptionRepo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SubscriptionWriteCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coalescer.stop();
+    }
+
+    @Test
+    @DisplayName("Должен корректно записать одновременные создания одним запросом и раздать каждому свой результат")
+    void submit_ConcurrentCreates_WritesOneBatch() throws Exception {
+        // Arrange
+        coalescer = coalescer(true, 3);
+        when(subscriptionRepo.insertAllIfAbsent(List.of(1L, 1L, 2L), List.of(7, 7, 8)))
+                .thenReturn(List.of(new SubscriptionBatchInsertRow(1L, 10L, 7)));
+
+        // Act
+        CompletableFuture<SubscriptionInsertResult> created = coalescer.submit(1L, 7);
+        CompletableFuture<SubscriptionInsertResult> duplicate = coalescer.submit(1L, 7);
+        CompletableFuture<SubscriptionInsertResult> userMissing = coalescer.submit(2L, 8);
+
+        // Assert
+        assertThat(created.get(5, TimeUnit.SECONDS)).isEqualTo(new SubscriptionInsertResult(true, 10L));
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(new SubscriptionInsertResult(true, null));
+        assertThat(userMissing.get(5, TimeUnit.SECONDS)).isEqualTo(new SubscriptionInsertResult(false, null));
+        verify(subscriptionRepo, times(1)).insertAllIfAbsent(any(), any());
+        verify(subscriptionRepo, never()).insertIfAbsent(any(), any());
+        assertThat(meterRegistry.get("subscription.write.coalescer.batch.size").summary().totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.get("subscription.write.coalescer.queue.delay").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Должен корректно записать создания по одному, если запрос пачки завершился ошибкой")
+    void submit_BatchFails_WritesOneByOne() throws Exception {
+        // Arrange
+        coalescer = coalescer(true, 2);
+        DataIntegrityViolationException userDeleted = new DataIntegrityViolationException("fk");
+        when(subscriptionRepo.insertAllIfAbsent(List.of(1L, 2L), List.of(7, 8))).thenThrow(userDeleted);
+        when(subscriptionRepo.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(true, 10L));
+        when(subscriptionRepo.insertIfAbsent(2L, 8)).thenThrow(userDeleted);
+
+        // Act
+        CompletableFuture<SubscriptionInsertResult> created = coalescer.submit(1L, 7);
+        CompletableFuture<SubscriptionInsertResult> failed = coalescer.submit(2L, 8);
+
+        // Assert
+        assertThat(created.get(5, TimeUnit.SECONDS)).isEqualTo(new SubscriptionInsertResult(true, 10L));
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(userDeleted);
+    }
+
+    @Test
+    @DisplayName("Должен корректно записать создание отдельным запросом, если объединение выключено")
+    void insertIfAbsent_Disabled_WritesAlone() {
+        // Arrange
+        coalescer = coalescer(false, 3);
+        when(subscriptionRepo.insertIfAbsent(1L, 7)).thenReturn(new SubscriptionInsertResult(true, 10L));
+
+        // Act
+        SubscriptionInsertResult result = coalescer.insertIfAbsent(1L, 7);
+
+        // Assert
+        assertThat(result).isEqualTo(new SubscriptionInsertResult(true, 10L));
+        assertThat(coalescer.isEnabled()).isFalse();
+        verify(subscriptionRepo, never()).insertAllIfAbsent(any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен корректно дождаться пачки, которая пишется во время остановки, и не писать одновременно с ней")
+    void stop_BatchInProgress_DrainsAfterWorkerExits() throws Exception {
+        // Arrange
+        coalescer = coalescer(true, 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger concurrentWrites = new AtomicInteger();
+        AtomicInteger maxConcurrentWrites = new AtomicInteger();
+        when(subscriptionRepo.insertAllIfAbsent(any(), any())).thenAnswer(invocation -> {
+            maxConcurrentWrites.accumulateAndGet(concurrentWrites.incrementAndGet(), Math::max);
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            concurrentWrites.decrementAndGet();
+            List<Long> userIds = invocation.getArgument(0);
+            List<Integer> catalogIds = invocation.getArgument(1);
+            return List.of(new SubscriptionBatchInsertRow(userIds.get(0), 10L + catalogIds.get(0), catalogIds.get(0)));
+        });
+        CompletableFuture<SubscriptionInsertResult> inProgress = coalescer.submit(1L, 7);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<SubscriptionInsertResult> queued = coalescer.submit(1L, 8);
+
+        // Act
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(() -> {
+            try {
+                coalescer.stop();
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        });
+        Thread.sleep(200);
+        boolean stoppedDuringBatch = stopped.isDone();
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(stoppedDuringBatch).isFalse();
+        assertThat(inProgress.get(5, TimeUnit.SECONDS)).isEqualTo(new SubscriptionInsertResult(true, 17L));
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(new SubscriptionInsertResult(true, 18L));
+        assertThat(maxConcurrentWrites.get()).isEqualTo(1);
+        verify(subscriptionRepo, times(2)).insertAllIfAbsent(any(), any());
+        verify(subscriptionRepo, never()).insertIfAbsent(any(), any());
+    }
+
+    /**
+     * Задержка пачки заведомо больше времени теста: пачка пишется, когда набирает maxBatchSize.
+     */
+    private SubscriptionWriteCoalescer coalescer(boolean enabled, int maxBatchSize) {
+        return new SubscriptionWriteCoalescer(
+                new SubscriptionWriteCoalescerProperties(enabled, maxBatchSize, Duration.ofSeconds(30), 100),
+                subscriptionRepo, meterRegistry);
+    }
+}
@@ -6,18 +6,27 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
-import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
+import ru.tms.cache.UserCache;
+import ru.tms.config.UserCacheProperties;
 import ru.tms.dto.User;
+import ru.tms.dto.UserBatch;
 import ru.tms.entity.UserEntity;
+import ru.tms.events.UserDeletedEvent;
+import ru.tms.events.UserUpdatedEvent;
 import ru.tms.exceptions.InvalidElementDataException;
-import ru.tms.mappers.UserMapper;
 import ru.tms.repo.UserRepo;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,8 +40,12 @@ public class UserServiceImplTest {
     @Mock
     private UserRepo userRepo;
 
+    @Spy
+    private UserCache userCache = new UserCache(
+            new UserCacheProperties(false, 100, Duration.ofMinutes(10)), new SimpleMeterRegistry());
+
     @Mock
-    private UserMapper userMapper;
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -106,16 +119,16 @@ public class UserServiceImplTest {
     @DisplayName("Должен корректно создать UserEntity")
     void createUser_ValidUser_ReturnsCreatedUser() {
         // Arrange
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.empty());
-        when(userMapper.toDto(any(UserEntity.class))).thenReturn(user);
+        User createdUser = User.builder().id(1L).username("testUser").build();
+        when(userRepo.insertIfAbsent("testUser")).thenReturn(Optional.of(createdUser));
 
         // Act
         User result = userService.createUser(user);
 
         // Assert
-        assertThat(result).isEqualTo(user);
-        verify(userRepo, times(1)).save(any(UserEntity.class));
-        verify(userRepo, times(1)).findByUsername(any(String.class));
+        assertThat(result).isEqualTo(createdUser);
+        verify(userRepo, times(1)).insertIfAbsent("testUser");
+        verify(userRepo, never()).findByUsername(any(String.class));
     }
 
     @Test
@@ -156,59 +169,44 @@ public class UserServiceImplTest {
     @DisplayName("Должен корректно вернуть InvalidElementDataException.class при создании UserEntity")
     void createUser_DuplicateUsername_ThrowsInvalidElementDataException() {
         // Arrange
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.of(userEntity));
+        when(userRepo.insertIfAbsent("testUser")).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThatThrownBy(() -> userService.createUser(user))
                 .isInstanceOf(InvalidElementDataException.class)
                 .hasMessage("User with this username already exists");
-        verify(userRepo, times(1)).findByUsername(any(String.class));
-    }
-
-    @Test
-    @DisplayName("Должен корректно вернуть DuplicateKeyException.class при создании UserEntity")
-    void createUser_DuplicateKeyExceptionFromRepo_ThrowsDuplicateKeyException() {
-        // Arrange
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.empty());
-        when(userRepo.save(any(UserEntity.class))).thenThrow(new DuplicateKeyException("Username already exists"));
-
-        // Act & Assert
-        assertThatThrownBy(() -> userService.createUser(user))
-                .isInstanceOf(DuplicateKeyException.class)
-                .hasMessage("Username already exists");
-        verify(userRepo, times(1)).save(any(UserEntity.class));
-        verify(userRepo, times(1)).findByUsername(any(String.class));
+        verify(userRepo, times(1)).insertIfAbsent("testUser");
     }
 
     @Test
     @DisplayName("Должен корректно обновить UserEntity")
     void updateUser_ValidUser_ReturnsUpdatedUser() {
         // Arrange
-        when(userRepo.findById(1L)).thenReturn(Optional.of(userEntity));
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.empty());
-        when(userMapper.toDto(userEntity)).thenReturn(user);
+        User updatedUser = User.builder().id(1L).username("testUser").build();
+        when(userRepo.updateUsername(1L, "testUser")).thenReturn(Optional.of(updatedUser));
 
         // Act
         User result = userService.updateUser(1L, user);
 
         // Act & Assert
-        assertThat(result).isEqualTo(user);
-        verify(userRepo, times(1)).save(any(UserEntity.class));
-        verify(userRepo, times(1)).findById(any(Long.class));
-        verify(userRepo, times(1)).findByUsername(any(String.class));
+        assertThat(result).isEqualTo(updatedUser);
+        verify(userRepo, times(1)).updateUsername(1L, "testUser");
+        verify(userRepo, never()).findById(any(Long.class));
+        verify(userRepo, never()).findByUsername(any(String.class));
     }
 
     @Test
     @DisplayName("Должен корректно не найти User по id")
     void updateUser_NonExistingUser_ThrowsNoSuchElementException() {
         // Arrange
-        when(userRepo.findById(1L)).thenReturn(Optional.empty());
+        when(userRepo.updateUsername(1L, "testUser")).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThatThrownBy(() -> userService.updateUser(1L, user))
                 .isInstanceOf(NoSuchElementException.class)
                 .hasMessage("User not found with id: 1");
-        verify(userRepo, times(1)).findById(any(Long.class));
+        verify(userRepo, times(1)).updateUsername(1L, "testUser");
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -236,88 +234,158 @@ public class UserServiceImplTest {
     @DisplayName("Должен корректно вернуть InvalidElementDataException.class, такой username уже существует")
     void updateUser_DuplicateUsername_ThrowsInvalidElementDataException() {
         // Arrange
-        UserEntity anotherUser = new UserEntity("testUser");
-        anotherUser.setId(2L);
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.of(anotherUser));
+        when(userRepo.updateUsername(1L, "testUser"))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
 
         // Act & Assert
         assertThatThrownBy(() -> userService.updateUser(1L, user))
                 .isInstanceOf(InvalidElementDataException.class)
                 .hasMessage("User with this username already exists");
-        verify(userRepo, times(1)).findByUsername("testUser");
+        verify(userRepo, times(1)).updateUsername(1L, "testUser");
+    }
+
+    @Test
+    @DisplayName("Должен корректно удалить удалить user")
+    void deleteUser_ExistingUser_DeletesUser() {
+        // Arrange
+        when(userRepo.deleteUserById(1L)).thenReturn(1);
+
+        // Act
+        userService.deleteUser(1L);
+
+        // Assert
+        verify(userRepo, times(1)).deleteUserById(1L);
+        verify(userRepo, never()).findById(any(Long.class));
+        verify(eventPublisher, times(1)).publishEvent(new UserDeletedEvent(1L));
     }
 
     @Test
-    @DisplayName("Должен корректно вернуть OptimisticLockingFailureException.class при обновлении")
-    void updateUser_OptimisticLockingFailureException_ThrowsIllegalStateException() {
+    @DisplayName("Должен корректно вернуть NoSuchElementException.class при удалении user")
+    void deleteUser_NonExistingUser_ThrowsNoSuchElementException() {
         // Arrange
-        when(userRepo.findById(1L)).thenReturn(Optional.of(userEntity));
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.empty());
-        when(userRepo.save(any(UserEntity.class))).thenThrow(new OptimisticLockingFailureException("Concurrent modification"));
+        when(userRepo.deleteUserById(1L)).thenReturn(0);
 
         // Act & Assert
-        assertThatThrownBy(() -> userService.updateUser(1L, user))
-                .isInstanceOf(IllegalStateException.class)
-                .hasMessage("Failed to update user due to concurrent modification");
-        verify(userRepo, times(1)).findById(any(Long.class));
-        verify(userRepo, times(1)).findByUsername(any(String.class));
-        verify(userRepo, times(1)).save(any(UserEntity.class));
+        assertThatThrownBy(() -> userService.deleteUser(1L))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("User not found with id: 1");
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
-    @DisplayName("Должен корректно вернуть DuplicateKeyException.class при обновлении")
-    void updateUser_DuplicateKeyExceptionFromRepo_ThrowsDuplicateKeyException() {
+    @DisplayName("Должен корректно удалить нескольких пользователей одним запросом")
+    void deleteUsers_SomeExisting_ReturnsDeletedIds() {
         // Arrange
-        when(userRepo.findById(1L)).thenReturn(Optional.of(userEntity));
-        when(userRepo.findByUsername("testUser")).thenReturn(Optional.empty());
-        when(userRepo.save(any(UserEntity.class))).thenThrow(new DuplicateKeyException("Username already exists"));
+        when(userRepo.deleteUsersByIds(List.of(1L, 2L, 999L))).thenReturn(List.of(1L, 2L));
 
+        // Act
+        List<Long> result = userService.deleteUsers(List.of(1L, 2L, 999L));
+
+        // Assert
+        assertThat(result).containsExactly(1L, 2L);
+        verify(eventPublisher, times(1)).publishEvent(new UserDeletedEvent(1L));
+        verify(eventPublisher, times(1)).publishEvent(new UserDeletedEvent(2L));
+        verify(eventPublisher, never()).publishEvent(new UserDeletedEvent(999L));
+    }
+
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при удалении пустого списка пользователей")
+    void deleteUsers_EmptyIds_ThrowsInvalidElementDataException() {
         // Act & Assert
-        assertThatThrownBy(() -> userService.updateUser(1L, user))
-                .isInstanceOf(DuplicateKeyException.class)
-                .hasMessage("Username already exists");
-        verify(userRepo, times(1)).findById(any(Long.class));
-        verify(userRepo, times(1)).findByUsername(any(String.class));
-        verify(userRepo, times(1)).save(any(UserEntity.class));
+        assertThatThrownBy(() -> userService.deleteUsers(List.of()))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter ids must contain between 1 and 1000 ids");
+        verify(userRepo, never()).deleteUsersByIds(any());
     }
 
     @Test
-    @DisplayName("Должен корректно удалить удалить user")
-    void deleteUser_ExistingUser_DeletesUser() {
+    @DisplayName("Должен корректно вернуть пользователя из кэша без повторного обращения к БД")
+    void getUserById_CacheEnabled_LoadsOnce() {
         // Arrange
+        UserCache enabledCache = new UserCache(
+                new UserCacheProperties(true, 100, Duration.ofMinutes(10)), new SimpleMeterRegistry());
+        UserServiceImpl cachedUserService = new UserServiceImpl(userRepo, enabledCache, eventPublisher);
         when(userRepo.findById(1L)).thenReturn(Optional.of(userEntity));
 
         // Act
-        userService.deleteUser(1L);
+        UserEntity first = cachedUserService.getUserById(1L);
+        first.setUsername("changedByCaller");
+        UserEntity second = cachedUserService.getUserById(1L);
 
         // Assert
-        verify(userRepo, times(1)).delete(userEntity);
-        verify(userRepo, times(1)).findById(any(Long.class));
+        assertThat(second.getId()).isEqualTo(1L);
+        assertThat(second.getUsername()).isEqualTo("testUser");
+        verify(userRepo, times(1)).findById(1L);
     }
 
     @Test
-    @DisplayName("Должен корректно вернуть NoSuchElementException.class при удалении user")
-    void deleteUser_NonExistingUser_ThrowsNoSuchElementException() {
+    @DisplayName("Должен корректно перечитать пользователя после события изменения")
+    void getUserById_AfterUserUpdatedEvent_ReloadsUser() {
         // Arrange
-        when(userRepo.findById(1L)).thenReturn(Optional.empty());
+        UserCache enabledCache = new UserCache(
+                new UserCacheProperties(true, 100, Duration.ofMinutes(10)), new SimpleMeterRegistry());
+        UserServiceImpl cachedUserService = new UserServiceImpl(userRepo, enabledCache, eventPublisher);
+        UserEntity renamed = new UserEntity("renamedUser");
+        renamed.setId(1L);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(userEntity), Optional.of(renamed));
 
-        // Act & Assert
-        assertThatThrownBy(() -> userService.deleteUser(1L))
-                .isInstanceOf(NoSuchElementException.class)
-                .hasMessage("User not found with id: 1");
+        // Act
+        cachedUserService.getUserById(1L);
+        enabledCache.onUserUpdated(new UserUpdatedEvent(1L));
+        UserEntity result = cachedUserService.getUserById(1L);
+
+        // Assert
+        assertThat(result.getUsername()).isEqualTo("renamedUser");
+        verify(userRepo, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно опубликовать события изменения и удаления пользователя")
+    void updateAndDeleteUser_ExistingUser_PublishEvents() {
+        // Arrange
+        User updatedUser = User.builder().id(1L).username("updatedUser").build();
+        when(userRepo.updateUsername(1L, "updatedUser")).thenReturn(Optional.of(updatedUser));
+        when(userRepo.deleteUserById(1L)).thenReturn(1);
+
+        // Act
+        userService.updateUser(1L, updatedUser);
+        userService.deleteUser(1L);
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(new UserUpdatedEvent(1L));
+        verify(eventPublisher, times(1)).publishEvent(new UserDeletedEvent(1L));
     }
 
     @Test
-    @DisplayName("Должен корректно вернуть OptimisticLockingFailureException.class при удалении")
-    void deleteUser_OptimisticLockingFailureException_ThrowsIllegalStateException() {
+    @DisplayName("Должен корректно вернуть пользователей из кэша и догрузить остальных одним запросом")
+    void getUsersByIds_CacheEnabled_LoadsMissingInOneQuery() {
         // Arrange
+        UserCache enabledCache = new UserCache(
+                new UserCacheProperties(true, 100, Duration.ofMinutes(10)), new SimpleMeterRegistry());
+        UserServiceImpl cachedUserService = new UserServiceImpl(userRepo, enabledCache, eventPublisher);
+        UserEntity anotherUser = new UserEntity("anotherUser");
+        anotherUser.setId(2L);
         when(userRepo.findById(1L)).thenReturn(Optional.of(userEntity));
-        doThrow(new OptimisticLockingFailureException("Concurrent modification")).when(userRepo).delete(userEntity);
+        when(userRepo.findByIds(Set.of(2L, 3L))).thenReturn(List.of(anotherUser));
+        cachedUserService.getUserById(1L);
+
+        // Act
+        UserBatch result = cachedUserService.getUsersByIds(List.of(2L, 1L, 3L, 2L));
+
+        // Assert
+        assertThat(result.users()).extracting(User::id).containsExactly(2L, 1L);
+        assertThat(result.users()).extracting(User::username).containsExactly("anotherUser", "testUser");
+        assertThat(result.missingIds()).containsExactly(3L);
+        verify(userRepo, times(1)).findByIds(any());
+    }
 
+    @Test
+    @DisplayName("Должен корректно вернуть ошибку при чтении пустого списка пользователей")
+    void getUsersByIds_EmptyIds_ThrowsInvalidElementDataException() {
         // Act & Assert
-        assertThatThrownBy(() -> userService.deleteUser(1L))
-                .isInstanceOf(IllegalStateException.class)
-                .hasMessage("Failed to delete user due to concurrent modification");
-        verify(userRepo, times(1)).findById(any(Long.class));
+        assertThatThrownBy(() -> userService.getUsersByIds(List.of()))
+                .isInstanceOf(InvalidElementDataException.class)
+                .hasMessage("Parameter ids must contain between 1 and 1000 ids");
+        verify(userRepo, never()).findByIds(any());
     }
-}
\ No newline at end of file
+}
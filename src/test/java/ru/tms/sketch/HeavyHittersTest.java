@@ -0,0 +1,78 @@
+package ru.tms.sketch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HeavyHittersTest {
+
+    @Test
+    @DisplayName("Должен корректно найти самые частые ключи с учетом удалений")
+    void top_SkewedStream_ReturnsHeaviestItems() {
+        // Arrange
+        HeavyHitters heavyHitters = HeavyHitters.withErrorBounds(0.001, 0.01, 16);
+        for (int i = 0; i < 1000; i++) {
+            heavyHitters.add("Netflix", 1);
+            if (i % 2 == 0) {
+                heavyHitters.add("Spotify", 1);
+            }
+            heavyHitters.add("Rare" + i, 1);
+        }
+        heavyHitters.add("Spotify", -100);
+
+        // Act
+        List<Map.Entry<String, Long>> top = heavyHitters.top(2);
+
+        // Assert
+        assertThat(top).extracting(Map.Entry::getKey).containsExactly("Netflix", "Spotify");
+        long maxOverestimate = heavyHitters.sketch().maxOverestimate();
+        assertThat(top.get(0).getValue()).isBetween(1000L, 1000L + maxOverestimate);
+        assertThat(top.get(1).getValue()).isBetween(400L, 400L + maxOverestimate);
+    }
+
+    @Test
+    @DisplayName("Должен корректно слить скетчи, переданные в бинарной форме")
+    void merge_SerializedPeerSketch_SumsCounts() {
+        // Arrange
+        HeavyHitters node1 = HeavyHitters.withErrorBounds(0.001, 0.01, 16);
+        HeavyHitters node2 = HeavyHitters.withErrorBounds(0.001, 0.01, 16);
+        node1.add("Netflix", 30);
+        node1.add("Spotify", 10);
+        node2.add("Spotify", 25);
+        node2.add("Youtube", 5);
+
+        // Act
+        node1.merge(HeavyHitters.fromBytes(node2.toBytes(), node1));
+
+        // Assert
+        assertThat(node1.sketch().totalCount()).isEqualTo(70L);
+        assertThat(node1.top(3)).extracting(Map.Entry::getKey).containsExactly("Spotify", "Netflix", "Youtube");
+        assertThat(node1.estimate("Spotify")).isGreaterThanOrEqualTo(35L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно отклонить поврежденный или несовместимый скетч")
+    void merge_IncompatibleSketch_ThrowsIllegalArgumentException() {
+        // Arrange
+        HeavyHitters node = HeavyHitters.withErrorBounds(0.001, 0.01, 16);
+        HeavyHitters otherSize = HeavyHitters.withErrorBounds(0.01, 0.01, 16);
+
+        // Act & Assert
+        assertThatThrownBy(() -> HeavyHitters.fromBytes(new byte[]{1, 2, 3}, node))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HeavyHitters.fromBytes(otherSize.toBytes(), node))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Incompatible sketch size");
+        byte[] oversized = ByteBuffer.allocate(16).putInt(0x48485331).putInt(Integer.MAX_VALUE)
+                .putInt(32).putInt(1 << 24).array();
+        assertThatThrownBy(() -> HeavyHitters.fromBytes(oversized, node))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Incompatible sketch size 32x16777216");
+    }
+}
@@ -0,0 +1,83 @@
+package ru.tms.sketch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.tms.config.HeavyHittersProperties;
+import ru.tms.dto.ApproximateTopSubscriptions;
+import ru.tms.events.SubscriptionCreatedEvent;
+import ru.tms.repo.SubscriptionRepo;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionHeavyHittersTest {
+
+    private static final HeavyHittersProperties PROPERTIES =
+            new HeavyHittersProperties(0.001, 0.01, 16, Duration.ofMinutes(10));
+
+    @Mock
+    private SubscriptionRepo subscriptionRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SubscriptionHeavyHitters node;
+    private SubscriptionHeavyHitters peer;
+
+    @BeforeEach
+    void setUp() {
+        // Узел-получатель создается первым: эпоха другого узла не раньше его эпохи
+        node = new SubscriptionHeavyHitters(subscriptionRepo, PROPERTIES, transactionManager);
+        peer = new SubscriptionHeavyHitters(subscriptionRepo, PROPERTIES, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Должен корректно заменять скетч узла при повторном слиянии, а не складывать")
+    void mergePeerSketch_RepeatedMerge_ReplacesPeerCounts() {
+        // Arrange
+        node.onSubscriptionCreated(new SubscriptionCreatedEvent(1L, 1L, "Netflix"));
+        peer.onSubscriptionCreated(new SubscriptionCreatedEvent(2L, 2L, "Netflix"));
+        byte[] first = peer.localSketch();
+
+        // Act
+        boolean merged = node.mergePeerSketch(first);
+        boolean mergedAgain = node.mergePeerSketch(first);
+        ApproximateTopSubscriptions afterRepeat = node.top(1);
+        peer.onSubscriptionCreated(new SubscriptionCreatedEvent(3L, 3L, "Netflix"));
+        node.mergePeerSketch(peer.localSketch());
+
+        // Assert
+        assertThat(merged).isTrue();
+        assertThat(mergedAgain).isTrue();
+        assertThat(afterRepeat.totalCount()).isEqualTo(2L);
+        assertThat(afterRepeat.subscriptions().get(0).estimatedCount()).isEqualTo(2L);
+        assertThat(node.top(1).totalCount()).isEqualTo(3L);
+        assertThat(node.top(1).subscriptions().get(0).estimatedCount()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Должен корректно пропустить свой скетч и скетч, полученный от узла раньше")
+    void mergePeerSketch_OwnOrOlderSketch_Skips() {
+        // Arrange
+        node.onSubscriptionCreated(new SubscriptionCreatedEvent(1L, 1L, "Netflix"));
+        byte[] older = peer.localSketch();
+        peer.onSubscriptionCreated(new SubscriptionCreatedEvent(2L, 2L, "Netflix"));
+        node.mergePeerSketch(peer.localSketch());
+
+        // Act
+        boolean ownMerged = node.mergePeerSketch(node.localSketch());
+        boolean olderMerged = node.mergePeerSketch(older);
+
+        // Assert
+        assertThat(ownMerged).isFalse();
+        assertThat(olderMerged).isFalse();
+        assertThat(node.top(1).totalCount()).isEqualTo(2L);
+    }
+}
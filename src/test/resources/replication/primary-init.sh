@@ -0,0 +1,3 @@
+#!/bin/sh
+# Разрешает реплике снимать базовую копию и получать WAL по сети
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"